@@ -1,23 +1,74 @@
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import javax.swing.table.AbstractTableModel;
 
 /**
  * The address book class contains a list of the persons that make up the
  * address book. This class extends AbstractTableModel which allows for easier
- * maintenance of table data.
+ * maintenance of table data. Every row is given a stable id which is used as
+ * the primary key on disk, and the rows added, changed or removed since the
+ * last save are tracked so that only those need to be written. An address book
+ * opened from a snapshot decodes each person from the snapshot the first time
+ * it is asked for.
+ * 
+ * A content hash of every row and its id is kept as rows are added, changed
+ * and removed, so whether a file already holds exactly this address book can be
+ * checked without comparing the rows. Only the rows added or changed since the
+ * hash was last asked for are hashed again.
+ * 
+ * Loaders read the state and city of every row through the string pool of the
+ * address book, so the values that repeat across rows are held once.
  */
 public class AddressBook extends AbstractTableModel {
 
     private static final long serialVersionUID = 1L; // For serialization
     private transient ArrayList<Person> persons = new ArrayList<>();
 
+    // Row ids, parallel to persons
+    private transient long[] ids = new long[16];
+    private transient long nextId = 1;
+
+    // Hashes of the rows, parallel to persons, with 0 for rows not hashed yet.
+    // The content hash is the sum of the row hashes worked out so far.
+    private transient long[] hashes = new long[16];
+    private transient long contentHash = 0;
+    private transient boolean allHashed = true;
+
+    // Changes since the address book was last read from or saved to syncedFile
+    private transient Map<Long, Person> changedRows = new LinkedHashMap<>();
+    private transient Set<Long> removedIds = new HashSet<>();
+    private transient volatile File syncedFile = null;
+
+    // Snapshot the persons not decoded yet (held as null) are read from
+    private transient SnapshotFile snapshot = null;
+
+    // Strings of the fields that repeat across persons, shared by the rows loaded
+    private transient StringPool stringPool = new StringPool();
+
+    // Whether the table events fired now bring the rows in line with the file or
+    // empty the book, rather than being edits to save
+    private transient boolean outsideChange = false;
+
     /**
      * A simple getter that returns an array of the persons in the address book.
      * 
      * @return an array of persons in the address book.
      */
     public Person[] getPersons() {
-        return persons.toArray(new Person[persons.size()]);
+        Person[] array = new Person[persons.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = get(i);
+        }
+        return array;
     }
 
     /**
@@ -25,10 +76,65 @@ public class AddressBook extends AbstractTableModel {
      */
     public void add(Person p) {
         int newIndex = persons.size();
+        long id = nextId++;
+        if (newIndex == ids.length) {
+            ids = Arrays.copyOf(ids, newIndex * 2);
+            hashes = Arrays.copyOf(hashes, newIndex * 2);
+        }
+        ids[newIndex] = id;
+        hashes[newIndex] = 0;
+        allHashed = false;
         persons.add(p);
+        changedRows.put(id, p);
         fireTableRowsInserted(newIndex, newIndex);
     }
 
+    /**
+     * A method to add many persons to the end of the persons array with a single
+     * table update, used when importing rows in bulk.
+     * 
+     * @param newPersons The persons to add, in order.
+     */
+    public void addAll(Collection<? extends Person> newPersons) {
+        if (newPersons.isEmpty()) {
+            return;
+        }
+        int firstIndex = persons.size();
+        int lastIndex = firstIndex + newPersons.size() - 1;
+        if (lastIndex >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(ids.length * 2, lastIndex + 1));
+            hashes = Arrays.copyOf(hashes, ids.length);
+        }
+        allHashed = false;
+        int index = firstIndex;
+        for (Person p : newPersons) {
+            long id = nextId++;
+            hashes[index] = 0;
+            ids[index++] = id;
+            persons.add(p);
+            changedRows.put(id, p);
+        }
+        fireTableRowsInserted(firstIndex, lastIndex);
+    }
+
+    /**
+     * A method to add a person with a given id to the end of the persons array,
+     * used when replaying journaled edits. Ids are never reused, so a person is
+     * only added if no person was ever given its id.
+     * 
+     * @param id The id the person was given when first added.
+     * @param p  The person to add.
+     * @return True if the person was added, false if the id was already used.
+     */
+    boolean addWithId(long id, Person p) {
+        if (id < nextId) {
+            return false;
+        }
+        nextId = id;
+        add(p);
+        return true;
+    }
+
     /**
      * A method to remove a person from the persons array and update the table.
      * 
@@ -36,19 +142,27 @@ public class AddressBook extends AbstractTableModel {
      */
     public void remove(int index) {
         persons.remove(index);
+        long id = ids[index];
+        contentHash -= hashes[index];
+        System.arraycopy(ids, index + 1, ids, index, persons.size() - index);
+        System.arraycopy(hashes, index + 1, hashes, index, persons.size() - index);
+        changedRows.remove(id);
+        removedIds.add(id);
         fireTableRowsDeleted(index, index);
     }
 
     /**
      * Sets the person at the given index to the Person specified. Code changed to
      * add person !=null to fix bug
-     *
+     * 
      * @param index  The table index of the person to update.
      * @param person Person to replace index location with.
      */
     public void set(int index, Person person) {
         if (person != null) {
             persons.set(index, person);
+            changedRows.put(ids[index], person);
+            unhash(index);
             fireTableRowsUpdated(index, index);
         }
 
@@ -61,13 +175,373 @@ public class AddressBook extends AbstractTableModel {
      * @return A person object of the person in that location.
      */
     public Person get(int index) {
-        return persons.get(index);
+        Person person = persons.get(index);
+        if (person == null && snapshot != null) {
+            // Decode the person from the snapshot the first time it is shown
+            int row = snapshot.indexOf(ids[index]);
+            if (row >= 0) {
+                person = snapshot.get(row, stringPool);
+                persons.set(index, person);
+            }
+        }
+        return person;
+    }
+
+    /**
+     * Get the stable id of the person at the given index.
+     * 
+     * @param index The table index of the person.
+     * @return The id used to store the person on disk.
+     */
+    long getId(int index) {
+        if (index >= persons.size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + persons.size());
+        }
+        return ids[index];
+    }
+
+    /**
+     * Finds the index of the person with the given id. Ids only ever increase as
+     * persons are added and rows are read in id order, so they stay sorted and are
+     * searched by bisection.
+     * 
+     * @param id The id of the person.
+     * @return The table index of the person, or -1 if no person has that id.
+     */
+    int indexOf(long id) {
+        int index = Arrays.binarySearch(ids, 0, persons.size(), id);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Replaces the whole contents of this address book with rows read from a file.
+     * The address book is considered in sync with that file afterwards.
+     * 
+     * @param newPersons The persons read from the file.
+     * @param newIds     The ids of those persons, in the same order.
+     * @param source     The file the persons were read from.
+     */
+    void replaceAll(List<Person> newPersons, long[] newIds, File source) {
+        snapshot = null;
+        persons = new ArrayList<>(newPersons);
+        ids = Arrays.copyOf(newIds, Math.max(newPersons.size(), 16));
+        resetHashes(ids.length);
+        nextId = 1;
+        for (int i = 0; i < newPersons.size(); i++) {
+            nextId = Math.max(nextId, newIds[i] + 1);
+        }
+        markSaved(source);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Replaces the whole contents of this address book with the rows of a
+     * snapshot, without decoding any of them. The address book is not in sync
+     * with any database file afterwards, so the next save to one writes every row.
+     * 
+     * @param source The snapshot to show.
+     */
+    void replaceAll(SnapshotFile source) {
+        int rows = source.getRowCount();
+        snapshot = source;
+        persons = new ArrayList<>(Collections.<Person>nCopies(rows, null));
+        long[] snapshotIds = source.getIds();
+        ids = Arrays.copyOf(snapshotIds, Math.max(rows, 16));
+        resetHashes(ids.length);
+        nextId = rows == 0 ? 1 : snapshotIds[rows - 1] + 1;
+        markSaved(null);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Takes over the whole contents of another address book, including its tracked
+     * changes and string pool, with a single table update. The other address book
+     * is left empty, with a pool of its own.
+     * Used to show a book that was read in the background in one step.
+     * 
+     * @param other The address book to take the contents of.
+     */
+    void replaceWith(AddressBook other) {
+        persons = other.persons;
+        ids = other.ids;
+        hashes = other.hashes;
+        contentHash = other.contentHash;
+        allHashed = other.allHashed;
+        nextId = other.nextId;
+        changedRows = other.changedRows;
+        removedIds = other.removedIds;
+        syncedFile = other.syncedFile;
+        snapshot = other.snapshot;
+        stringPool = other.stringPool;
+
+        other.persons = new ArrayList<>();
+        other.ids = new long[16];
+        other.resetHashes(16);
+        other.changedRows = new LinkedHashMap<>();
+        other.removedIds = new HashSet<>();
+        other.syncedFile = null;
+        other.snapshot = null;
+        other.stringPool = new StringPool();
+
+        fireTableDataChanged();
+    }
+
+    /**
+     * Brings this address book up to date with the rows of the file it is in sync
+     * with, read again after another program changed the file. Rows added,
+     * changed or removed here since the last save are kept as they are. Every
+     * other row added, changed or removed in the file is applied with a table
+     * update of its own, and is not tracked as a change to save.
+     * 
+     * @param saved The rows read from the file, in id order.
+     * @return The number of rows added, changed or removed.
+     */
+    int mergeSaved(AddressBook saved) {
+        outsideChange = true;
+        try {
+            return mergeRows(saved);
+        } finally {
+            outsideChange = false;
+        }
+    }
+
+    /**
+     * A helper function to apply the rows read from the file for
+     * {@link #mergeSaved(AddressBook)}.
+     * 
+     * @param saved The rows read from the file, in id order.
+     * @return The number of rows added, changed or removed.
+     */
+    private int mergeRows(AddressBook saved) {
+        int merged = 0;
+        int row = 0;
+        int savedRow = 0;
+        int savedRows = saved.persons.size();
+        while (row < persons.size() || savedRow < savedRows) {
+            long id = row < persons.size() ? ids[row] : Long.MAX_VALUE;
+            long savedId = savedRow < savedRows ? saved.ids[savedRow] : Long.MAX_VALUE;
+            if (id == savedId) {
+                // In both, so take the saved person unless it was changed here
+                Person person = saved.get(savedRow++);
+                if (!changedRows.containsKey(id) && !samePerson(get(row), person)) {
+                    persons.set(row, person);
+                    unhash(row);
+                    fireTableRowsUpdated(row, row);
+                    merged++;
+                }
+                row++;
+            } else if (id < savedId) {
+                // Only here, so removed from the file unless it was added here
+                if (changedRows.containsKey(id)) {
+                    row++;
+                } else {
+                    persons.remove(row);
+                    contentHash -= hashes[row];
+                    System.arraycopy(ids, row + 1, ids, row, persons.size() - row);
+                    System.arraycopy(hashes, row + 1, hashes, row, persons.size() - row);
+                    fireTableRowsDeleted(row, row);
+                    merged++;
+                }
+            } else if (removedIds.contains(savedId)) {
+                // Only in the file, as it was removed here
+                savedRow++;
+            } else {
+                // Added to the file, so inserted where its id keeps the rows in order
+                if (persons.size() == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                    hashes = Arrays.copyOf(hashes, ids.length);
+                }
+                System.arraycopy(ids, row, ids, row + 1, persons.size() - row);
+                System.arraycopy(hashes, row, hashes, row + 1, persons.size() - row);
+                ids[row] = savedId;
+                hashes[row] = 0;
+                allHashed = false;
+                persons.add(row, saved.get(savedRow++));
+                nextId = Math.max(nextId, savedId + 1);
+                fireTableRowsInserted(row, row);
+                merged++;
+                row++;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Copies the rows of this address book so they can be saved while this one is
+     * edited, handing the tracked changes over to the copy. This address book is
+     * then treated as in sync with the file, and only tracks later changes.
+     * 
+     * @param file The file the copy will be saved to.
+     * @return The copy, with the changes to save.
+     */
+    AddressBook copyForSave(File file) {
+        AddressBook copy = copyRows();
+        copy.changedRows = changedRows;
+        copy.removedIds = removedIds;
+        copy.syncedFile = syncedFile;
+
+        changedRows = new LinkedHashMap<>();
+        removedIds = new HashSet<>();
+        syncedFile = file;
+        return copy;
+    }
+
+    /**
+     * Copies the rows of this address book so they can be written on another
+     * thread while this one is edited. Only the ids and references to the persons
+     * are copied, and rows not decoded from a snapshot yet are decoded by the
+     * copy when it is read. The copy tracks no changes and is in sync with no
+     * file.
+     * 
+     * @return The copy.
+     */
+    AddressBook copyRows() {
+        AddressBook copy = new AddressBook();
+        copy.persons = new ArrayList<>(persons);
+        copy.ids = Arrays.copyOf(ids, ids.length);
+        copy.hashes = Arrays.copyOf(hashes, hashes.length);
+        copy.contentHash = contentHash;
+        copy.allHashed = allHashed;
+        copy.nextId = nextId;
+        copy.snapshot = snapshot;
+        return copy;
+    }
+
+    /**
+     * Stops treating this address book as in sync with any file, so the next save
+     * writes every row. Used when a save of a copy failed, as the changes it held
+     * were not written.
+     */
+    void markUnsynced() {
+        syncedFile = null;
+    }
+
+    /**
+     * Getter for the file the tracked changes are relative to.
+     * 
+     * @return The file last read or saved, or null if every row differs from any
+     *         file.
+     */
+    File getSyncedFile() {
+        return syncedFile;
+    }
+
+    /**
+     * Checks whether the tracked changes are all that differ between this address
+     * book and the given file.
+     * 
+     * @param file The file to check against.
+     * @return True if the file was the last one read or saved, false otherwise.
+     */
+    boolean isSyncedWith(File file) {
+        return syncedFile != null && syncedFile.getAbsoluteFile().equals(file.getAbsoluteFile());
+    }
+
+    /**
+     * Checks whether edits are written straight to a file rather than kept in
+     * memory until saved.
+     * 
+     * @return True if edits are already saved when made, false otherwise.
+     */
+    boolean writesThrough() {
+        return false;
+    }
+
+    /**
+     * Gets the content hash of this address book, the sum of a hash of each row
+     * and its id. Equal address books have equal hashes whatever order their rows
+     * were added in. Rows added or changed since the hash was last asked for are
+     * hashed now, decoding them first if they are in a snapshot.
+     * 
+     * @return The content hash.
+     */
+    long contentHash() {
+        if (!allHashed) {
+            for (int row = 0; row < persons.size(); row++) {
+                if (hashes[row] == 0) {
+                    long hash = rowHash(ids[row], get(row));
+                    hashes[row] = hash == 0 ? 1 : hash;
+                    contentHash += hashes[row];
+                }
+            }
+            allHashed = true;
+        }
+        return contentHash;
+    }
+
+    /**
+     * Getter for the pool loaders share the repeated field values of this address
+     * book through.
+     * 
+     * @return The string pool.
+     */
+    StringPool stringPool() {
+        return stringPool;
+    }
+
+    /**
+     * Shares the string pool of another address book, so persons loaded here to
+     * be added to the other one later hold the same strings as its rows do.
+     * 
+     * @param other The address book whose pool to use.
+     */
+    void sharePoolOf(AddressBook other) {
+        stringPool = other.stringPool;
+    }
+
+    /**
+     * Checks whether the table events being fired come from emptying the address
+     * book or bringing it in line with its file, rather than from edits to save.
+     * 
+     * @return True while {@link #clear()} or {@link #mergeSaved(AddressBook)} is
+     *         firing events, false otherwise.
+     */
+    boolean isOutsideChange() {
+        return outsideChange;
+    }
+
+    /**
+     * Getter for the persons added or changed since the last save, keyed by id.
+     * 
+     * @return The changed rows in the order they were changed.
+     */
+    Map<Long, Person> getChangedRows() {
+        return changedRows;
+    }
+
+    /**
+     * Getter for the ids of the persons removed since the last save.
+     * 
+     * @return The removed ids.
+     */
+    Set<Long> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * Forgets all tracked changes after the address book has been written to or
+     * read from a file.
+     * 
+     * @param file The file the address book is now in sync with.
+     */
+    void markSaved(File file) {
+        changedRows.clear();
+        removedIds.clear();
+        syncedFile = file;
     }
 
     /**
      * Clears this address book persons list and updates the tables.
      */
     public void clear() {
+        // Nothing can be applied as a change on top of the old file anymore
+        changedRows.clear();
+        removedIds.clear();
+        syncedFile = null;
+        snapshot = null;
+        resetHashes(hashes.length);
+        stringPool.clear();
+
         if (persons.isEmpty()) {
             return;
         }
@@ -77,7 +551,12 @@ public class AddressBook extends AbstractTableModel {
         persons.clear();
 
         // Delete table rows
-        fireTableRowsDeleted(0, lastRow);
+        outsideChange = true;
+        try {
+            fireTableRowsDeleted(0, lastRow);
+        } finally {
+            outsideChange = false;
+        }
     }
 
     /**
@@ -107,7 +586,7 @@ public class AddressBook extends AbstractTableModel {
      */
     @Override
     public Object getValueAt(int row, int column) {
-        return persons.get(row).getField(column);
+        return get(row).getField(column);
     }
 
     /**
@@ -117,4 +596,85 @@ public class AddressBook extends AbstractTableModel {
     public String getColumnName(int column) {
         return Person.fields[column];
     }
+
+    /**
+     * A helper function to forget the hash of a row after its person changed.
+     * 
+     * @param row The table index of the row.
+     */
+    private void unhash(int row) {
+        contentHash -= hashes[row];
+        hashes[row] = 0;
+        allHashed = false;
+    }
+
+    /**
+     * A helper function to forget the hashes of every row after the rows were
+     * replaced.
+     * 
+     * @param capacity The number of rows the ids array has room for.
+     */
+    private void resetHashes(int capacity) {
+        hashes = new long[capacity];
+        contentHash = 0;
+        allHashed = false;
+    }
+
+    /**
+     * A helper function to hash a row, mixing the id with each field in turn so
+     * that swapped fields or ids give a different hash. Missing fields hash
+     * differently from empty ones.
+     * 
+     * @param id     The id of the row.
+     * @param person The person in the row.
+     * @return The hash of the row.
+     */
+    private static long rowHash(long id, Person person) {
+        long hash = mix(id);
+        for (int field = 0; field < Person.fields.length; field++) {
+            String value = person == null ? null : person.getField(field);
+            long fieldHash = -1;
+            if (value != null) {
+                // FNV-1a over the characters of the field
+                fieldHash = 0xcbf29ce484222325L;
+                for (int i = 0; i < value.length(); i++) {
+                    fieldHash = (fieldHash ^ value.charAt(i)) * 0x100000001b3L;
+                }
+            }
+            hash = mix(hash ^ fieldHash);
+        }
+        return hash;
+    }
+
+    /**
+     * A helper function to scramble the bits of a hash, as the SplitMix64
+     * generator finishes its values.
+     * 
+     * @param value The value to scramble.
+     * @return The scrambled value.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * A helper function to check whether two persons have the same fields.
+     * 
+     * @param a The first person.
+     * @param b The second person.
+     * @return True if every field is equal, false otherwise.
+     */
+    private static boolean samePerson(Person a, Person b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        for (int field = 0; field < Person.fields.length; field++) {
+            if (!Objects.equals(a.getField(field), b.getField(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
\ No newline at end of file
@@ -1,11 +1,74 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class AddressBookController {
 
     AddressBook addressBook;
 
+    // Formats files are read and written in, in order of preference
+    private final List<StorageBackend> backends;
+
+    // The file last opened or saved, and the backend it was read or written with
+    private File storedFile = null;
+    private StorageBackend storedBackend = null;
+
+    // The file last saved to and the content hash of the rows written to it
+    private File writtenFile = null;
+    private long writtenHash = 0;
+
+    // Journal of the edits made since the current file was opened or saved
+    private volatile EditJournal journal = null;
+    private File journalFile = null;
+
+    // The file last loaded, and whether edits left by a crash were recovered into it
+    private File loadedFile = null;
+    private boolean recovered = false;
+
+    // Saves are numbered when their contents are taken and written in that order
+    private final Object saveLock = new Object();
+    private long savesTaken = 0;
+    private long savesWritten = 0;
+
+    // Whether a save failed since every row was last written. Saves taken before
+    // the failure only hold the changes since the failed one, which never reached
+    // the file.
+    private boolean saveFailed = false;
+
+    /**
+     * The contents of the address book taken for a save made off the thread that
+     * edits it.
+     */
+    static final class Capture {
+        private final AddressBook copy;
+        private final File file;
+        private final EditJournal journal;
+        private final long journalPosition;
+        private final long turn;
+
+        private Capture(AddressBook copy, File file, EditJournal journal, long journalPosition, long turn) {
+            this.copy = copy;
+            this.file = file;
+            this.journal = journal;
+            this.journalPosition = journalPosition;
+            this.turn = turn;
+        }
+
+        /**
+         * Getter for the file the contents are saved to.
+         * 
+         * @return The file.
+         */
+        File getFile() {
+            return file;
+        }
+    }
+
     /**
      * AddressBookController constructor which initializes the controller with the
      * passed address book.
@@ -13,7 +76,21 @@ public class AddressBookController {
      * @param addressBook The address book for the controller to handle.
      */
     public AddressBookController(AddressBook addressBook) {
+        this(addressBook, Arrays.asList(new SnapshotBackend(), new SqliteBackend()));
+    }
+
+    /**
+     * AddressBookController constructor which initializes the controller with the
+     * passed address book, reading and writing files with the given backends.
+     * Files are read with the first backend recognising their contents, and
+     * written with the first claiming their name.
+     * 
+     * @param addressBook The address book for the controller to handle.
+     * @param backends    The storage backends, in order of preference.
+     */
+    public AddressBookController(AddressBook addressBook, List<StorageBackend> backends) {
         this.addressBook = addressBook;
+        this.backends = backends;
     }
 
     /**
@@ -23,6 +100,9 @@ public class AddressBookController {
      */
     public void add(Person person) {
         addressBook.add(person);
+        if (journal != null) {
+            journal.recordAdd(addressBook.getId(addressBook.getRowCount() - 1), person);
+        }
     }
 
     /**
@@ -34,6 +114,9 @@ public class AddressBookController {
      */
     public void set(int index, Person person) {
         addressBook.set(index, person);
+        if (journal != null && person != null) {
+            journal.recordSet(addressBook.getId(index), person);
+        }
     }
 
     /**
@@ -42,7 +125,13 @@ public class AddressBookController {
      * @param index The index of the person to remove.
      */
     public void remove(int index) {
+        if (journal == null) {
+            addressBook.remove(index);
+            return;
+        }
+        long id = addressBook.getId(index);
         addressBook.remove(index);
+        journal.recordRemove(id);
     }
 
     /**
@@ -56,32 +145,653 @@ public class AddressBookController {
     }
 
     /**
-     * An intermediate function to clear the address book.
+     * An intermediate function to clear the address book. The journal of the
+     * file it showed is deleted, as its edits are no longer wanted.
      */
     public void clear() {
         addressBook.clear();
+        try {
+            discardJournal();
+        } catch (IOException exception) {
+            // A journal left behind only holds edits the user chose to lose
+        }
     }
 
     /**
-     * An intermediate function to open a saved address book.
+     * An intermediate function to open a saved address book. Snapshots are
+     * recognised by their contents and opened without decoding their rows. Edits
+     * journaled but not saved before the program last stopped are recovered.
+     * An address book kept in a database file is switched to the file opened
+     * instead of reading its rows, or to a new file holding the rows of a
+     * snapshot, so the file shown before keeps its rows.
      * 
      * @param file The saved file to load.
      * @throws FileNotFoundException Thrown if the file is unreadable or does not
      *                               exist.
      * @throws SQLException          Thrown if the file was not in correct format.
+     * @throws IOException           Thrown if a snapshot or the journal could not
+     *                               be read.
      */
-    public void open(File file) throws FileNotFoundException, SQLException {
-        FileSystem.readFile(addressBook, file);
-        addressBook.fireTableDataChanged();
+    public void open(File file) throws IOException, SQLException {
+        StorageBackend backend = StorageBackend.forReading(backends, file);
+        boolean ownJournal = isJournalFor(file);
+        if (addressBook instanceof DatabaseAddressBook) {
+            DatabaseAddressBook database = (DatabaseAddressBook) addressBook;
+            if (backend instanceof SqliteBackend) {
+                database.attach(file);
+            } else {
+                database.clear();
+                backend.read(database, file, ProgressListener.NONE);
+            }
+        } else {
+            backend.read(addressBook, file, ProgressListener.NONE);
+            addressBook.fireTableDataChanged();
+        }
+        remember(backend, file);
+        attachJournal(file);
+        recovered = !ownJournal && EditJournal.recover(addressBook, file);
+        if (!recovered) {
+            resetJournal();
+        }
     }
 
     /**
-     * An intermediate function to save the current address book.
+     * Shows a saved address book again without reading it, if it is the file the
+     * current address book was last read from or saved to and still holds exactly
+     * the rows shown, by the content hash recorded in the file. Must be called on
+     * the thread making edits, and followed by {@link #load(File,
+     * ProgressListener)} and {@link #replace(AddressBook)} if it returns false.
+     * 
+     * @param file The saved file to show.
+     * @return True if the file was shown without reading it, false if it must be
+     *         loaded.
+     * @throws SQLException Thrown if the file was not in correct format.
+     * @throws IOException  Thrown if the journal could not be opened.
+     */
+    public boolean reopen(File file) throws IOException, SQLException {
+        if (addressBook.writesThrough() || !addressBook.isSyncedWith(file)
+                || !(StorageBackend.forReading(backends, file) instanceof SqliteBackend)) {
+            return false;
+        }
+        if (!isJournalFor(file)
+                && (EditJournal.journalFile(file).exists() || EditJournal.checkpointFile(file).exists())) {
+            // Edits left by a crash are recovered by loading the file
+            return false;
+        }
+        if (!FileSystem.holds(file, addressBook.contentHash())) {
+            return false;
+        }
+        addressBook.markSaved(file);
+        synchronized (this) {
+            loadedFile = file;
+            recovered = false;
+        }
+        attachJournal(file);
+        resetJournal();
+        return true;
+    }
+
+    /**
+     * Reads a saved address book into a new address book without touching the
+     * current one. This is safe to call off the Event Dispatch Thread, and is
+     * followed by {@link #replace(AddressBook)} on it to show the result.
+     * 
+     * @param file     The saved file to load.
+     * @param listener The listener to report the number of rows read to.
+     * @return The address book read from the file.
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     * @throws SQLException          Thrown if the file was not in correct format.
+     * @throws IOException           Thrown if a snapshot or the journal could not
+     *                               be read.
+     */
+    public AddressBook load(File file, ProgressListener listener) throws IOException, SQLException {
+        StorageBackend backend = StorageBackend.forReading(backends, file);
+        AddressBook loaded = new AddressBook();
+        backend.read(loaded, file, listener);
+        remember(backend, file);
+
+        // The journal of a file open now only holds edits the user chose to lose
+        boolean found = !isJournalFor(file) && EditJournal.recover(loaded, file);
+        synchronized (this) {
+            loadedFile = file;
+            recovered = found;
+        }
+        return loaded;
+    }
+
+    /**
+     * Replaces the contents of the current address book with a loaded one in a
+     * single step, journaling later edits next to the file it was loaded from.
+     * 
+     * @param loaded The address book returned by {@link #load(File,
+     *               ProgressListener)}.
+     * @throws IOException Thrown if the journal could not be opened.
+     */
+    public void replace(AddressBook loaded) throws IOException {
+        File file;
+        boolean found;
+        synchronized (this) {
+            file = loadedFile;
+            found = recovered;
+        }
+        if (file != null) {
+            attachJournal(file);
+            if (!found) {
+                resetJournal();
+            }
+        }
+        addressBook.replaceWith(loaded);
+    }
+
+    /**
+     * Checks whether the last file opened or loaded had edits recovered from its
+     * journal, which are not saved to the file yet.
+     * 
+     * @return True if edits were recovered, false otherwise.
+     */
+    public synchronized boolean wasRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Imports the persons in a CSV file into a new address book without touching
+     * the current one. This is safe to call off the Event Dispatch Thread, and is
+     * followed by {@link #append(AddressBook)} on it to show the result. The new
+     * address book shares the string pool of the current one, so the appended
+     * rows share their repeated strings with the rows already there.
+     * 
+     * @param csv         The CSV file to import.
+     * @param imported    The address book to add the valid rows to.
+     * @param errorReport The file to write rejected rows to.
+     * @param listener    The listener to report progress to.
+     * @return The number of rows imported and rejected.
+     * @throws IOException Thrown if the file could not be read or the report could
+     *                     not be written.
+     */
+    public CsvImporter.Result importCsv(File csv, AddressBook imported, File errorReport, ProgressListener listener)
+            throws IOException {
+        // Share the repeated strings of the rows already shown
+        imported.sharePoolOf(addressBook);
+        return new CsvImporter().importFile(imported, csv, errorReport, listener);
+    }
+
+    /**
+     * Adds the persons of an imported address book to the end of the current one
+     * in a single step.
+     * 
+     * @param imported The address book filled by {@link #importCsv(File,
+     *                 AddressBook, File, ProgressListener)}.
+     */
+    public void append(AddressBook imported) {
+        addressBook.addAll(Arrays.asList(imported.getPersons()));
+    }
+
+    /**
+     * Exports the current address book row by row, reporting progress as rows are
+     * written. The address book must not change until the export has finished.
+     * 
+     * @param out      The file to write to.
+     * @param exporter The exporter choosing the format and columns.
+     * @param listener The listener to report the number of rows written to.
+     * @throws IOException Thrown if the file could not be written.
+     */
+    public void export(File out, CsvExporter exporter, ProgressListener listener) throws IOException {
+        exporter.export(addressBook, out, listener);
+    }
+
+    /**
+     * Backs up the file last opened or saved while the address book stays open,
+     * which is safe to call off the Event Dispatch Thread. Editing and saving can
+     * carry on meanwhile. The backup holds the file as last saved, so edits not
+     * saved yet are left out.
+     * 
+     * @param target   The file to write the backup to, replaced if it exists.
+     * @param listener The listener to report the progress of the copy to.
+     * @throws IOException  Thrown if no file was opened or saved, its format
+     *                      cannot be backed up while open, or the backup could
+     *                      not be written.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    public void backup(File target, ProgressListener listener) throws IOException, SQLException {
+        File file;
+        StorageBackend backend;
+        synchronized (this) {
+            file = storedFile;
+            backend = storedBackend;
+        }
+        if (file == null) {
+            throw new IOException("The address book has not been saved to a file");
+        }
+        backend.backup(file, target, listener);
+    }
+
+    /**
+     * An intermediate function to save the current address book. Files named
+     * with {@link SnapshotFile#EXTENSION} are saved as snapshots.
      * 
      * @param file The file to save the contents of the address book to.
      * @throws SQLException Thrown if the file could not be saved.
+     * @throws IOException  Thrown if a snapshot could not be written.
+     */
+    public void save(File file) throws SQLException, IOException {
+        save(file, ProgressListener.NONE);
+    }
+
+    /**
+     * An intermediate function to save the current address book, reporting
+     * progress as rows are written. The address book must not change until the
+     * save has finished. An address book kept in a database file is kept in the
+     * database file saved to afterwards.
+     * 
+     * @param file     The file to save the contents of the address book to.
+     * @param listener The listener to report the number of rows written to.
+     * @throws SQLException Thrown if the file could not be saved.
+     * @throws IOException  Thrown if a snapshot could not be written or the
+     *                      journal could not be emptied.
+     */
+    public void save(File file, ProgressListener listener) throws SQLException, IOException {
+        awaitTurn(takeTurn());
+        try {
+            write(addressBook, file, listener);
+            synchronized (saveLock) {
+                saveFailed = false;
+            }
+            if (addressBook instanceof DatabaseAddressBook && !addressBook.isSyncedWith(file)
+                    && StorageBackend.forWriting(backends, file) instanceof SqliteBackend) {
+                ((DatabaseAddressBook) addressBook).attach(file);
+            }
+
+            // The file now holds every edit, so later ones are journaled from here
+            attachJournal(file);
+            resetJournal();
+        } finally {
+            endTurn();
+        }
+    }
+
+    /**
+     * Takes the current contents of the address book to be saved by {@link
+     * #save(Capture)}, which may run on another thread. Edits made afterwards are
+     * tracked for the next save. Must be called on the thread making edits, and
+     * followed by a save of the capture.
+     * 
+     * @param file The file to save to.
+     * @return The contents to save.
+     */
+    Capture capture(File file) {
+        EditJournal current = isJournalFor(file) ? journal : null;
+        long position = current == null ? 0 : current.position();
+        return new Capture(addressBook.copyForSave(file), file, current, position, takeTurn());
+    }
+
+    /**
+     * Saves contents taken by {@link #capture(File)}, after any save taken before
+     * it. Records of the edits it holds are dropped from the journal, keeping those
+     * made since. If the save fails the address book is no longer treated as in
+     * sync with any file, so the next save writes every row. Saves taken before
+     * the failure write every row too, and keep the journal whole, as it still
+     * holds the edits of the failed save.
+     * 
+     * @param capture The contents to save.
+     * @throws SQLException Thrown if the file could not be saved.
+     * @throws IOException  Thrown if a snapshot could not be written or the
+     *                      journal could not be trimmed.
+     */
+    void save(Capture capture) throws SQLException, IOException {
+        save(capture, ProgressListener.NONE);
+    }
+
+    /**
+     * Saves contents taken by {@link #capture(File)} as {@link #save(Capture)}
+     * does, reporting progress as rows are written. The address book may be
+     * edited meanwhile.
+     * 
+     * @param capture  The contents to save.
+     * @param listener The listener to report the number of rows written to.
+     * @throws SQLException Thrown if the file could not be saved.
+     * @throws IOException  Thrown if a snapshot could not be written or the
+     *                      journal could not be trimmed.
+     */
+    void save(Capture capture, ProgressListener listener) throws SQLException, IOException {
+        awaitTurn(capture.turn);
+        try {
+            boolean afterFailure;
+            synchronized (saveLock) {
+                afterFailure = saveFailed;
+            }
+            if (afterFailure) {
+                // The changes taken were relative to rows the failed save never wrote
+                capture.copy.markUnsynced();
+            }
+            boolean written = false;
+            try {
+                write(capture.copy, capture.file, listener);
+                written = true;
+            } finally {
+                synchronized (saveLock) {
+                    saveFailed = !written;
+                }
+                if (!written) {
+                    addressBook.markUnsynced();
+                }
+            }
+
+            if (capture.journal != null && capture.journal == journal) {
+                if (!afterFailure) {
+                    capture.journal.truncateTo(capture.journalPosition);
+                }
+            } else if (!isJournalFor(capture.file) && addressBook.isSyncedWith(capture.file)) {
+                // Journal later edits unless another file was opened while saving
+                attachJournal(capture.file);
+                resetJournal();
+            }
+        } finally {
+            endTurn();
+        }
+    }
+
+    /**
+     * Finds the rows of the address book with a word starting with each term of
+     * the search text, in any field. When the address book was read from or saved
+     * to a file, the full-text index of that file is searched and only the rows
+     * changed since are checked in memory; otherwise every row is checked. While a
+     * save is being written every row is checked too, as the file does not hold
+     * the changes handed to the save until it commits.
+     * 
+     * @param text The text to search for.
+     * @return The table indexes of the matching rows in ascending order, or every
+     *         row if the text has no terms.
+     * @throws SQLException Thrown if the file could not be searched.
+     */
+    public synchronized int[] search(String text) throws SQLException {
+        String[] terms = FileSystem.searchTerms(text);
+        int rows = addressBook.getRowCount();
+        int[] matches = new int[rows];
+        int count = 0;
+        long[] indexed;
+        long saves = quietSaveCount();
+
+        if (terms.length == 0) {
+            for (int row = 0; row < rows; row++) {
+                matches[count++] = row;
+            }
+        } else if (addressBook instanceof DatabaseAddressBook) {
+            // Every row is in the file, so the index alone answers the search
+            return ((DatabaseAddressBook) addressBook).search(terms);
+        } else if (saves >= 0 && (indexed = searchIndex(terms)) != null) {
+            // Saved rows come from the index, unless they were changed or removed since
+            Map<Long, Person> changed = addressBook.getChangedRows();
+            Set<Long> removed = addressBook.getRemovedIds();
+            for (long id : indexed) {
+                int row = addressBook.indexOf(id);
+                if (row >= 0 && !changed.containsKey(id) && !removed.contains(id)) {
+                    matches[count++] = row;
+                }
+            }
+            for (Map.Entry<Long, Person> entry : changed.entrySet()) {
+                if (FileSystem.matchesTerms(entry.getValue(), terms)) {
+                    matches[count++] = addressBook.indexOf(entry.getKey());
+                }
+            }
+            Arrays.sort(matches, 0, count);
+            if (!isQuietSince(saves)) {
+                // The changes were handed to a save taken meanwhile, so check every row
+                return searchRows(terms, rows);
+            }
+        } else {
+            return searchRows(terms, rows);
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * A helper function to check every row of the address book against search
+     * terms in memory.
+     * 
+     * @param terms The search terms.
+     * @param rows  The number of rows to check.
+     * @return The table indexes of the matching rows in ascending order.
+     */
+    private int[] searchRows(String[] terms, int rows) {
+        int[] matches = new int[rows];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (FileSystem.matchesTerms(addressBook.get(row), terms)) {
+                matches[count++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Closes the storage backends and deletes the journal of the file last opened
+     * or saved, as the program is stopping normally, and empties the string pool
+     * of the address book. Saves already taken are written first.
+     * 
+     * @throws SQLException Thrown if the file could not be closed.
+     * @throws IOException  Thrown if the journal could not be deleted.
+     */
+    public void close() throws SQLException, IOException {
+        awaitTurn(takeTurn());
+        try {
+            synchronized (this) {
+                try {
+                    for (StorageBackend backend : backends) {
+                        backend.close();
+                    }
+                } finally {
+                    addressBook.stringPool().clear();
+                    discardJournal();
+                }
+            }
+        } finally {
+            endTurn();
+        }
+    }
+
+    /**
+     * A helper function to write an address book to a file with the backend
+     * claiming its name.
+     * 
+     * @param book     The address book to write.
+     * @param file     The file to write to.
+     * @param listener The listener to report the number of rows written to.
+     * @throws SQLException Thrown if the file could not be saved.
+     * @throws IOException  Thrown if a snapshot could not be written.
+     */
+    private void write(AddressBook book, File file, ProgressListener listener) throws SQLException, IOException {
+        if (book.writesThrough() && book.isSyncedWith(file)) {
+            // Every edit is already in the file
+            return;
+        }
+        if (book.writesThrough()) {
+            // Write a copy in memory, which also knows the content hash of the rows
+            book = book.copyForSave(file);
+        }
+        StorageBackend backend = StorageBackend.forWriting(backends, file);
+        backend.write(book, file, listener);
+        remember(backend, file);
+        long hash = book.contentHash();
+        synchronized (this) {
+            writtenFile = file.getAbsoluteFile();
+            writtenHash = hash;
+        }
+    }
+
+    /**
+     * Checks whether a file still holds exactly the rows this controller last
+     * saved to it, by the content hash the save recorded in the file. Any change
+     * another program makes to the rows removes the hash.
+     * 
+     * @param file The file to check.
+     * @return True if the file was last changed by a save from here, false if it
+     *         was changed since or could not be read.
+     */
+    boolean holdsLastSave(File file) {
+        long hash;
+        synchronized (this) {
+            if (!file.getAbsoluteFile().equals(writtenFile)) {
+                return false;
+            }
+            hash = writtenHash;
+        }
+        try {
+            return FileSystem.holds(file, hash);
+        } catch (SQLException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * A helper function to search the index of the file last opened or saved,
+     * if its backend keeps one and the address book is still in sync with it.
+     * 
+     * @param terms The search terms.
+     * @return The ids of the matching saved rows, or null if there is no index.
+     * @throws SQLException Thrown if the file could not be searched.
+     */
+    private synchronized long[] searchIndex(String[] terms) throws SQLException {
+        if (storedFile == null || !addressBook.isSyncedWith(storedFile)) {
+            return null;
+        }
+        return storedBackend.search(storedFile, terms);
+    }
+
+    /**
+     * A helper function to note the file last read or written and its backend.
+     * 
+     * @param backend The backend the file was read or written with.
+     * @param file    The file.
+     */
+    private synchronized void remember(StorageBackend backend, File file) {
+        storedBackend = backend;
+        storedFile = file;
+    }
+
+    /**
+     * Gets the number of saves taken so far, if none of them is still being
+     * written. Rows read from the file while no save is taken have been written
+     * by every save, and by nothing else this controller has done.
+     * 
+     * @return The number of saves taken, or -1 if a save is being written.
+     */
+    long quietSaveCount() {
+        synchronized (saveLock) {
+            return savesWritten == savesTaken ? savesTaken : -1;
+        }
+    }
+
+    /**
+     * Checks whether no save has been taken since the given count was returned by
+     * {@link #quietSaveCount()}.
+     * 
+     * @param count The count of saves taken.
+     * @return True if no save has been taken since, false otherwise.
+     */
+    boolean isQuietSince(long count) {
+        synchronized (saveLock) {
+            return count >= 0 && savesTaken == count && savesWritten == count;
+        }
+    }
+
+    /**
+     * A helper function to number a save in the order its contents were taken.
+     * 
+     * @return The number of the save.
+     */
+    private long takeTurn() {
+        synchronized (saveLock) {
+            return savesTaken++;
+        }
+    }
+
+    /**
+     * A helper function to wait until every save numbered before this one has been
+     * written. The wait cannot be interrupted, as a save that never ends its turn
+     * would hold up every later save.
+     * 
+     * @param turn The number of the save.
+     */
+    private void awaitTurn(long turn) {
+        boolean interrupted = false;
+        synchronized (saveLock) {
+            while (savesWritten != turn) {
+                try {
+                    saveLock.wait();
+                } catch (InterruptedException exception) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A helper function to let the next numbered save be written.
+     */
+    private void endTurn() {
+        synchronized (saveLock) {
+            savesWritten++;
+            saveLock.notifyAll();
+        }
+    }
+
+    /**
+     * A helper function to journal later edits next to a file, deleting the
+     * journal of any other file as its edits are no longer wanted. A journal
+     * already left next to the file is kept.
+     * 
+     * @param file The file edits are journaled for.
+     * @throws IOException Thrown if the journal could not be opened.
+     */
+    private synchronized void attachJournal(File file) throws IOException {
+        if (isJournalFor(file)) {
+            return;
+        }
+        discardJournal();
+        if (addressBook.writesThrough() || !file.isFile()) {
+            // Edits are never left unsaved, or the file is not on disk to journal next to
+            return;
+        }
+        journal = new EditJournal(file, addressBook);
+        journalFile = file;
+    }
+
+    /**
+     * A helper function to empty the journal, if edits are being journaled.
+     * 
+     * @throws IOException Thrown if the journal could not be emptied.
+     */
+    private synchronized void resetJournal() throws IOException {
+        if (journal != null) {
+            journal.reset();
+        }
+    }
+
+    /**
+     * A helper function to check whether edits are being journaled for a file.
+     * 
+     * @param file The file to check.
+     * @return True if the journal belongs to the file, false otherwise.
+     */
+    private synchronized boolean isJournalFor(File file) {
+        return journal != null && journalFile.getAbsoluteFile().equals(file.getAbsoluteFile());
+    }
+
+    /**
+     * A helper function to stop journaling edits and delete the journal.
+     * 
+     * @throws IOException Thrown if the journal could not be deleted.
      */
-    public void save(File file) throws SQLException {
-        FileSystem.saveFile(addressBook, file);
+    private synchronized void discardJournal() throws IOException {
+        if (journal != null) {
+            EditJournal closing = journal;
+            journal = null;
+            journalFile = null;
+            closing.discard();
+        }
     }
 }
\ No newline at end of file
@@ -6,7 +6,10 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * The main program gui. This class sets up the swing application layout and
@@ -28,6 +31,13 @@ public class AddressBookGUI extends JFrame {
     private static final long serialVersionUID = 1L; // For serialization
     private AddressBook addressBook = new AddressBook();
     private transient AddressBookController controller = new AddressBookController(addressBook);
+
+    // Saves the current file a short while after each burst of edits
+    private final transient AutosaveService autosave = new AutosaveService(controller, addressBook,
+            () -> this.currentFile, this::autosaved);
+
+    // Shows the changes other programs make to the current file, or null if files cannot be watched
+    private final transient FileWatcher watcher = startWatcher(controller, addressBook);
     private JTable nameList = new JTable(addressBook);
     private final transient TableRowSorter<AddressBook> tableRowSorter = new TableRowSorter<>(addressBook);
     private final JButton addButton = new JButton("Add...");
@@ -37,6 +47,9 @@ public class AddressBookGUI extends JFrame {
     private final JMenuItem openItem = new JMenuItem("Open", 'O');
     private final JMenuItem saveItem = new JMenuItem("Save", 'S');
     private final JMenuItem saveAsItem = new JMenuItem("Save As...", 'A');
+    private final JMenuItem backupItem = new JMenuItem("Back Up...", 'B');
+    private final JMenuItem importItem = new JMenuItem("Import CSV...", 'I');
+    private final JMenuItem exportItem = new JMenuItem("Export CSV...", 'E');
     private final JMenuItem printItem = new JMenuItem("Print", 'P');
     private final JMenuItem quitItem = new JMenuItem("Exit", 'X');
     private final JTextField searchTextField = new JTextField("");
@@ -44,6 +57,11 @@ public class AddressBookGUI extends JFrame {
     // The file to save
     private File currentFile = null;
 
+    // Whether a file is being opened in the background, and the number of saves
+    // running in the background, only changed on the Event Dispatch Thread
+    private volatile boolean busy = false;
+    private volatile int saving = 0;
+
     /**
      * Used for tests NOTE: using package protection not public
      * 
@@ -80,6 +98,9 @@ public class AddressBookGUI extends JFrame {
         openItem.setName("open");
         saveItem.setName("save");
         saveAsItem.setName("saveAs");
+        backupItem.setName("backup");
+        importItem.setName("import");
+        exportItem.setName("export");
         printItem.setName("print");
         quitItem.setName("quit");
         searchTextField.setName("search");
@@ -106,6 +127,8 @@ public class AddressBookGUI extends JFrame {
                 return;
             }
             controller.clear();
+            currentFile = null; // Autosave must not write the new book over the old file
+            watchCurrentFile();
             saveItem.setEnabled(false);
         });
         file.add(newItem);
@@ -122,9 +145,24 @@ public class AddressBookGUI extends JFrame {
                 return;
             }
             try {
-                controller.open(jfc.getSelectedFile());
-                currentFile = jfc.getSelectedFile();
-                saveItem.setEnabled(false);
+                // Read the file in the background unless it holds what is shown, then
+                // show it in one step
+                File selectedFile = jfc.getSelectedFile();
+                if (!controller.reopen(selectedFile)) {
+                    AddressBook loaded = runInBackground("Open", "Opening " + selectedFile.getName() + "...",
+                            listener -> controller.load(selectedFile, listener));
+                    controller.replace(loaded);
+                }
+                currentFile = selectedFile;
+                watchCurrentFile();
+                saveItem.setEnabled(controller.wasRecovered());
+                if (controller.wasRecovered()) {
+                    JOptionPane.showMessageDialog(this,
+                            "Unsaved changes to " + selectedFile.getName() + " were recovered.", "Open",
+                            JOptionPane.INFORMATION_MESSAGE);
+                }
+            } catch (CancellationException ex) {
+                // The user cancelled, so the current address book is kept
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Error loading file: " + ex.getMessage(), "Open",
                         JOptionPane.ERROR_MESSAGE);
@@ -139,13 +177,7 @@ public class AddressBookGUI extends JFrame {
                 saveAsItem.doClick();
                 return;
             }
-            try {
-                controller.save(currentFile);
-                saveItem.setEnabled(false);
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error saving the file: " + ex.getMessage(), "Save",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            saveInBackground(currentFile);
         });
 
         // Set saveAsItem with the same state as saveItem
@@ -171,6 +203,104 @@ public class AddressBookGUI extends JFrame {
         });
         file.add(saveAsItem);
 
+        // Give back up item functionality and add it to file menu bar. The copy is
+        // made in the background while editing and saving carry on.
+        backupItem.addActionListener(e -> {
+            if (currentFile == null) {
+                JOptionPane.showMessageDialog(this, "Save the address book before backing it up.", "Back Up",
+                        JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            final JFileChooser jfc = new JFileChooser();
+            if (JFileChooser.APPROVE_OPTION != jfc.showSaveDialog(this)) {
+                return;
+            }
+            File target = jfc.getSelectedFile();
+            backupItem.setEnabled(false);
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    controller.backup(target, ProgressListener.NONE);
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    backupItem.setEnabled(true);
+                    try {
+                        get();
+                        JOptionPane.showMessageDialog(AddressBookGUI.this,
+                                "The last saved version was backed up to " + target.getName() + ".", "Back Up",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException ex) {
+                        JOptionPane.showMessageDialog(AddressBookGUI.this,
+                                "Error backing up the file: " + ex.getCause().getMessage(), "Back Up",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
+        });
+        file.add(backupItem);
+
+        // Separate next item
+        file.add(new JSeparator());
+
+        // Give import item functionality and add it to file menu bar
+        importItem.addActionListener(e -> {
+            final JFileChooser jfc = new JFileChooser();
+            if (JFileChooser.APPROVE_OPTION != jfc.showOpenDialog(this)) {
+                return;
+            }
+            File csv = jfc.getSelectedFile();
+            File errorReport = new File(csv.getPath() + ".errors.csv");
+            try {
+                // Read and check the rows in the background, then show them in one step
+                AddressBook imported = new AddressBook();
+                CsvImporter.Result result = runInBackground("Import", "Importing " + csv.getName() + "...",
+                        listener -> controller.importCsv(csv, imported, errorReport, listener));
+                controller.append(imported);
+                if (result.getImported() > 0) {
+                    saveItem.setEnabled(true);
+                }
+                if (result.getRejected() > 0) {
+                    JOptionPane.showMessageDialog(this,
+                            result.getImported() + " rows imported. " + result.getRejected()
+                                    + " rows were rejected and written to " + errorReport.getName() + ".",
+                            "Import", JOptionPane.WARNING_MESSAGE);
+                }
+            } catch (CancellationException ex) {
+                // The user cancelled, so nothing was added
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Error importing file: " + ex.getMessage(), "Import",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        file.add(importItem);
+
+        // Give export item functionality and add it to file menu bar. Files ending
+        // in .tsv are tab separated, and files ending in .gz are compressed.
+        exportItem.addActionListener(e -> {
+            final JFileChooser jfc = new JFileChooser();
+            if (JFileChooser.APPROVE_OPTION != jfc.showSaveDialog(this)) {
+                return;
+            }
+            File out = jfc.getSelectedFile();
+            try {
+                runInBackground("Export", "Exporting " + out.getName() + "...", listener -> {
+                    controller.export(out, CsvExporter.forFile(out), listener);
+                    return null;
+                });
+            } catch (CancellationException ex) {
+                // The user cancelled, so the partial file was removed
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Error exporting file: " + ex.getMessage(), "Export",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        file.add(exportItem);
+
         // Separate next item
         file.add(new JSeparator());
 
@@ -214,7 +344,19 @@ public class AddressBookGUI extends JFrame {
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                tableRowSorter.setRowFilter(RowFilter.regexFilter("(?iu)" + Pattern.quote(searchTextField.getText())));
+                // Prepared once per keystroke, so filtering the rows allocates nothing per cell
+                SearchNeedle needle = new SearchNeedle(searchTextField.getText(), true);
+                tableRowSorter.setRowFilter(new RowFilter<AddressBook, Integer>() {
+                    @Override
+                    public boolean include(Entry<? extends AddressBook, ? extends Integer> entry) {
+                        for (int i = 0; i < entry.getValueCount(); i++) {
+                            if (needle.in(entry.getStringValue(i))) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+                });
             }
         });
         menuBar.add(searchTextField);
@@ -289,6 +431,15 @@ public class AddressBookGUI extends JFrame {
                 if (!saveItem.isEnabled() || JOptionPane.showConfirmDialog(frame,
                         "Are you sure you want to exit? Your changes will be lost.", "Exit", JOptionPane.YES_NO_OPTION,
                         JOptionPane.QUESTION_MESSAGE) == JOptionPane.YES_OPTION) {
+                    autosave.close();
+                    if (watcher != null) {
+                        watcher.close();
+                    }
+                    try {
+                        controller.close();
+                    } catch (SQLException | IOException ex) {
+                        // Nothing is left unsaved in the file, so exit anyway
+                    }
                     frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
                 } else {
                     frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
@@ -296,4 +447,119 @@ public class AddressBookGUI extends JFrame {
             }
         });
     }
+
+    /**
+     * Starts watching for changes other programs make to the files shown.
+     * 
+     * @param controller  The controller saving the address book.
+     * @param addressBook The address book to update.
+     * @return The watcher, or null if files cannot be watched on this system.
+     */
+    private static FileWatcher startWatcher(AddressBookController controller, AddressBook addressBook) {
+        try {
+            return new FileWatcher(controller, addressBook);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Watches the current file for changes made by other programs, in place of
+     * the file watched before.
+     */
+    private void watchCurrentFile() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.watch(currentFile);
+        } catch (IOException ex) {
+            // Changes made by other programs are shown when the file is next opened
+        }
+    }
+
+    /**
+     * Updates the save item when an automatic save ends. It stays enabled if the
+     * save failed or edits were made while it ran.
+     * 
+     * @param file    The file saved to.
+     * @param failure The reason the save failed, or null if it succeeded.
+     */
+    private void autosaved(File file, Exception failure) {
+        if (failure != null) {
+            saveItem.setEnabled(true);
+        } else if (!autosave.isPending() && file.equals(currentFile)) {
+            saveItem.setEnabled(false);
+        }
+    }
+
+    /**
+     * Saves the address book to a file in the background while editing carries
+     * on. Its contents are taken when the save starts, so edits made while the
+     * save runs are left for the next one and enable the save item again. If the
+     * save fails the save item is enabled too, as nothing was saved.
+     * 
+     * @param target The file to save to.
+     */
+    private void saveInBackground(File target) {
+        AddressBookController.Capture capture = controller.capture(target);
+        saveItem.setEnabled(false);
+        saving++;
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                controller.save(capture, ProgressListener.NONE);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                saving--;
+                try {
+                    get();
+                    if (target.equals(currentFile)) {
+                        watchCurrentFile();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    saveItem.setEnabled(true);
+                    JOptionPane.showMessageDialog(AddressBookGUI.this,
+                            "Error saving the file: " + ex.getCause().getMessage(), "Save",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Runs a file operation off the Event Dispatch Thread, showing its progress
+     * and letting the user cancel it. Input to the window is blocked until the
+     * operation is over, but the window keeps repainting.
+     * 
+     * @param <T>     The type of the operation's result.
+     * @param title   The title of the progress dialog.
+     * @param message The message shown in the progress dialog.
+     * @param task    The operation to run.
+     * @return The result of the operation.
+     * @throws CancellationException Thrown if the user cancelled the operation.
+     * @throws Exception             Thrown if the operation failed.
+     */
+    private <T> T runInBackground(String title, String message, ProgressDialog.Task<T> task) throws Exception {
+        busy = true;
+        try {
+            return new ProgressDialog(this, title, message).run(task);
+        } finally {
+            busy = false;
+        }
+    }
+
+    /**
+     * Used for tests NOTE: using package protection not public
+     * 
+     * @return True while a file is being opened or saved in the background.
+     */
+    boolean isBusy() {
+        return busy || saving > 0;
+    }
 }
\ No newline at end of file
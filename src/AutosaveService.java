@@ -0,0 +1,221 @@
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+/**
+ * Saves an address book automatically a short while after it is edited. The
+ * service listens for edits to the table model. A burst of edits is saved once
+ * the edits stop for the save delay, or once the first unsaved edit is the
+ * maximum delay old, whichever comes first. Only one save runs at a time, and
+ * edits made while one runs are saved together afterwards.
+ * 
+ * The contents are copied on the Event Dispatch Thread when a save starts, and
+ * the copy is written on a background thread while editing carries on. Events
+ * replacing the whole table, such as opening a file, and events from emptying
+ * the address book or showing changes other programs made to its file, are not
+ * edits and do not start a save.
+ */
+public class AutosaveService implements TableModelListener, AutoCloseable {
+
+    // Default time in milliseconds without edits before saving
+    public static final int DEFAULT_DELAY = 2000;
+
+    // Default longest time in milliseconds an edit waits to be saved
+    public static final int DEFAULT_MAX_DELAY = 30000;
+
+    /**
+     * A listener told on the Event Dispatch Thread when an automatic save ends.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called when an automatic save ends.
+         * 
+         * @param file    The file saved to.
+         * @param failure The reason the save failed, or null if it succeeded.
+         */
+        void autosaved(File file, Exception failure);
+    }
+
+    private final AddressBookController controller;
+    private final AddressBook addressBook;
+    private final Supplier<File> target;
+    private final int delay;
+    private final int maxDelay;
+    private final Listener listener;
+    private final Timer timer;
+    private final ExecutorService saver;
+
+    // Only used on the Event Dispatch Thread
+    private long firstEdit = 0; // When the oldest unsaved edit was made, or 0 if none
+    private File editedFile = null; // The file the unsaved edits are to be saved to
+    private boolean saving = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor to start saving an address book automatically with the default
+     * delays.
+     * 
+     * @param controller  The controller saving the address book.
+     * @param addressBook The address book to listen to.
+     * @param target      Supplies the file to save to, or null while there is none.
+     * @param listener    The listener told when a save ends.
+     */
+    public AutosaveService(AddressBookController controller, AddressBook addressBook, Supplier<File> target,
+            Listener listener) {
+        this(controller, addressBook, target, DEFAULT_DELAY, DEFAULT_MAX_DELAY, listener);
+    }
+
+    /**
+     * Constructor to start saving an address book automatically.
+     * 
+     * @param controller  The controller saving the address book.
+     * @param addressBook The address book to listen to.
+     * @param target      Supplies the file to save to, or null while there is none.
+     * @param delay       The time in milliseconds without edits before saving.
+     * @param maxDelay    The longest time in milliseconds an edit waits to be
+     *                    saved while edits carry on.
+     * @param listener    The listener told when a save ends.
+     * @throws IllegalArgumentException Thrown if a delay is negative or the
+     *                                  maximum delay is less than the delay.
+     */
+    public AutosaveService(AddressBookController controller, AddressBook addressBook, Supplier<File> target,
+            int delay, int maxDelay, Listener listener) {
+        if (delay < 0 || maxDelay < delay) {
+            throw new IllegalArgumentException("Delays must not be negative, and the maximum not below the delay");
+        }
+        this.controller = controller;
+        this.addressBook = addressBook;
+        this.target = target;
+        this.delay = delay;
+        this.maxDelay = maxDelay;
+        this.listener = listener;
+
+        timer = new Timer(delay, e -> save());
+        timer.setRepeats(false);
+        saver = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        addressBook.addTableModelListener(this);
+    }
+
+    /**
+     * Checks whether edits have been made to the current file that no save has
+     * started for. Edits made while there is no file to save to are not pending.
+     * 
+     * @return True if there are unsaved edits, false otherwise.
+     */
+    public boolean isPending() {
+        return firstEdit != 0;
+    }
+
+    /**
+     * Waits for an edit to be saved, restarting the wait on each edit up to the
+     * maximum delay.
+     * 
+     * @param e The table model event.
+     */
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (closed || addressBook.isOutsideChange()
+                || (e.getType() == TableModelEvent.UPDATE && e.getLastRow() == Integer.MAX_VALUE)) {
+            return;
+        }
+        File file = target.get();
+        if (file == null) {
+            // Nothing to save to, and picking a file saves every row
+            firstEdit = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (firstEdit == 0 || !file.equals(editedFile)) {
+            // The wait for a different file starts afresh
+            firstEdit = now;
+            editedFile = file;
+        }
+        if (!saving) {
+            schedule(now);
+        }
+    }
+
+    /**
+     * Stops saving automatically, waiting for a save in progress to finish.
+     * Edits not saved yet are left for the user to save.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        timer.stop();
+        addressBook.removeTableModelListener(this);
+        saver.shutdown();
+        try {
+            saver.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A helper function to start the timer for the next save, cutting the delay
+     * short so the oldest edit waits no longer than the maximum delay.
+     * 
+     * @param now The current time.
+     */
+    private void schedule(long now) {
+        long wait = Math.max(0, Math.min(delay, firstEdit + maxDelay - now));
+        timer.setInitialDelay((int) wait);
+        timer.restart();
+    }
+
+    /**
+     * A helper function to copy the address book on the Event Dispatch Thread and
+     * write the copy in the background.
+     */
+    private void save() {
+        File file = target.get();
+        if (closed || saving || firstEdit == 0) {
+            return;
+        }
+        if (file == null || !file.equals(editedFile)) {
+            // Edits waiting for a file no longer shown were saved or dropped with it
+            firstEdit = 0;
+            return;
+        }
+        AddressBookController.Capture capture = controller.capture(file);
+        firstEdit = 0;
+        saving = true;
+        saver.execute(() -> {
+            Exception failure = null;
+            try {
+                controller.save(capture);
+            } catch (Exception exception) {
+                failure = exception;
+            }
+            Exception result = failure;
+            SwingUtilities.invokeLater(() -> saved(capture.getFile(), result));
+        });
+    }
+
+    /**
+     * A helper function to tell the listener a save has ended, and to start the
+     * timer again for edits made while it ran.
+     * 
+     * @param file    The file saved to.
+     * @param failure The reason the save failed, or null if it succeeded.
+     */
+    private void saved(File file, Exception failure) {
+        saving = false;
+        if (firstEdit != 0 && !closed) {
+            schedule(System.currentTimeMillis());
+        }
+        listener.autosaved(file, failure);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,272 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPOutputStream;
+import javax.swing.table.TableModel;
+
+/**
+ * Exports persons as CSV or TSV text. Rows are written one at a time, either
+ * from a table model such as the open address book or straight from a saved
+ * address book file, so the book is never copied as a whole. Output goes
+ * through a buffered file channel and can be compressed with gzip. Exporting
+ * from a file reads its rows as a stream, so books larger than the heap can be
+ * exported.
+ * 
+ * The first line is a header naming the exported columns, in the format read
+ * back by {@link CsvImporter}. Files named for the format they hold, ending in
+ * .csv, .tsv, .csv.gz or .tsv.gz, are imported with the same separator and
+ * compression they were exported with.
+ */
+public class CsvExporter {
+
+    // Size of the buffers between the exported rows and the file
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Number of rows written between progress reports
+    private static final int PROGRESS_STEP = 1000;
+
+    // Column names of the person fields in a saved file, in table order
+    private static final String[] FILE_COLUMNS = { "lastName", "firstName", "address", "city", "state", "zip",
+            "phone" };
+
+    private final char separator;
+    private final int[] columns;
+    private final boolean gzip;
+
+    /**
+     * Constructor for an exporter writing every column as uncompressed CSV.
+     */
+    public CsvExporter() {
+        this(',', false, 0, 1, 2, 3, 4, 5, 6);
+    }
+
+    /**
+     * Constructor for an exporter.
+     * 
+     * @param separator The character separating fields, such as ',' for CSV or
+     *                  '\t' for TSV.
+     * @param gzip      True to compress the output with gzip.
+     * @param columns   The columns to export, as indexes into
+     *                  {@link Person#fields}, in the order they are written.
+     * @throws IllegalArgumentException Thrown if no columns are given, a column is
+     *                                  not a person field, or the separator is a
+     *                                  quote or line break.
+     */
+    public CsvExporter(char separator, boolean gzip, int... columns) {
+        if (separator == '"' || separator == '\n' || separator == '\r') {
+            throw new IllegalArgumentException("Separator cannot be a quote or line break");
+        }
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column must be exported");
+        }
+        for (int column : columns) {
+            if (column < 0 || column >= Person.fields.length) {
+                throw new IllegalArgumentException("Column " + column + " is not a person field");
+            }
+        }
+        this.separator = separator;
+        this.gzip = gzip;
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Makes an exporter writing every column in the format a file is named for.
+     * 
+     * @param out The file to export to.
+     * @return An exporter writing tab separated text if the name ends in .tsv or
+     *         .tsv.gz, comma separated text otherwise, compressed if the name ends
+     *         in .gz.
+     */
+    public static CsvExporter forFile(File out) {
+        return new CsvExporter(separatorFor(out), isCompressed(out), 0, 1, 2, 3, 4, 5, 6);
+    }
+
+    /**
+     * Finds the separator of the fields in a file from its name.
+     * 
+     * @param file The file.
+     * @return A tab if the name ends in .tsv or .tsv.gz, a comma otherwise.
+     */
+    static char separatorFor(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".tsv") || name.endsWith(".tsv.gz") ? '\t' : ',';
+    }
+
+    /**
+     * Finds whether a file is compressed from its name.
+     * 
+     * @param file The file.
+     * @return True if the name ends in .gz, false otherwise.
+     */
+    static boolean isCompressed(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Exports the rows of a table model, such as an address book. The model must
+     * not change until the export has finished.
+     * 
+     * @param model    The model to export, with columns in {@link Person#fields}
+     *                 order.
+     * @param out      The file to write to.
+     * @param listener The listener to report the number of rows written to.
+     * @return The number of rows written.
+     * @throws IOException           Thrown if the file could not be written.
+     * @throws CancellationException Thrown if the exporting thread is interrupted.
+     */
+    public long export(TableModel model, File out, ProgressListener listener) throws IOException {
+        int rows = model.getRowCount();
+        String[] row = new String[Person.fields.length];
+        boolean written = false;
+        try (Writer writer = open(out)) {
+            listener.progress(0, rows);
+            for (int index = 0; index < rows; index++) {
+                for (int column : columns) {
+                    Object value = model.getValueAt(index, column);
+                    row[column] = value == null ? null : value.toString();
+                }
+                writeRow(writer, row);
+                if ((index + 1) % PROGRESS_STEP == 0) {
+                    checkCancelled();
+                    listener.progress(index + 1L, rows);
+                }
+            }
+            listener.progress(rows, rows);
+            written = true;
+        } finally {
+            // Do not leave a partial export behind
+            if (!written) {
+                out.delete();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Exports the rows of a saved address book file without reading it into
+     * memory. Rows are written in the order they are stored.
+     * 
+     * @param database The saved address book to export.
+     * @param out      The file to write to.
+     * @param listener The listener to report the number of rows written to.
+     * @return The number of rows written.
+     * @throws FileNotFoundException Thrown if the address book file is unreadable
+     *                               or does not exist.
+     * @throws SQLException          Thrown if the address book file was not in
+     *                               correct format.
+     * @throws IOException           Thrown if the output could not be written.
+     * @throws CancellationException Thrown if the exporting thread is interrupted.
+     */
+    public long export(File database, File out, ProgressListener listener) throws IOException, SQLException {
+        FileSystem.requireReadable(database);
+
+        // Only select the exported columns
+        StringBuilder select = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.length; i++) {
+            select.append(i == 0 ? "" : ", ").append(FILE_COLUMNS[columns[i]]);
+        }
+        select.append(" FROM persons ORDER BY rowid");
+
+        long rows = 0;
+        try (Connection connection = FileSystem.connect(database, false)) {
+            long total;
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM persons")) {
+                total = rs.getLong(1);
+            }
+
+            String[] row = new String[Person.fields.length];
+            try (PreparedStatement query = connection.prepareStatement(select.toString());
+                    ResultSet rs = query.executeQuery()) {
+                boolean written = false;
+                try (Writer writer = open(out)) {
+                    listener.progress(0, total);
+                    while (rs.next()) {
+                        for (int i = 0; i < columns.length; i++) {
+                            row[columns[i]] = rs.getString(i + 1);
+                        }
+                        writeRow(writer, row);
+                        if (++rows % PROGRESS_STEP == 0) {
+                            checkCancelled();
+                            listener.progress(rows, total);
+                        }
+                    }
+                    listener.progress(rows, total);
+                    written = true;
+                } finally {
+                    // Do not leave a partial export behind
+                    if (!written) {
+                        out.delete();
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * A helper function to open the output file and write the header line.
+     * 
+     * @param out The file to write to.
+     * @return A buffered writer over the file, compressing if enabled.
+     * @throws IOException Thrown if the file could not be opened.
+     */
+    private Writer open(File out) throws IOException {
+        WritableByteChannel channel = FileChannel.open(out.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            if (gzip) {
+                channel = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            }
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+            writeRow(writer, Person.fields);
+            return writer;
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * A helper function to write the exported columns of a row as one line.
+     * 
+     * @param writer The writer to write to.
+     * @param row    The fields of the row in {@link Person#fields} order. Only the
+     *               exported columns are read.
+     * @throws IOException Thrown if the line could not be written.
+     */
+    private void writeRow(Writer writer, String[] row) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                writer.write(separator);
+            }
+            CsvImporter.writeField(writer, row[columns[i]], separator);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * A helper function to stop an export when the thread running it has been
+     * interrupted, which is how a background export is cancelled.
+     * 
+     * @throws CancellationException Thrown if the current thread is interrupted.
+     */
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Export cancelled");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,582 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports persons from CSV files, such as contact lists exported from other
+ * programs. The file is read as a stream through a fixed size buffer and cut
+ * into chunks of rows, which are checked with the same rules as the Person
+ * constructor on a pool of threads. Valid rows are added to the address book a
+ * chunk at a time in file order, and rejected rows are written to an error
+ * report along with the reason they were rejected. Only a bounded number of
+ * chunks are held at once, so memory use does not grow with the size of the
+ * file.
+ * 
+ * Files are read as the exporter names them: tab separated if the name ends in
+ * .tsv or .tsv.gz, comma separated otherwise, and decompressed with gzip if the
+ * name ends in .gz.
+ * 
+ * The first row is treated as a header if every value in it names a person
+ * field, in which case columns may be in any order. Otherwise rows must have
+ * the fields in table order: last name, first name, address, city, state, zip
+ * and phone.
+ */
+public class CsvImporter {
+
+    // Default number of rows checked by a single task
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    // Size of the buffers used to read the file and write the error report
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Header names of the person fields in table order, without spaces or case
+    private static final String[] COLUMNS = { "lastname", "firstname", "address", "city", "state", "zip", "phone" };
+
+    private final int chunkSize;
+    private final int threads;
+
+    /**
+     * The outcome of an import.
+     */
+    public static final class Result {
+        private final long imported;
+        private final long rejected;
+
+        /**
+         * Constructor for the outcome of an import.
+         * 
+         * @param imported The number of rows added to the address book.
+         * @param rejected The number of rows written to the error report.
+         */
+        Result(long imported, long rejected) {
+            this.imported = imported;
+            this.rejected = rejected;
+        }
+
+        /**
+         * Getter for the number of rows added to the address book.
+         * 
+         * @return The number of imported rows.
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * Getter for the number of rows written to the error report.
+         * 
+         * @return The number of rejected rows.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+    }
+
+    /**
+     * Constructor for an importer checking rows on one thread per processor.
+     */
+    public CsvImporter() {
+        this(DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for an importer.
+     * 
+     * @param chunkSize The number of rows checked by a single task.
+     * @param threads   The number of threads checking rows.
+     * @throws IllegalArgumentException Thrown if the chunk size or number of
+     *                                  threads is less than 1.
+     */
+    public CsvImporter(int chunkSize, int threads) {
+        if (chunkSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("Chunk size and thread count must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Imports the persons in a UTF-8 CSV or TSV file, which may be compressed,
+     * into an address book. The number of characters read is reported against
+     * the size of an uncompressed file as progress. The error report is only kept
+     * if any rows were rejected.
+     * 
+     * @param addressBook The address book to add the persons to.
+     * @param csv         The file to import.
+     * @param errorReport The file to write rejected rows to.
+     * @param listener    The listener to report progress to.
+     * @return The number of rows imported and rejected.
+     * @throws IOException           Thrown if the file could not be read or the
+     *                               report could not be written.
+     * @throws CancellationException Thrown if the importing thread is interrupted.
+     */
+    public Result importFile(AddressBook addressBook, File csv, File errorReport, ProgressListener listener)
+            throws IOException {
+        FileSystem.requireReadable(csv);
+        Result result;
+        try (Reader in = new InputStreamReader(open(csv), StandardCharsets.UTF_8);
+                Writer errors = new BufferedWriter(
+                        new OutputStreamWriter(new FileOutputStream(errorReport), StandardCharsets.UTF_8),
+                        BUFFER_SIZE)) {
+            // The number of characters in a compressed file is not known up front
+            long length = CsvExporter.isCompressed(csv) ? 0 : csv.length();
+            result = importCsv(addressBook, in, CsvExporter.separatorFor(csv), length, errors, listener);
+        }
+        if (result.getRejected() == 0) {
+            errorReport.delete();
+        }
+        return result;
+    }
+
+    /**
+     * Imports the persons in CSV text into an address book. Rejected rows are
+     * written to the error report as CSV, each preceded by the line it started on
+     * and the reason it was rejected.
+     * 
+     * @param addressBook The address book to add the persons to.
+     * @param in          The CSV text to import.
+     * @param length      The number of characters expected, or 0 if unknown.
+     * @param errors      The writer to write the error report to.
+     * @param listener    The listener to report the number of characters read to.
+     * @return The number of rows imported and rejected.
+     * @throws IOException           Thrown if the text could not be read or the
+     *                               report could not be written.
+     * @throws CancellationException Thrown if the importing thread is interrupted.
+     */
+    public Result importCsv(AddressBook addressBook, Reader in, long length, Writer errors,
+            ProgressListener listener) throws IOException {
+        return importCsv(addressBook, in, ',', length, errors, listener);
+    }
+
+    /**
+     * Imports the persons in delimited text, such as CSV or TSV, into an address
+     * book as {@link #importCsv(AddressBook, Reader, long, Writer,
+     * ProgressListener)} does. The error report is always comma separated.
+     * 
+     * @param addressBook The address book to add the persons to.
+     * @param in          The text to import.
+     * @param separator   The character separating fields, such as ',' or '\t'.
+     * @param length      The number of characters expected, or 0 if unknown.
+     * @param errors      The writer to write the error report to.
+     * @param listener    The listener to report the number of characters read to.
+     * @return The number of rows imported and rejected.
+     * @throws IOException           Thrown if the text could not be read or the
+     *                               report could not be written.
+     * @throws CancellationException Thrown if the importing thread is interrupted.
+     */
+    public Result importCsv(AddressBook addressBook, Reader in, char separator, long length, Writer errors,
+            ProgressListener listener) throws IOException {
+        CsvReader reader = new CsvReader(in, separator);
+        listener.progress(0, length);
+
+        // Use the header to find the fields if there is one
+        String[] first = reader.next();
+        if (first == null) {
+            return new Result(0, 0);
+        }
+        int[] order = headerOrder(first);
+        boolean hasHeader = order != null;
+        String[] header = hasHeader ? first : Person.fields;
+        if (!hasHeader) {
+            order = new int[] { 0, 1, 2, 3, 4, 5, 6 };
+        }
+        errors.write("Line,Error");
+        for (String column : header) {
+            errors.write(',');
+            writeField(errors, column);
+        }
+        errors.write("\r\n");
+
+        long imported = 0;
+        long rejected = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "csv-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Keep a few chunks per thread queued, checking them in file order
+            ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            Chunk chunk = new Chunk(order, header.length, addressBook.stringPool());
+            if (!hasHeader) {
+                chunk.add(first, reader.getRecordLine());
+            }
+            String[] record;
+            while (true) {
+                record = reader.next();
+                if (record != null) {
+                    chunk.add(record, reader.getRecordLine());
+                }
+                if (chunk.size() == chunkSize || (record == null && chunk.size() > 0)) {
+                    pending.add(pool.submit(chunk));
+                    chunk = new Chunk(order, header.length, addressBook.stringPool());
+                }
+                while (!pending.isEmpty() && (pending.size() >= threads * 2 || record == null)) {
+                    Chunk done = await(pending.remove());
+                    addressBook.addAll(done.persons);
+                    errors.write(done.errors.toString());
+                    imported += done.persons.size();
+                    rejected += done.rejected;
+                    listener.progress(length > 0 ? Math.min(reader.getCharsRead(), length) : reader.getCharsRead(),
+                            length);
+                }
+                if (record == null) {
+                    break;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Import cancelled");
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        errors.flush();
+        return new Result(imported, rejected);
+    }
+
+    /**
+     * A helper function to open a file for reading, decompressing it if its name
+     * ends in .gz.
+     * 
+     * @param file The file to open.
+     * @return The stream of its bytes.
+     * @throws IOException Thrown if the file could not be opened or is not gzip.
+     */
+    private static InputStream open(File file) throws IOException {
+        InputStream stream = new FileInputStream(file);
+        if (!CsvExporter.isCompressed(file)) {
+            return stream;
+        }
+        try {
+            return new GZIPInputStream(stream, BUFFER_SIZE);
+        } catch (IOException exception) {
+            stream.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * A helper function to find the position of each person field in a header row.
+     * 
+     * @param header The first row of the file.
+     * @return The position of each field in table order, or null if the row is not
+     *         a header.
+     * @throws IOException Thrown if the row is a header missing a field.
+     */
+    private static int[] headerOrder(String[] header) throws IOException {
+        int[] order = new int[COLUMNS.length];
+        Arrays.fill(order, -1);
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i].replace(" ", "").toLowerCase(Locale.ROOT);
+            int column = Arrays.asList(COLUMNS).indexOf(name);
+            if (column < 0) {
+                return null;
+            }
+            order[column] = i;
+        }
+        for (int column = 0; column < order.length; column++) {
+            if (order[column] < 0) {
+                throw new IOException("CSV header has no " + Person.fields[column] + " column");
+            }
+        }
+        return order;
+    }
+
+    /**
+     * A helper function to wait for a chunk to be checked.
+     * 
+     * @param future The pending chunk.
+     * @return The checked chunk.
+     * @throws CancellationException Thrown if the importing thread is interrupted.
+     */
+    private static Chunk await(Future<Chunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Import cancelled");
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /**
+     * A helper function to write a single CSV field, quoting it if needed.
+     * 
+     * @param out   The writer to write to.
+     * @param value The field to write.
+     * @throws IOException Thrown if the field could not be written.
+     */
+    private static void writeField(Appendable out, String value) throws IOException {
+        writeField(out, value, ',');
+    }
+
+    /**
+     * A helper function to write a single field of delimited text, quoting it if
+     * it holds the separator, a quote or a line break.
+     * 
+     * @param out       The writer to write to.
+     * @param value     The field to write.
+     * @param separator The character separating fields.
+     * @throws IOException Thrown if the field could not be written.
+     */
+    static void writeField(Appendable out, String value, char separator) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == separator || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * A chunk of rows read from the file, checked by a single task.
+     */
+    private static final class Chunk implements Callable<Chunk> {
+        private final int[] order;
+        private final int columns;
+        private final StringPool strings;
+        private final ArrayList<String[]> records = new ArrayList<>();
+        private final ArrayList<Long> lines = new ArrayList<>();
+
+        // Filled in once the chunk has been checked
+        private final ArrayList<Person> persons = new ArrayList<>();
+        private final StringBuilder errors = new StringBuilder();
+        private int rejected = 0;
+
+        /**
+         * Constructor for an empty chunk.
+         * 
+         * @param order   The position of each person field in a row.
+         * @param columns The number of fields every row must have.
+         * @param strings The pool to share repeated field values through.
+         */
+        Chunk(int[] order, int columns, StringPool strings) {
+            this.order = order;
+            this.columns = columns;
+            this.strings = strings;
+        }
+
+        /**
+         * Adds a row to the chunk.
+         * 
+         * @param record The fields of the row.
+         * @param line   The line of the file the row started on.
+         */
+        void add(String[] record, long line) {
+            records.add(record);
+            lines.add(line);
+        }
+
+        /**
+         * Getter for the number of rows in the chunk.
+         * 
+         * @return The number of rows.
+         */
+        int size() {
+            return records.size();
+        }
+
+        /**
+         * Checks every row of the chunk, keeping the valid ones as persons and
+         * writing the rest to the error report text.
+         * 
+         * @return This chunk.
+         * @throws IOException Never thrown, as the report is written to memory.
+         */
+        @Override
+        public Chunk call() throws IOException {
+            for (int i = 0; i < records.size(); i++) {
+                String[] r = records.get(i);
+                String error;
+                if (r.length != columns) {
+                    error = "Expected " + columns + " fields but found " + r.length;
+                } else {
+                    try {
+                        persons.add(new Person(r[order[1]], r[order[0]], r[order[2]], strings.intern(r[order[3]]),
+                                strings.intern(r[order[4]]), r[order[5]], r[order[6]]));
+                        continue;
+                    } catch (IllegalArgumentException exception) {
+                        error = exception.getMessage();
+                    }
+                }
+                rejected++;
+                errors.append(lines.get(i)).append(',');
+                writeField(errors, error);
+                for (String field : r) {
+                    errors.append(',');
+                    writeField(errors, field);
+                }
+                errors.append("\r\n");
+            }
+            records.clear();
+            return this;
+        }
+    }
+
+    /**
+     * A minimal streaming CSV reader following RFC 4180, with any separator.
+     * Fields may be quoted, with doubled quotes standing for a quote and line
+     * breaks allowed inside quotes. Lines may end in either CRLF or LF.
+     */
+    private static final class CsvReader {
+        private final Reader in;
+        private final char separator;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private long charsRead = 0;
+        private long line = 1;
+        private long recordLine = 1;
+
+        /**
+         * Constructor for a reader over delimited text.
+         * 
+         * @param in        The text to read.
+         * @param separator The character separating fields.
+         */
+        CsvReader(Reader in, char separator) {
+            this.in = in;
+            this.separator = separator;
+        }
+
+        /**
+         * Reads the next row that is not blank.
+         * 
+         * @return The fields of the row, or null at the end of the text.
+         * @throws IOException Thrown if the text could not be read.
+         */
+        String[] next() throws IOException {
+            // Skip blank lines between rows
+            int c = read();
+            while (c == '\r' || c == '\n') {
+                if (c == '\n') {
+                    line++;
+                }
+                c = read();
+            }
+            if (c < 0) {
+                return null;
+            }
+            recordLine = line;
+            ArrayList<String> fields = new ArrayList<>(COLUMNS.length);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c < 0) {
+                    break;
+                } else if (c == '\r') {
+                    c = read();
+                    if (c != '\n' && c >= 0) {
+                        // A lone carriage return is kept as part of the field
+                        field.append('\r');
+                        continue;
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            if (c == '\n') {
+                line++;
+            }
+            fields.add(field.toString());
+            return fields.toArray(new String[fields.size()]);
+        }
+
+        /**
+         * Getter for the line of the file the last row started on.
+         * 
+         * @return The line number, counting from 1.
+         */
+        long getRecordLine() {
+            return recordLine;
+        }
+
+        /**
+         * Getter for the number of characters read so far.
+         * 
+         * @return The number of characters read.
+         */
+        long getCharsRead() {
+            return charsRead;
+        }
+
+        /**
+         * A helper function to read the next character, refilling the buffer as
+         * needed.
+         * 
+         * @return The character, or -1 at the end of the text.
+         * @throws IOException Thrown if the text could not be read.
+         */
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+                charsRead += limit;
+            }
+            return buffer[position++];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,1087 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+
+/**
+ * An address book kept in its file rather than in memory. Every add, set and
+ * remove is written to the file at once, and rows are read back a page at a
+ * time as the table asks for them, keeping only a fixed number of pages in
+ * memory. Memory use therefore does not grow with the size of the book, and the
+ * file is always saved.
+ * 
+ * Other programs may change the file while it is shown. {@link #refresh()}
+ * checks for such changes and shows them. {@link #attach(File)} shows another
+ * file in place of the current one, and clearing the address book shows a new
+ * temporary file, leaving the rows of the file shown before as they are.
+ * 
+ * Ids are given by this address book rather than the file, and the next id to
+ * give is recorded in the file, so the id of a removed row is never given to
+ * another row.
+ * 
+ * A file written in an older layout is shown as it is, and only migrated to the
+ * current layout when the first change is written to it, as a save would.
+ * 
+ * None of the rows, ids, hashes or tracked changes an address book keeps in
+ * memory are used. Every method reading them is answered from the file
+ * instead.
+ */
+public class DatabaseAddressBook extends AddressBook implements AutoCloseable {
+
+    // Default number of rows read from the file at once
+    public static final int DEFAULT_PAGE_SIZE = 256;
+
+    // Default number of pages kept in memory
+    public static final int DEFAULT_CACHED_PAGES = 16;
+
+    private static final long serialVersionUID = 1L; // For serialization
+    private static final long UNKNOWN = Long.MIN_VALUE; // Marks a page end not yet found
+
+    // Statements run through the statement cache of the file session
+    private static final String COUNT_PERSONS = "SELECT COUNT(*) FROM persons";
+    private static final String SELECT_PAGE = "SELECT rowid, lastName, firstName, address, city, state, zip, phone FROM persons WHERE rowid > ? ORDER BY rowid LIMIT ?";
+    private static final String SKIP_ROWS = "SELECT rowid FROM persons WHERE rowid > ? ORDER BY rowid LIMIT 1 OFFSET ?";
+    private static final String INSERT_PERSON = "INSERT INTO persons (lastName, firstName, address, city, state, zip, phone, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String LAST_ID = "SELECT MAX(rowid) FROM persons";
+    private static final String UPDATE_PERSON = "UPDATE persons SET lastName = ?, firstName = ?, address = ?, city = ?, state = ?, zip = ?, phone = ? WHERE id = ?";
+    private static final String DELETE_PERSON = "DELETE FROM persons WHERE id = ?";
+    private static final String DELETE_PERSONS = "DELETE FROM persons";
+    private static final String ROW_IN_PAGE = "SELECT (SELECT COUNT(*) FROM persons WHERE rowid > ? AND rowid < ?), EXISTS (SELECT 1 FROM persons WHERE rowid = ?)";
+    private static final String SEARCH_ROWS = "SELECT row FROM (SELECT id, row_number() OVER (ORDER BY id) - 1 AS row FROM persons) "
+            + "WHERE id IN (SELECT rowid FROM persons_fts WHERE persons_fts MATCH ?) ORDER BY row";
+    private static final String DATA_VERSION = "PRAGMA data_version";
+
+    /**
+     * The rows of one page and their ids.
+     */
+    private static final class Page {
+        private final long[] ids;
+        private final Person[] persons;
+
+        private Page(int size) {
+            ids = new long[size];
+            persons = new Person[size];
+        }
+    }
+
+    /**
+     * Work done on the file in one transaction.
+     */
+    @FunctionalInterface
+    private interface Transaction {
+        /**
+         * Runs the work.
+         * 
+         * @throws SQLException Thrown if the file could not be written.
+         */
+        void run() throws SQLException;
+    }
+
+    private transient FileSession session;
+    private final int pageSize;
+    private int rowCount;
+    private long dataVersion;
+    private long nextId;
+    private int version; // Layout version of the file, migrated before the first write
+
+    // Whether the file was made by clearing the address book, and is deleted with it
+    private boolean temporary = false;
+
+    // Id of the last row of each page, filled in as pages are found
+    private long[] pageEnds = new long[0];
+
+    // Least recently used pages are evicted once more than the cache size are held
+    private final transient Map<Integer, Page> pages;
+
+    /**
+     * Constructor to keep an address book in a file using the default page and
+     * cache sizes. The file is created if it does not exist.
+     * 
+     * @param file The address book file.
+     * @throws SQLException Thrown if the file could not be opened or was not in
+     *                      correct format.
+     */
+    public DatabaseAddressBook(File file) throws SQLException {
+        this(file, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+
+    /**
+     * Constructor to keep an address book in a file. The file is created if it
+     * does not exist, and is not changed until the first edit otherwise.
+     * 
+     * @param file        The address book file.
+     * @param pageSize    The number of rows read from the file at once.
+     * @param cachedPages The maximum number of pages kept in memory.
+     * @throws SQLException             Thrown if the file could not be opened or
+     *                                  was not in correct format.
+     * @throws IllegalArgumentException Thrown if the page or cache size is less
+     *                                  than 1.
+     */
+    public DatabaseAddressBook(File file, int pageSize, int cachedPages) throws SQLException {
+        if (pageSize < 1 || cachedPages < 1) {
+            throw new IllegalArgumentException("Page and cache sizes must be at least 1");
+        }
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, Page>(cachedPages * 2, 0.75f, true) {
+            private static final long serialVersionUID = 1L; // For serialization
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > cachedPages;
+            }
+        };
+
+        session = open(file);
+        try {
+            readFile();
+        } catch (SQLException | RuntimeException exception) {
+            session.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Shows the address book kept in another file in place of the one shown, with
+     * a single table update. The file is created if it does not exist, and is not
+     * changed until the first edit otherwise. The file shown before is closed,
+     * and deleted if it was made by clearing the address book.
+     * 
+     * @param file The address book file to show.
+     * @throws SQLException Thrown if the file could not be opened or was not in
+     *                      correct format, in which case the file shown before is
+     *                      still shown.
+     */
+    public void attach(File file) throws SQLException {
+        attach(file, false);
+    }
+
+    /**
+     * A helper function to show another file in place of the one shown.
+     * 
+     * @param file      The address book file to show.
+     * @param temporary True if the file was made by clearing the address book.
+     * @throws SQLException Thrown if the file could not be opened or was not in
+     *                      correct format.
+     */
+    private void attach(File file, boolean temporary) throws SQLException {
+        FileSession opened = open(file);
+        FileSession old;
+        boolean oldTemporary;
+        synchronized (this) {
+            old = session;
+            oldTemporary = this.temporary;
+            session = opened;
+            try {
+                readFile();
+            } catch (SQLException | RuntimeException exception) {
+                session = old;
+                opened.close();
+                throw exception;
+            }
+            this.temporary = temporary;
+            pages.clear();
+            stringPool().clear();
+        }
+        try {
+            old.close();
+        } finally {
+            if (oldTemporary) {
+                old.getFile().delete();
+            }
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * Getter for the file this address book is kept in.
+     * 
+     * @return The absolute file.
+     */
+    public File getFile() {
+        return session.getFile();
+    }
+
+    /**
+     * Adds a person to the end of the file and updates the table.
+     * 
+     * @param p The person to add.
+     * @throws IllegalStateException Thrown if the person could not be written.
+     */
+    @Override
+    public void add(Person p) {
+        int index;
+        synchronized (this) {
+            try {
+                long id = newId();
+                inTransaction(() -> insert(id, p));
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Unable to add a person to " + getFile(), exception);
+            }
+            index = rowCount++;
+            invalidate(index / pageSize);
+        }
+        fireTableRowsInserted(index, index);
+    }
+
+    /**
+     * Adds many persons to the end of the file in one transaction, with a single
+     * table update.
+     * 
+     * @param newPersons The persons to add, in order.
+     * @throws IllegalStateException Thrown if the persons could not be written, in
+     *                               which case none are added.
+     */
+    @Override
+    public void addAll(Collection<? extends Person> newPersons) {
+        if (newPersons.isEmpty()) {
+            return;
+        }
+        int firstIndex;
+        synchronized (this) {
+            try {
+                long first = newId();
+                inTransaction(() -> {
+                    long id = first;
+                    for (Person p : newPersons) {
+                        insert(id++, p);
+                    }
+                });
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Unable to add persons to " + getFile(), exception);
+            }
+            firstIndex = rowCount;
+            rowCount += newPersons.size();
+            invalidate(firstIndex / pageSize);
+        }
+        fireTableRowsInserted(firstIndex, firstIndex + newPersons.size() - 1);
+    }
+
+    /**
+     * Removes a person from the file and updates the table.
+     * 
+     * @param index The table index of the person to remove.
+     * @throws IllegalStateException Thrown if the person could not be removed.
+     */
+    @Override
+    public void remove(int index) {
+        synchronized (this) {
+            long id = getId(index);
+            try {
+                inTransaction(() -> {
+                    PreparedStatement delete = session.prepare(DELETE_PERSON);
+                    delete.setLong(1, id);
+                    delete.executeUpdate();
+                });
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Unable to remove a person from " + getFile(), exception);
+            }
+            rowCount--;
+            invalidate(index / pageSize);
+        }
+        fireTableRowsDeleted(index, index);
+    }
+
+    /**
+     * Replaces the person at the given index in the file and updates the table.
+     * Null persons are ignored.
+     * 
+     * @param index  The table index of the person to update.
+     * @param person Person to replace index location with.
+     * @throws IllegalStateException Thrown if the person could not be written.
+     */
+    @Override
+    public void set(int index, Person person) {
+        if (person == null) {
+            return;
+        }
+        synchronized (this) {
+            long id = getId(index);
+            try {
+                inTransaction(() -> update(id, person));
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Unable to update a person in " + getFile(), exception);
+            }
+            Page page = pages.get(index / pageSize);
+            if (page != null) {
+                page.persons[index % pageSize] = person;
+            }
+        }
+        fireTableRowsUpdated(index, index);
+    }
+
+    /**
+     * Get the person at the given index, reading its page from the file if it is
+     * not in memory.
+     * 
+     * @param index The table index of the person to get.
+     * @return A person object of the person in that location.
+     * @throws IndexOutOfBoundsException Thrown if the index is not a row of the
+     *                                   table.
+     * @throws IllegalStateException     Thrown if the page could not be read.
+     */
+    @Override
+    public synchronized Person get(int index) {
+        return page(index).persons[index % pageSize];
+    }
+
+    /**
+     * A method to read every person in the file into an array.
+     * 
+     * @return an array of persons in the address book.
+     */
+    @Override
+    public synchronized Person[] getPersons() {
+        Person[] array = new Person[rowCount];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Shows a new empty address book kept in a temporary file, which is deleted
+     * once another file is shown or the address book is closed. The rows of the
+     * file shown before are left as they are.
+     * 
+     * @throws IllegalStateException Thrown if the temporary file could not be
+     *                               made.
+     */
+    @Override
+    public void clear() {
+        try {
+            File file = File.createTempFile("addressbook", ".db");
+            try {
+                attach(file, true);
+            } catch (SQLException | RuntimeException exception) {
+                Files.deleteIfExists(file.toPath());
+                throw exception;
+            }
+        } catch (IOException | SQLException exception) {
+            throw new IllegalStateException("Unable to start a new address book", exception);
+        }
+    }
+
+    /**
+     * Shows any changes other programs have made to the file since it was last
+     * read, with a single table update.
+     * 
+     * @return True if the file had changed, false otherwise.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    public boolean refresh() throws SQLException {
+        synchronized (this) {
+            if (readDataVersion() == dataVersion) {
+                return false;
+            }
+            readFile();
+        }
+        fireTableDataChanged();
+        return true;
+    }
+
+    /**
+     * Closes the file, deleting it if it was made by clearing the address book.
+     * The address book shows no rows afterwards that were not already in memory.
+     * 
+     * @throws SQLException Thrown if the file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        pages.clear();
+        stringPool().clear();
+        session.close();
+        if (temporary) {
+            session.getFile().delete();
+        }
+    }
+
+    /**
+     * Finds the rows with a word starting with each of the given terms using the
+     * full-text index of the file. A file in a layout older than the index has
+     * every row checked instead, until its first edit adds the index.
+     * 
+     * @param terms The search terms, as returned by
+     *              {@link FileSystem#searchTerms(String)}.
+     * @return The table indexes of the matching rows in ascending order.
+     * @throws SQLException Thrown if the file could not be searched.
+     */
+    synchronized int[] search(String[] terms) throws SQLException {
+        int[] rows = new int[16];
+        int count = 0;
+        if (version < 2) {
+            for (int row = 0; row < rowCount; row++) {
+                if (FileSystem.matchesTerms(get(row), terms)) {
+                    if (count == rows.length) {
+                        rows = Arrays.copyOf(rows, count * 2);
+                    }
+                    rows[count++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, count);
+        }
+        PreparedStatement search = session.prepare(SEARCH_ROWS);
+        search.setString(1, FileSystem.matchQuery(terms));
+        try (ResultSet rs = search.executeQuery()) {
+            while (rs.next()) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = rs.getInt(1);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Getter for the number of pages currently held in memory.
+     * 
+     * @return The number of cached pages.
+     */
+    synchronized int getCachedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Get the id of the person at the given index, which is its key in the file.
+     * 
+     * @param index The table index of the person.
+     * @return The id of the person.
+     */
+    @Override
+    synchronized long getId(int index) {
+        return page(index).ids[index % pageSize];
+    }
+
+    /**
+     * Finds the index of the person with the given id by bisecting the pages on
+     * the id of their last row, then searching the page holding it, or counting
+     * the rows before it in that page if it is not in memory. Page ends already
+     * found are reused, so only pages changed since are looked up again.
+     * 
+     * @param id The id of the person.
+     * @return The table index of the person, or -1 if no person has that id.
+     * @throws IllegalStateException Thrown if the file could not be read.
+     */
+    @Override
+    synchronized int indexOf(long id) {
+        if (rowCount == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = pageEnds.length - 1;
+        try {
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                long end = pageEnds[middle] != UNKNOWN ? pageEnds[middle] : pageStart(middle + 1);
+                if (end < id) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            Page page = pages.get(low);
+            if (page != null) {
+                int row = Arrays.binarySearch(page.ids, id);
+                return row < 0 ? -1 : low * pageSize + row;
+            }
+            PreparedStatement query = session.prepare(ROW_IN_PAGE);
+            query.setLong(1, pageStart(low));
+            query.setLong(2, id);
+            query.setLong(3, id);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.getBoolean(2) ? low * pageSize + rs.getInt(1) : -1;
+            }
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Unable to find a person in " + getFile(), exception);
+        }
+    }
+
+    /**
+     * Every edit is already in the file, so only the file itself is in sync.
+     * 
+     * @param file The file to check against.
+     * @return True if the file is the one this address book is kept in.
+     */
+    @Override
+    boolean isSyncedWith(File file) {
+        return session.isFor(file);
+    }
+
+    /**
+     * Every edit is written to the file as it is made.
+     * 
+     * @return Always true.
+     */
+    @Override
+    boolean writesThrough() {
+        return true;
+    }
+
+    /**
+     * Saving to the file this address book is kept in has nothing to write, so
+     * the address book itself is returned as the copy. Saving to any other file
+     * copies every row into memory, keeping its id.
+     * 
+     * @param file The file the copy will be saved to.
+     * @return This address book, or an in-memory copy of it.
+     */
+    @Override
+    synchronized AddressBook copyForSave(File file) {
+        return isSyncedWith(file) ? this : copyRows();
+    }
+
+    /**
+     * Copies every row of the file into memory, keeping its id. The copy tracks
+     * no changes and is in sync with no file.
+     * 
+     * @return The copy.
+     * @throws IllegalStateException Thrown if the rows could not be read.
+     */
+    @Override
+    synchronized AddressBook copyRows() {
+        Person[] persons = getPersons();
+        long[] ids = new long[persons.length];
+        for (int row = 0; row < ids.length; row++) {
+            ids[row] = getId(row);
+        }
+        AddressBook copy = new AddressBook();
+        copy.replaceAll(Arrays.asList(persons), ids, null);
+        return copy;
+    }
+
+    /**
+     * Gets the content hash of the rows in the file, hashing a copy of every row
+     * as an address book held in memory would.
+     * 
+     * @return The content hash.
+     * @throws IllegalStateException Thrown if the rows could not be read.
+     */
+    @Override
+    long contentHash() {
+        return copyRows().contentHash();
+    }
+
+    /**
+     * Shows the rows another program wrote to the file. The rows read are not
+     * needed, as the file is read again a page at a time.
+     * 
+     * @param saved The rows read from the file, ignored.
+     * @return The number of rows shown again, which is every row if the file
+     *         changed and 0 otherwise.
+     * @throws IllegalStateException Thrown if the file could not be read.
+     */
+    @Override
+    int mergeSaved(AddressBook saved) {
+        try {
+            return refresh() ? getRowCount() : 0;
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Unable to read " + getFile(), exception);
+        }
+    }
+
+    /**
+     * Every edit is already in the file, so there are no changes to track.
+     * 
+     * @return An empty map.
+     */
+    @Override
+    Map<Long, Person> getChangedRows() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Every removal is already in the file, so there are no ids to track.
+     * 
+     * @return An empty set.
+     */
+    @Override
+    Set<Long> getRemovedIds() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Getter for the file every edit is written to, which is the only file this
+     * address book is in sync with.
+     * 
+     * @return The absolute file.
+     */
+    @Override
+    File getSyncedFile() {
+        return getFile();
+    }
+
+    /**
+     * Nothing to forget after a read or save, as every edit is already in the
+     * file. Files are switched through {@link #attach(File)} instead.
+     * 
+     * @param file The file read or saved, ignored.
+     */
+    @Override
+    void markSaved(File file) {
+    }
+
+    /**
+     * Nothing to mark after a failed save of a copy, as every edit is already in
+     * the file.
+     */
+    @Override
+    void markUnsynced() {
+    }
+
+    /**
+     * Shows the rows read from a file. If they were read from a file other than
+     * the one shown, that file is shown in its place without writing anything.
+     * Rows read from no file replace every row of the file shown, in one
+     * transaction.
+     * 
+     * @param newPersons The persons read.
+     * @param newIds     The ids of the persons, in the same order.
+     * @param source     The file they were read from, or null if none.
+     * @throws IllegalStateException Thrown if the file could not be opened or
+     *                               written.
+     */
+    @Override
+    void replaceAll(List<Person> newPersons, long[] newIds, File source) {
+        try {
+            if (source != null) {
+                show(source);
+            } else {
+                replaceRows(newPersons.size(), row -> newIds[row], newPersons::get);
+            }
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Unable to replace the persons in " + getFile(), exception);
+        }
+    }
+
+    /**
+     * Replaces every row of the file shown with the rows of a snapshot, such as
+     * the checkpoint of a journal being recovered, in one transaction.
+     * 
+     * @param source The snapshot to write.
+     * @throws IllegalStateException Thrown if the snapshot could not be read or
+     *                               the file could not be written.
+     */
+    @Override
+    void replaceAll(SnapshotFile source) {
+        try {
+            long[] snapshotIds = source.getIds();
+            replaceRows(source.getRowCount(), row -> snapshotIds[row], source::get);
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Unable to replace the persons in " + getFile(), exception);
+        }
+    }
+
+    /**
+     * Shows the file another address book was read from, writing the changes
+     * made to it since, such as edits recovered from a journal, to that file. An
+     * address book in sync with no file has every row written to the file shown
+     * instead. The other address book is left empty.
+     * 
+     * @param other The address book to take the contents of.
+     * @throws IllegalStateException Thrown if the file could not be opened or
+     *                               written.
+     */
+    @Override
+    void replaceWith(AddressBook other) {
+        try {
+            File source = other.getSyncedFile();
+            if (source == null) {
+                replaceRows(other.getRowCount(), other::getId, other::get);
+            } else {
+                show(source);
+                Map<Long, Person> changed = other.getChangedRows();
+                Set<Long> removed = other.getRemovedIds();
+                if (!changed.isEmpty() || !removed.isEmpty()) {
+                    synchronized (this) {
+                        inTransaction(() -> {
+                            for (long id : removed) {
+                                PreparedStatement delete = session.prepare(DELETE_PERSON);
+                                delete.setLong(1, id);
+                                delete.executeUpdate();
+                            }
+                            for (Map.Entry<Long, Person> entry : changed.entrySet()) {
+                                if (!update(entry.getKey(), entry.getValue())) {
+                                    insert(entry.getKey(), entry.getValue());
+                                }
+                            }
+                        });
+                        readRowCount();
+                    }
+                    fireTableDataChanged();
+                }
+            }
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Unable to replace the persons in " + getFile(), exception);
+        }
+        other.clear();
+    }
+
+    /**
+     * Adds a person with a given id to the file, used when replaying journaled
+     * edits. Ids are never given twice, so a person is only added if no person
+     * was ever given its id.
+     * 
+     * @param id The id the person was given when first added.
+     * @param p  The person to add.
+     * @return True if the person was added, false if the id was already used.
+     * @throws IllegalStateException Thrown if the person could not be written.
+     */
+    @Override
+    boolean addWithId(long id, Person p) {
+        int index;
+        synchronized (this) {
+            try {
+                if (id < newId()) {
+                    return false;
+                }
+                inTransaction(() -> insert(id, p));
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Unable to add a person to " + getFile(), exception);
+            }
+            index = rowCount++;
+            invalidate(index / pageSize);
+        }
+        fireTableRowsInserted(index, index);
+        return true;
+    }
+
+    /**
+     * An overridden function to get the number of rows in the table.
+     * 
+     * @return The number of rows in the table.
+     */
+    @Override
+    public synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * A helper function to get the page holding a row, reading it from the file
+     * if it is not in memory.
+     * 
+     * @param index The table index of the row.
+     * @return The page holding the row.
+     * @throws IndexOutOfBoundsException Thrown if the index is not a row of the
+     *                                   table.
+     * @throws IllegalStateException     Thrown if the page could not be read.
+     */
+    private Page page(int index) {
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + rowCount);
+        }
+        int number = index / pageSize;
+        Page page = pages.get(number);
+        if (page == null) {
+            try {
+                page = readPage(number);
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Unable to read address book page " + number, exception);
+            }
+            pages.put(number, page);
+        }
+        return page;
+    }
+
+    /**
+     * A helper function to read one page of rows from the file.
+     * 
+     * @param number The page number to read.
+     * @return The page.
+     * @throws SQLException Thrown if the rows could not be read, or another
+     *                      program removed rows without a refresh.
+     */
+    private Page readPage(int number) throws SQLException {
+        Page page = new Page(Math.min(pageSize, rowCount - number * pageSize));
+        PreparedStatement query = session.prepare(SELECT_PAGE);
+        query.setLong(1, pageStart(number));
+        query.setInt(2, page.ids.length);
+        int count = 0;
+        StringPool strings = stringPool();
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                page.ids[count] = rs.getLong(1);
+                page.persons[count++] = Person.trusted(rs.getString("firstName"), rs.getString("lastName"),
+                        rs.getString("address"), strings.intern(rs.getString("city")),
+                        strings.intern(rs.getString("state")), rs.getString("zip"),
+                        rs.getString("phone"));
+            }
+        }
+        if (count < page.ids.length) {
+            throw new SQLException("Address book file changed by another program and must be refreshed");
+        }
+        pageEnds[number] = page.ids[count - 1];
+        return page;
+    }
+
+    /**
+     * A helper function to find the id the rows of a page follow. Pages not
+     * visited yet are skipped over from the closest page before them whose end is
+     * known.
+     * 
+     * @param number The page number to find the start of.
+     * @return The id the first row of the page is greater than.
+     * @throws SQLException Thrown if the id could not be read.
+     */
+    private long pageStart(int number) throws SQLException {
+        if (number == 0) {
+            return Long.MIN_VALUE;
+        }
+        if (pageEnds[number - 1] != UNKNOWN) {
+            return pageEnds[number - 1];
+        }
+
+        // Find the closest known page end before the page
+        int known = number - 2;
+        while (known >= 0 && pageEnds[known] == UNKNOWN) {
+            known--;
+        }
+        long start = known < 0 ? Long.MIN_VALUE : pageEnds[known];
+
+        // Skip the rows between that page end and the end of the previous page
+        PreparedStatement skip = session.prepare(SKIP_ROWS);
+        skip.setLong(1, start);
+        skip.setInt(2, (number - 1 - known) * pageSize - 1);
+        try (ResultSet rs = skip.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Address book file changed by another program and must be refreshed");
+            }
+            pageEnds[number - 1] = rs.getLong(1);
+        }
+        return pageEnds[number - 1];
+    }
+
+    /**
+     * A helper function to forget the pages from a page on, after rows were added
+     * or removed there.
+     * 
+     * @param first The first page that changed.
+     */
+    private void invalidate(int first) {
+        pages.keySet().removeIf(number -> number >= first);
+        int count = (rowCount + pageSize - 1) / pageSize;
+        if (pageEnds.length != count) {
+            pageEnds = Arrays.copyOf(pageEnds, count);
+        }
+        if (first < count) {
+            Arrays.fill(pageEnds, first, count, UNKNOWN);
+        }
+    }
+
+    /**
+     * A helper function to open a file, giving a new file an empty persons table
+     * in the current layout. A file written in an older layout is left as it is.
+     * 
+     * @param file The address book file.
+     * @return The session of the file.
+     * @throws SQLException Thrown if the file could not be opened or was not in
+     *                      correct format.
+     */
+    private static FileSession open(File file) throws SQLException {
+        FileSession opened = new FileSession(file);
+        try {
+            Connection connection = opened.getConnection();
+            Schema.requireReadable(connection);
+            if (!Schema.hasPersons(connection)) {
+                // A new file is given an empty persons table in the current layout
+                connection.setAutoCommit(false);
+                try {
+                    Schema.create(connection);
+                    Schema.finish(connection);
+                    connection.commit();
+                } catch (SQLException | RuntimeException exception) {
+                    connection.rollback();
+                    throw exception;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+            return opened;
+        } catch (SQLException | RuntimeException exception) {
+            opened.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * A helper function to read the state of the file shown, after it was opened
+     * or written by another address book.
+     * 
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    private void readFile() throws SQLException {
+        dataVersion = readDataVersion();
+        version = Schema.version(session.getConnection());
+        readRowCount();
+        nextId = Schema.nextId(session.getConnection());
+    }
+
+    /**
+     * A helper function to show a file rows were read from. The file shown is
+     * read again if it is the one, as another address book may have written it.
+     * 
+     * @param source The file the rows were read from.
+     * @throws SQLException Thrown if the file could not be opened or read.
+     */
+    private void show(File source) throws SQLException {
+        if (!session.isFor(source)) {
+            attach(source);
+            return;
+        }
+        synchronized (this) {
+            readFile();
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * A helper function to replace every row of the file shown in one
+     * transaction, with a single table update.
+     * 
+     * @param count    The number of rows to write.
+     * @param idOf     The id of each row.
+     * @param personOf The person of each row.
+     * @throws SQLException Thrown if the rows could not be written.
+     */
+    private void replaceRows(int count, IntToLongFunction idOf, IntFunction<Person> personOf) throws SQLException {
+        synchronized (this) {
+            inTransaction(() -> {
+                session.prepare(DELETE_PERSONS).executeUpdate();
+                for (int row = 0; row < count; row++) {
+                    insert(idOf.applyAsLong(row), personOf.apply(row));
+                }
+            });
+            readRowCount();
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * A helper function to find the id to give the next person added. It is
+     * greater than every id given before and every id in the file, so the person
+     * becomes the last row.
+     * 
+     * @return The next id.
+     * @throws SQLException Thrown if the ids in the file could not be read.
+     */
+    private long newId() throws SQLException {
+        try (ResultSet rs = session.prepare(LAST_ID).executeQuery()) {
+            return Math.max(nextId, rs.getLong(1) + 1);
+        }
+    }
+
+    /**
+     * A helper function to insert a person with an id, inside a transaction
+     * recording the next id to give.
+     * 
+     * @param id The id of the person.
+     * @param p  The person to insert.
+     * @throws SQLException Thrown if the person could not be written.
+     */
+    private void insert(long id, Person p) throws SQLException {
+        PreparedStatement insert = session.prepare(INSERT_PERSON);
+        bindFields(insert, p);
+        insert.setLong(Person.fields.length + 1, id);
+        insert.executeUpdate();
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    /**
+     * A helper function to replace the person with an id.
+     * 
+     * @param id     The id of the person.
+     * @param person The person replacing them.
+     * @return True if a person had the id, false otherwise.
+     * @throws SQLException Thrown if the person could not be written.
+     */
+    private boolean update(long id, Person person) throws SQLException {
+        PreparedStatement update = session.prepare(UPDATE_PERSON);
+        bindFields(update, person);
+        update.setLong(Person.fields.length + 1, id);
+        return update.executeUpdate() > 0;
+    }
+
+    /**
+     * A helper function to run work on the file in one transaction, undoing all of
+     * it if any fails. A file in an older layout is migrated first, and the next
+     * id to give is recorded in the file if the work advanced it.
+     * 
+     * @param work The work to run.
+     * @throws SQLException Thrown if the file could not be migrated or the work
+     *                      failed.
+     */
+    private void inTransaction(Transaction work) throws SQLException {
+        Connection connection = session.getConnection();
+        if (version != Schema.VERSION) {
+            Schema.migrate(connection);
+            version = Schema.VERSION;
+        }
+        long start = nextId;
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            if (nextId != start) {
+                Schema.recordNextId(connection, nextId);
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException exception) {
+            connection.rollback();
+            nextId = start;
+            throw exception;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * A helper function to read the number of rows in the file and forget every
+     * page.
+     * 
+     * @throws SQLException Thrown if the rows could not be counted.
+     */
+    private void readRowCount() throws SQLException {
+        try (ResultSet rs = session.prepare(COUNT_PERSONS).executeQuery()) {
+            rowCount = rs.getInt(1);
+        }
+        invalidate(0);
+    }
+
+    /**
+     * A helper function to read the counter SQLite advances whenever another
+     * connection changes the file.
+     * 
+     * @return The data version of the file.
+     * @throws SQLException Thrown if the version could not be read.
+     */
+    private long readDataVersion() throws SQLException {
+        try (ResultSet rs = session.prepare(DATA_VERSION).executeQuery()) {
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * A helper function to set every field of a person on a statement taking them
+     * in (lastName, firstName, ..., phone) order from its first parameter.
+     * 
+     * @param statement The statement to bind.
+     * @param person    The person to bind.
+     * @throws SQLException Thrown if a parameter could not be set.
+     */
+    private static void bindFields(PreparedStatement statement, Person person) throws SQLException {
+        for (int i = 0; i < Person.fields.length; i++) {
+            statement.setString(i + 1, person.getField(i));
+        }
+    }
+}
\ No newline at end of file
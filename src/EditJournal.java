@@ -0,0 +1,665 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the edits made to an address book since it was last
+ * saved, kept next to the saved file so edits survive a crash. Each add, set and
+ * remove is appended as a small checksummed record keyed by the row id. Records
+ * are written and flushed to disk by a background thread, which waits briefly
+ * so that edits made close together share a single fsync.
+ * 
+ * When the journal grows past a size limit, a background task writes the whole
+ * address book to a checkpoint snapshot and drops the records the checkpoint
+ * holds from the start of the journal. Opening a file replays the checkpoint, if
+ * there is one, and then the journal on top of it. Replaying a record the
+ * checkpoint already holds has no effect, so a crash part way through
+ * compaction loses nothing.
+ */
+public class EditJournal implements AutoCloseable {
+
+    // Default size the journal may grow to before it is compacted
+    public static final long DEFAULT_COMPACT_SIZE = 4L << 20;
+
+    // Default time in milliseconds records wait to share an fsync
+    public static final long DEFAULT_COMMIT_DELAY = 20;
+
+    // Extensions added to the name of the saved file for the journal and checkpoint
+    public static final String EXTENSION = ".journal";
+    public static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+    private static final int MAGIC = 0x41424A4C; // "ABJL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int NULL_LENGTH = -1; // Length written for a missing field
+
+    // Record types
+    private static final byte ADD = 1;
+    private static final byte SET = 2;
+    private static final byte REMOVE = 3;
+
+    private final File file;
+    private final File checkpoint;
+    private final AddressBook addressBook;
+    private final long compactSize;
+    private final long commitDelay;
+    private final Thread syncer;
+    private final ExecutorService compactor;
+
+    // Guards the channel, so only one thread writes to or replaces the file
+    private final Object io = new Object();
+
+    // Held while the checkpoint is written or records are dropped from the journal
+    private final Object compacting = new Object();
+    private FileChannel channel;
+
+    // Guarded by this. Positions count every byte of records ever appended, while
+    // dropped counts those removed from the start of the file by compaction.
+    private ByteBuffer pending = ByteBuffer.allocate(8192);
+    private long appended;
+    private long synced;
+    private long dropped = 0;
+    private IOException failure = null;
+    private Future<?> compaction = null;
+    private boolean closed = false;
+
+    /**
+     * Constructor to open or create the journal of a saved address book with the
+     * default compaction size and commit delay.
+     * 
+     * @param saved       The saved file the journal belongs to.
+     * @param addressBook The address book being edited.
+     * @throws IOException Thrown if the journal could not be opened.
+     */
+    public EditJournal(File saved, AddressBook addressBook) throws IOException {
+        this(saved, addressBook, DEFAULT_COMPACT_SIZE, DEFAULT_COMMIT_DELAY);
+    }
+
+    /**
+     * Constructor to open or create the journal of a saved address book. Any
+     * partly written record at the end of an existing journal is cut off.
+     * 
+     * @param saved       The saved file the journal belongs to.
+     * @param addressBook The address book being edited.
+     * @param compactSize The size in bytes the journal may grow to before it is
+     *                    compacted.
+     * @param commitDelay The time in milliseconds records wait to share an fsync.
+     * @throws IOException              Thrown if the journal could not be opened.
+     * @throws IllegalArgumentException Thrown if the compaction size or commit
+     *                                  delay is negative.
+     */
+    public EditJournal(File saved, AddressBook addressBook, long compactSize, long commitDelay)
+            throws IOException {
+        if (compactSize < 0 || commitDelay < 0) {
+            throw new IllegalArgumentException("Compaction size and commit delay cannot be negative");
+        }
+        this.file = journalFile(saved);
+        this.checkpoint = checkpointFile(saved);
+        this.addressBook = addressBook;
+        this.compactSize = compactSize;
+        this.commitDelay = commitDelay;
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long end;
+            if (channel.size() < HEADER_SIZE) {
+                writeHeader(channel);
+                end = HEADER_SIZE;
+            } else {
+                end = HEADER_SIZE + replay(file, null);
+                channel.truncate(end);
+            }
+            channel.position(end);
+            appended = end - HEADER_SIZE;
+            synced = appended;
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+
+        syncer = new Thread(this::syncLoop, "journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "journal-compact");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Getter for the journal file of a saved address book.
+     * 
+     * @param saved The saved file.
+     * @return The journal file next to it.
+     */
+    public static File journalFile(File saved) {
+        return new File(saved.getPath() + EXTENSION);
+    }
+
+    /**
+     * Getter for the checkpoint file of a saved address book.
+     * 
+     * @param saved The saved file.
+     * @return The checkpoint snapshot next to it.
+     */
+    public static File checkpointFile(File saved) {
+        return new File(saved.getPath() + CHECKPOINT_EXTENSION);
+    }
+
+    /**
+     * Applies the checkpoint and journal left next to a saved file to an address
+     * book just read from it, recovering the edits made after the last save.
+     * 
+     * @param addressBook The address book read from the saved file.
+     * @param saved       The saved file.
+     * @return True if any edits were recovered, false otherwise.
+     * @throws IOException Thrown if the checkpoint or journal could not be read.
+     */
+    public static boolean recover(AddressBook addressBook, File saved) throws IOException {
+        boolean recovered = false;
+        File checkpoint = checkpointFile(saved);
+        if (checkpoint.exists()) {
+            addressBook.replaceAll(SnapshotFile.open(checkpoint));
+            recovered = true;
+        }
+        File journal = journalFile(saved);
+        if (journal.length() > HEADER_SIZE) {
+            recovered |= replay(journal, addressBook) > 0;
+        }
+        return recovered;
+    }
+
+    /**
+     * Appends the addition of a person to the journal.
+     * 
+     * @param id     The id given to the person.
+     * @param person The person added.
+     */
+    public void recordAdd(long id, Person person) {
+        append(ADD, id, person);
+    }
+
+    /**
+     * Appends the change of a person to the journal.
+     * 
+     * @param id     The id of the person.
+     * @param person The person replacing them.
+     */
+    public void recordSet(long id, Person person) {
+        append(SET, id, person);
+    }
+
+    /**
+     * Appends the removal of a person to the journal.
+     * 
+     * @param id The id of the person removed.
+     */
+    public void recordRemove(long id) {
+        append(REMOVE, id, null);
+    }
+
+    /**
+     * Writes every record appended so far to disk and waits for it to be flushed.
+     * 
+     * @throws IOException Thrown if the journal could not be written.
+     */
+    public void sync() throws IOException {
+        flush();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Getter for the size of the journal file once all records appended so far
+     * are written.
+     * 
+     * @return The size of the journal in bytes.
+     */
+    public synchronized long size() {
+        return HEADER_SIZE + appended - dropped;
+    }
+
+    /**
+     * Getter for the position after the last record appended, which marks the
+     * edits made so far for {@link #truncateTo(long)}.
+     * 
+     * @return The position after the last record.
+     */
+    public synchronized long position() {
+        return appended;
+    }
+
+    /**
+     * Empties the journal and removes the checkpoint once the address book has
+     * been saved, as the saved file now holds every edit.
+     * 
+     * @throws IOException Thrown if the journal could not be emptied.
+     */
+    public void reset() throws IOException {
+        truncateTo(position());
+    }
+
+    /**
+     * Removes the records before a position once the address book as it was at
+     * that position has been saved, keeping the records appended since. A
+     * checkpoint older than the position is deleted first, so a crash can never
+     * leave the kept records to be replayed on top of it.
+     * 
+     * @param offset The position returned by {@link #position()} when the saved
+     *               contents were taken.
+     * @throws IOException Thrown if the journal could not be rewritten.
+     */
+    public void truncateTo(long offset) throws IOException {
+        synchronized (compacting) {
+            synchronized (this) {
+                if (offset < dropped) {
+                    // A newer checkpoint already holds these records
+                    return;
+                }
+            }
+            SnapshotFile.release(checkpoint);
+            Files.deleteIfExists(checkpoint.toPath());
+            dropPrefix(offset);
+        }
+    }
+
+    /**
+     * Closes the journal and deletes it along with any checkpoint, when the edits
+     * it holds are no longer wanted.
+     * 
+     * @throws IOException Thrown if the journal could not be deleted.
+     */
+    public void discard() throws IOException {
+        close();
+        Files.deleteIfExists(file.toPath());
+        SnapshotFile.release(checkpoint);
+        Files.deleteIfExists(checkpoint.toPath());
+    }
+
+    /**
+     * Writes every record appended so far to disk and closes the journal, leaving
+     * it in place to be recovered.
+     * 
+     * @throws IOException Thrown if the journal could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            syncer.join();
+            awaitCompaction();
+            sync();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            compactor.shutdownNow();
+            synchronized (io) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * A helper function to append a record, starting a compaction if the journal
+     * has grown past its size limit. The address book must already hold the edit.
+     * 
+     * @param type   The type of edit.
+     * @param id     The id of the person edited.
+     * @param person The new person, or null for a removal.
+     * @throws IllegalStateException Thrown if the journal is closed.
+     */
+    private void append(byte type, long id, Person person) {
+        byte[] payload = encode(type, id, person);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            int length = 8 + payload.length;
+            if (pending.remaining() < length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+                pending.flip();
+                pending = grown.put(pending);
+            }
+            pending.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+            appended += length;
+            notifyAll();
+
+            // Compact from a copy of the book matching every record so far. Only the
+            // ids and person references are copied here; rows are decoded while the
+            // checkpoint is written in the background.
+            if (size() > compactSize && (compaction == null || compaction.isDone())) {
+                AddressBook copy = addressBook.copyRows();
+                long offset = appended;
+                compaction = compactor.submit(() -> {
+                    compact(copy, offset);
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * The body of the background thread writing records to disk. Records that
+     * arrive within the commit delay of each other are written with one fsync.
+     */
+    private void syncLoop() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (pending.position() == 0 && !closed) {
+                        wait();
+                    }
+
+                    // Let more records join this commit. The thread is never interrupted,
+                    // as that would close the channel under a write.
+                    long deadline = System.currentTimeMillis() + commitDelay;
+                    for (long left = commitDelay; left > 0 && !closed; left = deadline - System.currentTimeMillis()) {
+                        wait(left);
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+                flush();
+            }
+        } catch (InterruptedException exception) {
+            // Closing, which writes any records left
+        }
+    }
+
+    /**
+     * A helper function to write the records appended so far and flush them to
+     * disk.
+     */
+    private void flush() {
+        synchronized (io) {
+            ByteBuffer batch;
+            long target;
+            synchronized (this) {
+                if (synced == appended) {
+                    return;
+                }
+                batch = pending;
+                pending = ByteBuffer.allocate(batch.capacity());
+                target = appended;
+            }
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+                synchronized (this) {
+                    synced = target;
+                    notifyAll();
+                }
+            } catch (IOException exception) {
+                synchronized (this) {
+                    failure = exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * A helper function to write a checkpoint of the address book and remove the
+     * records it holds from the start of the journal.
+     * 
+     * @param copy   A copy of the address book holding every record before offset.
+     * @param offset The position of the first record not held by the copy.
+     * @throws IOException Thrown if the checkpoint or journal could not be
+     *                     written.
+     */
+    private void compact(AddressBook copy, long offset) throws IOException {
+        synchronized (compacting) {
+            synchronized (this) {
+                if (offset < dropped) {
+                    // Saved since the copy was taken, so the copy is out of date
+                    return;
+                }
+            }
+            SnapshotFile.write(copy, checkpoint, ProgressListener.NONE);
+            dropPrefix(offset);
+        }
+    }
+
+    /**
+     * A helper function to remove the records before a position from the start of
+     * the journal. The records after it are copied to a new journal which then
+     * replaces the old one, so a crash leaves one or the other whole.
+     * 
+     * @param offset The position of the first record to keep.
+     * @throws IOException Thrown if the journal could not be rewritten.
+     */
+    private void dropPrefix(long offset) throws IOException {
+        synchronized (io) {
+            flush();
+            long start;
+            synchronized (this) {
+                start = HEADER_SIZE + offset - dropped;
+            }
+            long end = channel.size();
+            if (start >= end) {
+                // Nothing is kept, so the journal is emptied in place
+                channel.truncate(HEADER_SIZE);
+                channel.position(HEADER_SIZE);
+                channel.force(true);
+                synchronized (this) {
+                    dropped = offset;
+                }
+                return;
+            }
+
+            // Copy the records kept to a new journal
+            File temp = new File(file.getPath() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(out);
+                for (long position = start; position < end;) {
+                    position += channel.transferTo(position, end - position, out);
+                }
+                out.force(true);
+            }
+
+            // Replace the journal, reopening the old one if that fails
+            channel.close();
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                synchronized (this) {
+                    dropped = offset;
+                }
+            } finally {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+        }
+    }
+
+    /**
+     * A helper function to wait for a running compaction to finish.
+     * 
+     * @throws IOException Thrown if the compaction failed.
+     */
+    private void awaitCompaction() throws IOException {
+        Future<?> running;
+        synchronized (this) {
+            running = compaction;
+        }
+        if (running == null) {
+            return;
+        }
+        try {
+            running.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+            throw new IOException("Journal compaction failed", exception.getCause());
+        }
+    }
+
+    /**
+     * A helper function to read the records of a journal, applying them to an
+     * address book. Reading stops at the first record that is incomplete or fails
+     * its checksum, as left by a crash while it was written.
+     * 
+     * @param journal     The journal to read.
+     * @param addressBook The address book to apply the records to, or null to only
+     *                    check them.
+     * @return The number of bytes of complete records after the header.
+     * @throws IOException Thrown if the file is not a journal or could not be
+     *                     read.
+     */
+    private static long replay(File journal, AddressBook addressBook) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an edit journal");
+            }
+            int version = in.readInt();
+            if (version > VERSION) {
+                throw new IOException("Edit journal uses a newer format (version " + version + ")");
+            }
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    if (length < 9 || length > journal.length()) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                } catch (EOFException exception) {
+                    break;
+                }
+                if (addressBook != null) {
+                    apply(addressBook, payload);
+                }
+                valid += 8 + payload.length;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * A helper function to apply one record to an address book. Records for rows
+     * the address book no longer has, and additions of rows it already has or has
+     * already removed, are applied so that replaying a record twice is harmless.
+     * 
+     * @param addressBook The address book to apply the record to.
+     * @param payload     The record.
+     */
+    private static void apply(AddressBook addressBook, byte[] payload) {
+        ByteBuffer record = ByteBuffer.wrap(payload);
+        byte type = record.get();
+        long id = record.getLong();
+        int index = addressBook.indexOf(id);
+        if (type == REMOVE) {
+            if (index >= 0) {
+                addressBook.remove(index);
+            }
+            return;
+        }
+
+        Person person;
+        try {
+            String[] fields = new String[Person.fields.length];
+            for (int field = 0; field < fields.length; field++) {
+                int length = record.getInt();
+                if (length != NULL_LENGTH) {
+                    fields[field] = new String(payload, record.position(), length, StandardCharsets.UTF_8);
+                    record.position(record.position() + length);
+                }
+            }
+            person = new Person(fields[1], fields[0], fields[2], fields[3], fields[4], fields[5], fields[6]);
+        } catch (RuntimeException exception) {
+            // A person the program could not have made is skipped
+            return;
+        }
+        if (index >= 0) {
+            addressBook.set(index, person);
+        } else if (type == ADD) {
+            addressBook.addWithId(id, person);
+        }
+    }
+
+    /**
+     * A helper function to encode a record.
+     * 
+     * @param type   The type of edit.
+     * @param id     The id of the person edited.
+     * @param person The new person, or null for a removal.
+     * @return The encoded record.
+     */
+    private static byte[] encode(byte type, long id, Person person) {
+        byte[][] fields = new byte[person == null ? 0 : Person.fields.length][];
+        int length = 9;
+        for (int field = 0; field < fields.length; field++) {
+            String value = person.getField(field);
+            fields[field] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+            length += 4 + (value == null ? 0 : fields[field].length);
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.put(type).putLong(id);
+        for (byte[] field : fields) {
+            if (field == null) {
+                record.putInt(NULL_LENGTH);
+            } else {
+                record.putInt(field.length).put(field);
+            }
+        }
+        return record.array();
+    }
+
+    /**
+     * A helper function to write the journal header at the start of a file.
+     * 
+     * @param out The file to write to.
+     * @throws IOException Thrown if the header could not be written.
+     */
+    private static void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        out.truncate(0);
+        out.position(0);
+        while (header.hasRemaining()) {
+            out.write(header);
+        }
+        out.force(true);
+    }
+}
\ No newline at end of file
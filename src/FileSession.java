@@ -0,0 +1,122 @@
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A session on one open address book file. The session keeps a single
+ * connection to the file, and every statement prepared through it, open until
+ * the session is closed, so repeated reads and saves of the same book do not pay
+ * for opening the file and parsing its schema each time.
+ */
+public class FileSession implements AutoCloseable {
+
+    private final File file;
+    private final Connection connection;
+    private final boolean write;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    /**
+     * Constructor that opens a session on a file, applying the current
+     * persistence profile. The file is created if it does not exist.
+     * 
+     * @param file The address book file.
+     * @throws SQLException Thrown if the file could not be opened.
+     */
+    public FileSession(File file) throws SQLException {
+        this(file, true);
+    }
+
+    /**
+     * Constructor that opens a session on a file, applying the current
+     * persistence profile.
+     * 
+     * @param file  The address book file.
+     * @param write Whether the session will be used to write.
+     * @throws SQLException Thrown if the file could not be opened.
+     */
+    FileSession(File file, boolean write) throws SQLException {
+        this.file = file.getAbsoluteFile();
+        this.connection = FileSystem.connect(this.file, write);
+        this.write = write;
+    }
+
+    /**
+     * Getter for the file of this session.
+     * 
+     * @return The absolute file this session is open on.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Checks whether this session is open on the given file.
+     * 
+     * @param other The file to check.
+     * @return True if the session is open on that file, false otherwise.
+     */
+    public boolean isFor(File other) {
+        return file.equals(other.getAbsoluteFile());
+    }
+
+    /**
+     * Checks whether this session was opened to write, with the journal mode of
+     * the persistence profile applied to the file.
+     * 
+     * @return True if the session was opened to write, false if only to read.
+     */
+    boolean isWritable() {
+        return write;
+    }
+
+    /**
+     * Getter for the connection to the file.
+     * 
+     * @return The session's connection.
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Gets a prepared statement for some SQL, preparing it the first time it is
+     * asked for. The statement is returned with no parameters or batch set, and
+     * must not be closed by the caller.
+     * 
+     * @param sql The SQL of the statement.
+     * @return The prepared statement.
+     * @throws SQLException Thrown if the statement could not be prepared.
+     */
+    synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+        return statement;
+    }
+
+    /**
+     * Closes every cached statement and the connection to the file.
+     * 
+     * @throws SQLException Thrown if the connection could not be closed.
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException exception) {
+                // The connection is closed below either way
+            }
+        }
+        statements.clear();
+        connection.close();
+    }
+}
\ No newline at end of file
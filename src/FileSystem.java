@@ -1,19 +1,143 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Pattern;
+
+import org.sqlite.SQLiteConnection;
 
 /**
  * A static filesystem class to save/load address books to/from file.
  */
 public class FileSystem {
 
+    // Default number of rows sent to the database in a single JDBC batch
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // Number of rows read between progress reports
+    private static final int PROGRESS_STEP = 1000;
+
+    // Statements run through the statement cache of a file session
+    private static final String COUNT_PERSONS = "SELECT COUNT(*) FROM persons";
+    private static final String SELECT_PERSONS = "SELECT rowid, lastName, firstName, address, city, state, zip, phone FROM persons ORDER BY rowid";
+    private static final String TABLE_INFO = "PRAGMA table_info(persons)";
+    private static final String INSERT_PERSON = "INSERT INTO persons (id, lastName, firstName, address, city, state, zip, phone) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_PERSON = INSERT_PERSON
+            + " ON CONFLICT(id) DO UPDATE SET lastName = excluded.lastName, firstName = excluded.firstName, "
+            + "address = excluded.address, city = excluded.city, state = excluded.state, zip = excluded.zip, "
+            + "phone = excluded.phone";
+    private static final String DELETE_PERSON = "DELETE FROM persons WHERE id = ?";
+    private static final String SEARCH_PERSONS = "SELECT rowid FROM persons_fts WHERE persons_fts MATCH ? ORDER BY rowid";
+
+    // Pages copied by each step of an online backup, and the pause in
+    // milliseconds between steps letting saves in
+    private static final int BACKUP_PAGES_PER_STEP = 64;
+    private static final int BACKUP_PAUSE = 2;
+
+    // Time in milliseconds to wait, and number of times to retry, when a backup
+    // step finds the file locked
+    private static final int BACKUP_BUSY_WAIT = 50;
+    private static final int BACKUP_BUSY_RETRIES = 200;
+
+    // Characters that separate search terms, as the full-text index tokenizes
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static volatile int batchSize = DEFAULT_BATCH_SIZE;
+    private static volatile PersistenceProfile profile = PersistenceProfile.DURABLE;
+    private static volatile double lastSaveRate = 0;
+
     /**
      * A private constructor to prevent instantiation
      */
     private FileSystem() {
     }
 
+    /**
+     * Getter for the number of rows sent to the database per JDBC batch when
+     * saving.
+     * 
+     * @return The current save batch size.
+     */
+    public static int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows sent to the database per JDBC batch when saving.
+     * 
+     * @param size The new batch size.
+     * @throws IllegalArgumentException Thrown if size is less than 1.
+     */
+    public static void setBatchSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        batchSize = size;
+    }
+
+    /**
+     * Getter for the throughput of the most recent successful save.
+     * 
+     * @return The number of rows written per second by the last save, or 0 if no
+     *         save has completed yet.
+     */
+    public static double getLastSaveRate() {
+        return lastSaveRate;
+    }
+
+    /**
+     * Getter for the persistence profile applied to files as they are opened.
+     * 
+     * @return The current persistence profile.
+     */
+    public static PersistenceProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Sets the persistence profile applied to files as they are opened.
+     * 
+     * @param newProfile The persistence profile to use from now on.
+     * @throws IllegalArgumentException Thrown if the profile is null.
+     */
+    public static void setProfile(PersistenceProfile newProfile) {
+        if (newProfile == null) {
+            throw new IllegalArgumentException("Persistence profile cannot be null");
+        }
+        profile = newProfile;
+    }
+
+    /**
+     * Opens a connection to an address book file with the current persistence
+     * profile applied.
+     * 
+     * @param file  The file to connect to.
+     * @param write Whether the connection will be used to write.
+     * @return The open connection.
+     * @throws SQLException Thrown if the file could not be opened.
+     */
+    static Connection connect(File file, boolean write) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try {
+            profile.apply(connection, write);
+        } catch (SQLException exception) {
+            connection.close();
+            throw exception;
+        }
+        return connection;
+    }
+
     /**
      * A function to read the data out of an existing AddressBook saved on disk.
      * Note: this function deletes the data in the current AddressBook.
@@ -25,32 +149,131 @@ public class FileSystem {
      * @throws IOException
      */
     public static void readFile(AddressBook addressBook, File file) throws SQLException, FileNotFoundException {
-        // Throw exception if the file is not usable or doesn't exist
-        if (!file.exists() || !file.canRead()) {
-            throw new FileNotFoundException();
-        }
+        readFile(addressBook, file, ProgressListener.NONE);
+    }
+
+    /**
+     * A function to read the data out of an existing AddressBook saved on disk,
+     * reporting progress as rows are read. The AddressBook is only changed once
+     * every row has been read, so a failed or cancelled read leaves it untouched.
+     * 
+     * @param addressBook The AddressBook to read the data into.
+     * @param file        The file to read the data from.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws SQLException          Thrown if the data in the file is not in the
+     *                               expected SQL format
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     * @throws CancellationException Thrown if the reading thread is interrupted.
+     */
+    public static void readFile(AddressBook addressBook, File file, ProgressListener listener)
+            throws SQLException, FileNotFoundException {
+        requireReadable(file);
 
         // Connect SQL database and execute query to retrieve data
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
-                Statement statement = connection.createStatement();
-                ResultSet rs = statement
-                        .executeQuery("SELECT lastName, firstName, address, city, state, zip, phone FROM persons");) {
+        try (FileSession session = new FileSession(file, false)) {
+            readFile(addressBook, session, listener);
+        }
+    }
 
-            // Clear the current AddressBook contents
-            addressBook.clear();
+    /**
+     * A function to read the data out of an address book file through an open
+     * session on it, reporting progress as rows are read. Files in an older layout
+     * are read without being changed. The AddressBook is only changed once
+     * every row has been read, so a failed or cancelled read leaves it untouched.
+     * 
+     * @param addressBook The AddressBook to read the data into.
+     * @param session     The session on the file to read the data from.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws SQLException          Thrown if the data in the file is not in the
+     *                               expected SQL format
+     * @throws CancellationException Thrown if the reading thread is interrupted.
+     */
+    public static void readFile(AddressBook addressBook, FileSession session, ProgressListener listener)
+            throws SQLException {
+        synchronized (session) {
+            // Files written in an older layout are read as they are, and migrated on save
+            Schema.requireReadable(session.getConnection());
 
-            // Iterate through all the records, adding them to the AddressBook
-            while (rs.next()) {
-                Person p = new Person(rs.getString("firstName"), rs.getString("lastName"), rs.getString("address"),
-                        rs.getString("city"), rs.getString("state"), rs.getString("zip"), rs.getString("phone"));
-                addressBook.add(p);
+            // Nothing to read if the file still holds what the address book shows
+            if (addressBook.isSyncedWith(session.getFile()) && holds(session, addressBook)) {
+                addressBook.markSaved(session.getFile());
+                listener.progress(0, 0);
+                return;
+            }
+
+            // Count the records so progress can be reported against the total
+            long total;
+            try (ResultSet rs = session.prepare(COUNT_PERSONS).executeQuery()) {
+                total = rs.getLong(1);
+            }
+            listener.progress(0, total);
+
+            // Iterate through all the records, collecting them for the AddressBook. Files
+            // written before rows had an id column are read using their implicit rowid.
+            ArrayList<Person> persons = new ArrayList<>();
+            long[] ids = new long[16];
+            StringPool pool = addressBook.stringPool();
+            try (ResultSet rs = session.prepare(SELECT_PERSONS).executeQuery()) {
+                while (rs.next()) {
+                    Person p = Person.trusted(rs.getString("firstName"), rs.getString("lastName"),
+                            rs.getString("address"), pool.intern(rs.getString("city")),
+                            pool.intern(rs.getString("state")), rs.getString("zip"),
+                            rs.getString("phone"));
+                    if (persons.size() == ids.length) {
+                        ids = Arrays.copyOf(ids, ids.length * 2);
+                    }
+                    ids[persons.size()] = rs.getLong(1);
+                    persons.add(p);
+                    if (persons.size() % PROGRESS_STEP == 0) {
+                        checkCancelled();
+                        listener.progress(persons.size(), total);
+                    }
+                }
             }
+            listener.progress(persons.size(), total);
+
+            // Replace the current AddressBook contents
+            addressBook.replaceAll(persons, ids, session.getFile());
         }
     }
 
     /**
-     * A function to save an address book to disk. The function erases any existing
-     * address book in the file.
+     * A function to check every row of an address book file, for files that may
+     * have been changed by another program. Rows are read without being checked,
+     * as when the file is opened, and then checked a field at a time across the
+     * whole file, so every invalid row is reported rather than only the first.
+     * 
+     * @param file The file to check.
+     * @return The reason each invalid row was rejected, by the id of the row. The
+     *         map is empty if every row is valid.
+     * @throws SQLException          Thrown if the data in the file is not in the
+     *                               expected SQL format
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     * @throws IOException           Thrown if the file is a snapshot this program
+     *                               cannot read.
+     */
+    public static SortedMap<Long, String> verifyFile(File file) throws SQLException, IOException {
+        if (SnapshotFile.isSnapshot(file)) {
+            return SnapshotFile.open(file).verify();
+        }
+        AddressBook addressBook = new AddressBook();
+        readFile(addressBook, file);
+        SortedMap<Long, String> invalid = new TreeMap<>();
+        PersonValidator.verify(Arrays.asList(addressBook.getPersons()))
+                .forEach((row, reason) -> invalid.put(addressBook.getId(row), reason));
+        return invalid;
+    }
+
+    /**
+     * A function to save an address book to disk. If the address book was last
+     * read from or saved to the same file, only the rows added, changed or removed
+     * since then are written. Otherwise any existing address book in the file is
+     * erased and every row is written. Either way all rows are written in a single
+     * transaction using JDBC batches of {@link #getBatchSize()} rows, so the file
+     * is either fully updated or left untouched. Nothing is written if the file
+     * already holds exactly the rows of the address book.
      * 
      * @param addressBook The address book to save to disk.
      * @param file        The file the address book will be saved to.
@@ -58,29 +281,428 @@ public class FileSystem {
      *                      this method)
      */
     public static void saveFile(AddressBook addressBook, File file) throws SQLException {
-        // Initialize database connection
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
-                Statement statement = connection.createStatement();) {
-
-            // Drop any data in the file
-            statement.execute("DROP TABLE IF EXISTS persons");
-
-            // Prepare table for storing data
-            statement.execute(
-                    "CREATE TABLE persons (firstName TEXT, lastName TEXT, address TEXT, city TEXT, state TEXT, zip TEXT, phone TEXT)");
-
-            // Prepare a statement for database insertion
-            try (PreparedStatement insert = connection.prepareStatement(
-                    "INSERT INTO persons (lastName, firstName, address, city, state, zip, phone) VALUES (?, ?, ?, ?, ?, ?, ?)");) {
-                // Iterate through all people and all their data fields to insert them into the
-                // file database on disk
-                for (Person p : addressBook.getPersons()) {
-                    for (int i = 0; i < Person.fields.length; i++) {
-                        insert.setString(i + 1, p.getField(i));
+        saveFile(addressBook, file, ProgressListener.NONE);
+    }
+
+    /**
+     * A function to save an address book to disk as {@link #saveFile(AddressBook,
+     * File)} does, reporting progress after each batch of rows is written. If the
+     * save fails or is cancelled, the file is left as it was.
+     * 
+     * @param addressBook The address book to save to disk.
+     * @param file        The file the address book will be saved to.
+     * @param listener    The listener to report the number of rows written to.
+     * @throws SQLException          Thrown if database issue occurs.
+     * @throws CancellationException Thrown if the saving thread is interrupted.
+     */
+    public static void saveFile(AddressBook addressBook, File file, ProgressListener listener) throws SQLException {
+        try (FileSession session = new FileSession(file)) {
+            saveFile(addressBook, session, listener);
+        }
+    }
+
+    /**
+     * A function to save an address book through an open session on a file, as
+     * {@link #saveFile(AddressBook, File, ProgressListener)} does.
+     * 
+     * @param addressBook The address book to save to disk.
+     * @param session     The session on the file the address book will be saved
+     *                    to.
+     * @param listener    The listener to report the number of rows written to.
+     * @throws SQLException          Thrown if database issue occurs.
+     * @throws CancellationException Thrown if the saving thread is interrupted.
+     */
+    public static void saveFile(AddressBook addressBook, FileSession session, ProgressListener listener)
+            throws SQLException {
+        long start = System.nanoTime();
+        int rows;
+
+        synchronized (session) {
+            if (holds(session, addressBook)) {
+                addressBook.markSaved(session.getFile());
+                listener.progress(0, 0);
+                return;
+            }
+
+            // Changes are written on top of the rows read, so bring an older layout
+            // up to date first. Any other save replaces the whole file anyway.
+            if (addressBook.isSyncedWith(session.getFile())) {
+                Schema.migrate(session.getConnection());
+            }
+
+            // Group every change into one transaction instead of one commit per row
+            Connection connection = session.getConnection();
+            connection.setAutoCommit(false);
+            try {
+                if (addressBook.isSyncedWith(session.getFile()) && hasRowIds(session)) {
+                    rows = saveChanges(addressBook, session, listener);
+                } else {
+                    rows = saveAll(addressBook, session, listener);
+                }
+                checkCancelled();
+                if (Schema.version(connection) == Schema.VERSION) {
+                    Schema.recordContentHash(connection, addressBook.contentHash());
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException exception) {
+                // Leave the file as it was before the save started
+                connection.rollback();
+                throw exception;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        addressBook.markSaved(session.getFile());
+
+        // Record throughput of this save
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        lastSaveRate = rows * 1e9 / elapsed;
+    }
+
+    /**
+     * A function to back up an address book file while it stays open for saving,
+     * using the online backup of SQLite. The file is read through a connection of
+     * its own, a few pages at a time, so saves are only held up for the length of
+     * a step. If a save is committed part way through, the copy starts again, so
+     * the backup always holds the file as one save or another left it and never
+     * a mix of both. The backup is written beside the target and moved over it
+     * once complete.
+     * 
+     * @param file     The file to back up.
+     * @param target   The file to write the backup to, replaced if it exists.
+     * @param listener The listener to report the number of pages copied to.
+     * @throws SQLException          Thrown if the file could not be read.
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     * @throws IOException           Thrown if the backup could not be written.
+     * @throws CancellationException Thrown if the backing up thread is
+     *                               interrupted, once the copy has stopped.
+     */
+    public static void backupFile(File file, File target, ProgressListener listener)
+            throws SQLException, IOException {
+        requireReadable(file);
+        if (file.getAbsoluteFile().equals(target.getAbsoluteFile())) {
+            throw new IOException("Cannot back up " + file.getName() + " over itself");
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        Files.deleteIfExists(temp.toPath());
+        try {
+            try (Connection connection = connect(file, false)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA query_only = ON");
+                }
+                int result = connection.unwrap(SQLiteConnection.class).getDatabase().backup("main",
+                        temp.getAbsolutePath(), (remaining, pages) -> {
+                            listener.progress(pages - remaining, pages);
+                            pauseBackup();
+                        }, BACKUP_BUSY_WAIT, BACKUP_BUSY_RETRIES, BACKUP_PAGES_PER_STEP);
+                if (result != 0) {
+                    throw new SQLException("Backup of " + file.getName() + " failed (error " + result + ")");
+                }
+            }
+            checkCancelled();
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * A function to find the persons in a file with a word starting with each of
+     * the given search terms, using the full-text index of the file. Terms are
+     * matched regardless of case or accents, in any field.
+     * 
+     * @param session The session on the file to search.
+     * @param terms   The search terms, as returned by {@link #searchTerms(String)}.
+     * @return The ids of the matching persons in ascending order.
+     * @throws SQLException Thrown if the file has no full-text index or could not
+     *                      be read.
+     */
+    public static long[] search(FileSession session, String[] terms) throws SQLException {
+        String query = matchQuery(terms);
+        long[] ids = new long[16];
+        int count = 0;
+        synchronized (session) {
+            PreparedStatement search = session.prepare(SEARCH_PERSONS);
+            search.setString(1, query);
+            try (ResultSet rs = search.executeQuery()) {
+                while (rs.next()) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = rs.getLong(1);
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Builds the full-text query matching persons with a word starting with each
+     * of the given search terms.
+     * 
+     * @param terms The search terms, as returned by {@link #searchTerms(String)}.
+     * @return The MATCH expression for the full-text index.
+     * @throws IllegalArgumentException Thrown if no terms are given.
+     */
+    static String matchQuery(String[] terms) {
+        // Quote each term as a prefix query, all of which must match
+        StringBuilder query = new StringBuilder();
+        for (String term : terms) {
+            query.append(query.length() == 0 ? "\"" : " \"").append(term).append("\"*");
+        }
+        if (query.length() == 0) {
+            throw new IllegalArgumentException("At least one search term is required");
+        }
+        return query.toString();
+    }
+
+    /**
+     * Splits search text into the terms the full-text index is searched with.
+     * Terms are separated by anything other than letters and digits, and are
+     * lower cased with accents removed.
+     * 
+     * @param text The text typed into a search box.
+     * @return The search terms, which may be empty.
+     */
+    public static String[] searchTerms(String text) {
+        String folded = fold(text).trim();
+        if (folded.isEmpty()) {
+            return new String[0];
+        }
+        String[] terms = TERM_SEPARATOR.split(folded);
+        return terms.length > 0 && terms[0].isEmpty() ? Arrays.copyOfRange(terms, 1, terms.length) : terms;
+    }
+
+    /**
+     * Checks a person in memory against search terms the same way the full-text
+     * index would, for rows that have not been saved yet.
+     * 
+     * @param person The person to check.
+     * @param terms  The search terms, as returned by {@link #searchTerms(String)}.
+     * @return True if every term starts a word of one of the person's fields.
+     */
+    public static boolean matchesTerms(Person person, String[] terms) {
+        String[][] words = new String[Person.fields.length][];
+        for (String term : terms) {
+            boolean found = false;
+            for (int i = 0; i < words.length && !found; i++) {
+                if (words[i] == null) {
+                    String field = person.getField(i);
+                    words[i] = field == null ? new String[0] : TERM_SEPARATOR.split(fold(field));
+                }
+                for (String word : words[i]) {
+                    if (word.startsWith(term)) {
+                        found = true;
+                        break;
                     }
-                    insert.executeUpdate();
                 }
             }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A helper function to lower case text and remove its accents, as the
+     * full-text index does.
+     * 
+     * @param text The text to fold.
+     * @return The folded text.
+     */
+    private static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A helper function to check a file exists and can be read before it is
+     * opened, as opening a file that does not exist creates it.
+     * 
+     * @param file The file to check.
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     */
+    static void requireReadable(File file) throws FileNotFoundException {
+        // Throw exception if the file is not usable or doesn't exist
+        if (!file.exists() || !file.canRead()) {
+            throw new FileNotFoundException();
+        }
+    }
+
+    /**
+     * A helper function to check whether the persons table in a file has the id
+     * primary key that changes are applied against.
+     * 
+     * @param session The session on the file.
+     * @return True if the persons table exists and has an id column.
+     * @throws SQLException Thrown if the table information could not be read.
+     */
+    private static boolean hasRowIds(FileSession session) throws SQLException {
+        try (ResultSet rs = session.prepare(TABLE_INFO).executeQuery()) {
+            while (rs.next()) {
+                if ("id".equalsIgnoreCase(rs.getString("name")) && rs.getInt("pk") == 1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A function to check whether a file already holds exactly the rows of an
+     * address book, by the content hash recorded when it was last saved. Files
+     * changed in any other way since no longer record a hash.
+     * 
+     * @param session     The session on the file.
+     * @param addressBook The address book to compare.
+     * @return True if the file records the content hash of the address book.
+     * @throws SQLException Thrown if the metadata could not be read.
+     */
+    static boolean holds(FileSession session, AddressBook addressBook) throws SQLException {
+        return Schema.hasContentHash(session.getConnection(), addressBook.contentHash());
+    }
+
+    /**
+     * A function to check whether a file records the given content hash, through a
+     * session of its own.
+     * 
+     * @param file The file.
+     * @param hash The content hash of an address book.
+     * @return True if the file records that hash, false if it records another or
+     *         none.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    static boolean holds(File file, long hash) throws SQLException {
+        try (FileSession session = new FileSession(file, false)) {
+            return Schema.hasContentHash(session.getConnection(), hash);
+        }
+    }
+
+    /**
+     * A helper function to replace the persons table with every row of the address
+     * book.
+     * 
+     * @param addressBook The address book to write.
+     * @param session     The session on the file, inside a transaction.
+     * @param listener    The listener to report the number of rows written to.
+     * @return The number of rows written.
+     * @throws SQLException Thrown if the rows could not be written.
+     */
+    private static int saveAll(AddressBook addressBook, FileSession session, ProgressListener listener)
+            throws SQLException {
+        Schema.create(session.getConnection());
+
+        // Iterate through all people and all their data fields, sending them to the
+        // database in batches
+        int rows = addressBook.getRowCount();
+        int size = batchSize;
+        PreparedStatement insert = session.prepare(INSERT_PERSON);
+        listener.progress(0, rows);
+        for (int row = 0; row < rows; row++) {
+            bindPerson(insert, addressBook.getId(row), addressBook.get(row));
+            insert.addBatch();
+            if ((row + 1) % size == 0) {
+                insert.executeBatch();
+                checkCancelled();
+                listener.progress(row + 1L, rows);
+            }
+        }
+        insert.executeBatch();
+        Schema.finish(session.getConnection());
+        listener.progress(rows, rows);
+        return rows;
+    }
+
+    /**
+     * A helper function to apply the rows added, changed or removed since the last
+     * save to a file already holding the rest of the address book.
+     * 
+     * @param addressBook The address book to write.
+     * @param session     The session on the file, inside a transaction.
+     * @param listener    The listener to report the number of rows written to.
+     * @return The number of rows written or deleted.
+     * @throws SQLException Thrown if the changes could not be written.
+     */
+    private static int saveChanges(AddressBook addressBook, FileSession session, ProgressListener listener)
+            throws SQLException {
+        int rows = 0;
+        int size = batchSize;
+        int total = addressBook.getRemovedIds().size() + addressBook.getChangedRows().size();
+        listener.progress(0, total);
+
+        // Delete removed persons
+        PreparedStatement delete = session.prepare(DELETE_PERSON);
+        for (long id : addressBook.getRemovedIds()) {
+            delete.setLong(1, id);
+            delete.addBatch();
+            if (++rows % size == 0) {
+                delete.executeBatch();
+                checkCancelled();
+                listener.progress(rows, total);
+            }
+        }
+        delete.executeBatch();
+
+        // Insert new persons and update changed ones
+        PreparedStatement upsert = session.prepare(UPSERT_PERSON);
+        for (Map.Entry<Long, Person> row : addressBook.getChangedRows().entrySet()) {
+            bindPerson(upsert, row.getKey(), row.getValue());
+            upsert.addBatch();
+            if (++rows % size == 0) {
+                upsert.executeBatch();
+                checkCancelled();
+                listener.progress(rows, total);
+            }
+        }
+        upsert.executeBatch();
+        listener.progress(rows, total);
+        return rows;
+    }
+
+    /**
+     * A helper function to pause between the steps of a backup, leaving the file
+     * free for saves. The copy cannot be stopped part way, so once the thread is
+     * interrupted it no longer pauses and is cancelled when the copy ends.
+     */
+    private static void pauseBackup() {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        try {
+            Thread.sleep(BACKUP_PAUSE);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A helper function to stop a long running read or write once the thread
+     * running it has been interrupted.
+     * 
+     * @throws CancellationException Thrown if the current thread is interrupted.
+     */
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("File operation cancelled");
+        }
+    }
+
+    /**
+     * A helper function to set the id and every field of a person on a statement
+     * taking them in (id, lastName, firstName, ..., phone) order.
+     * 
+     * @param statement The statement to bind.
+     * @param id        The id of the person.
+     * @param person    The person to bind.
+     * @throws SQLException Thrown if a parameter could not be set.
+     */
+    private static void bindPerson(PreparedStatement statement, long id, Person person) throws SQLException {
+        statement.setLong(1, id);
+        for (int i = 0; i < Person.fields.length; i++) {
+            statement.setString(i + 2, person.getField(i));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Watches the file an address book was opened from or saved to, and shows the
+ * changes other programs make to it. Once the file has stopped changing for the
+ * settle delay it is read again in the background. The rows it now holds are
+ * then compared with the address book by id on the Event Dispatch Thread, and
+ * only the rows added, changed or removed are updated in the table. Rows edited
+ * here since the last save keep their edits.
+ * 
+ * Changes are only shown while the address book is in sync with the file and no
+ * save to it is being written, as until then the file does not hold what the
+ * address book was last read from or saved as. Changes waiting on a save are
+ * shown once it ends and the file has settled again. Changes made by saves from
+ * here are recognised by the content hash they record, and not read back.
+ */
+public class FileWatcher implements AutoCloseable {
+
+    // Default time in milliseconds the file must go unchanged before it is read
+    public static final int DEFAULT_SETTLE_DELAY = 250;
+
+    private final AddressBookController controller;
+    private final AddressBook addressBook;
+    private final int settleDelay;
+    private final WatchService service;
+
+    // The file watched and the key of its folder, or null while none is
+    private volatile File watched = null;
+    private WatchKey key = null;
+
+    // Whether the file changed since it was last read
+    private volatile boolean dirty = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor to show the changes other programs make to the file of an
+     * address book, with the default settle delay.
+     * 
+     * @param controller  The controller saving the address book.
+     * @param addressBook The address book to update.
+     * @throws IOException Thrown if files cannot be watched.
+     */
+    public FileWatcher(AddressBookController controller, AddressBook addressBook) throws IOException {
+        this(controller, addressBook, DEFAULT_SETTLE_DELAY);
+    }
+
+    /**
+     * Constructor to show the changes other programs make to the file of an
+     * address book. No file is watched until {@link #watch(File)} is called.
+     * 
+     * @param controller  The controller saving the address book.
+     * @param addressBook The address book to update.
+     * @param settleDelay The time in milliseconds the file must go unchanged
+     *                    before it is read.
+     * @throws IOException              Thrown if files cannot be watched.
+     * @throws IllegalArgumentException Thrown if the delay is less than 1.
+     */
+    public FileWatcher(AddressBookController controller, AddressBook addressBook, int settleDelay)
+            throws IOException {
+        if (settleDelay < 1) {
+            throw new IllegalArgumentException("Settle delay must be at least 1");
+        }
+        this.controller = controller;
+        this.addressBook = addressBook;
+        this.settleDelay = settleDelay;
+        service = FileSystems.getDefault().newWatchService();
+        Thread watcher = new Thread(this::run, "file-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Starts watching a file in place of the one watched before.
+     * 
+     * @param file The file to watch, or null to stop watching.
+     * @throws IOException Thrown if the folder of the file cannot be watched.
+     */
+    public synchronized void watch(File file) throws IOException {
+        if (key != null) {
+            key.cancel();
+            key = null;
+        }
+        dirty = false;
+        watched = null;
+        if (file != null) {
+            Path folder = file.getAbsoluteFile().getParentFile().toPath();
+            key = folder.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watched = file.getAbsoluteFile();
+        }
+    }
+
+    /**
+     * Stops watching, without waiting for a read in progress to finish. Changes
+     * read but not yet shown are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            service.close();
+        } catch (IOException exception) {
+            // Nothing is watched once closed, whether or not the service let go
+        }
+    }
+
+    /**
+     * A helper function run by the watching thread, reading the file once it has
+     * settled after each change.
+     */
+    private void run() {
+        try {
+            while (!closed) {
+                WatchKey changed = service.poll(settleDelay, TimeUnit.MILLISECONDS);
+                if (changed != null) {
+                    File file = watched;
+                    for (WatchEvent<?> event : changed.pollEvents()) {
+                        if (file != null && concerns(event, file)) {
+                            dirty = true;
+                        }
+                    }
+                    changed.reset();
+                } else if (dirty) {
+                    dirty = false;
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException exception) {
+            // Closed, so stop watching
+        }
+    }
+
+    /**
+     * A helper function to check whether an event is a change to the watched
+     * file, or to the write-ahead log SQLite keeps beside it.
+     * 
+     * @param event The event.
+     * @param file  The watched file.
+     * @return True if the event concerns the file, false otherwise.
+     */
+    private static boolean concerns(WatchEvent<?> event, File file) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            return true;
+        }
+        String name = event.context().toString();
+        return name.equals(file.getName()) || name.equals(file.getName() + "-wal");
+    }
+
+    /**
+     * A helper function to read the watched file and show its changes on the
+     * Event Dispatch Thread. The file is read again later if a save was written
+     * meanwhile.
+     */
+    private void reload() {
+        File file = watched;
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        if (addressBook.writesThrough()) {
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    ((DatabaseAddressBook) addressBook).refresh();
+                } catch (SQLException exception) {
+                    // Tried again on the next change
+                }
+            });
+            return;
+        }
+
+        long saves = controller.quietSaveCount();
+        if (saves < 0) {
+            // Read once the save is written
+            dirty = true;
+            return;
+        }
+        if (controller.holdsLastSave(file)) {
+            // Changed by a save from here, so there is nothing new to show
+            return;
+        }
+        AddressBook saved = new AddressBook();
+        try {
+            FileSystem.readFile(saved, file);
+        } catch (SQLException | IOException | RuntimeException exception) {
+            // Most likely caught part way through being written, so tried again on the next change
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (closed || !file.equals(watched) || !addressBook.isSyncedWith(file)) {
+                return;
+            }
+            if (controller.isQuietSince(saves)) {
+                addressBook.mergeSaved(saved);
+            } else {
+                dirty = true;
+            }
+        });
+    }
+}
\ No newline at end of file
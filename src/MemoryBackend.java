@@ -0,0 +1,138 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Keeps address books in memory under file names ending in {@link #EXTENSION},
+ * without writing anything to disk. Books saved to it last only as long as the
+ * backend, which makes it useful for scratch books and for testing.
+ */
+public class MemoryBackend implements StorageBackend {
+
+    // File name extension of address books kept in memory
+    public static final String EXTENSION = ".memory";
+
+    // Number of rows copied between checks for cancellation
+    private static final int PROGRESS_STEP = 1000;
+
+    /**
+     * The rows of one saved address book and their ids.
+     */
+    private static final class Stored {
+        private final Person[] persons;
+        private final long[] ids;
+
+        private Stored(Person[] persons, long[] ids) {
+            this.persons = persons;
+            this.ids = ids;
+        }
+    }
+
+    // Saved address books by absolute file
+    private final Map<File, Stored> books = new HashMap<>();
+
+    /**
+     * Getter for the name of the backend.
+     * 
+     * @return The name of the format.
+     */
+    @Override
+    public String getName() {
+        return "In memory";
+    }
+
+    /**
+     * Books kept in memory have no optional abilities.
+     * 
+     * @return No capabilities.
+     */
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Collections.unmodifiableSet(EnumSet.noneOf(Capability.class));
+    }
+
+    /**
+     * Checks whether an address book has been saved under a file name.
+     * 
+     * @param file The file to check.
+     * @return True if a book is kept under the file, false otherwise.
+     */
+    @Override
+    public synchronized boolean canRead(File file) {
+        return books.containsKey(file.getAbsoluteFile());
+    }
+
+    /**
+     * Checks whether a file is named to be kept in memory.
+     * 
+     * @param file The file to check.
+     * @return True if the file name ends in {@link #EXTENSION}.
+     */
+    @Override
+    public boolean canWrite(File file) {
+        return file.getName().toLowerCase().endsWith(EXTENSION);
+    }
+
+    /**
+     * Replaces the contents of an address book with a book kept in memory.
+     * 
+     * @param addressBook The address book to read the book into.
+     * @param file        The file the book was saved under.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws FileNotFoundException Thrown if no book is kept under the file.
+     */
+    @Override
+    public void read(AddressBook addressBook, File file, ProgressListener listener) throws FileNotFoundException {
+        Stored stored;
+        synchronized (this) {
+            stored = books.get(file.getAbsoluteFile());
+        }
+        if (stored == null) {
+            throw new FileNotFoundException("No address book is kept in memory as " + file.getName());
+        }
+        listener.progress(0, stored.persons.length);
+        List<Person> persons = Arrays.asList(stored.persons);
+        addressBook.replaceAll(persons, stored.ids, null);
+        listener.progress(stored.persons.length, stored.persons.length);
+    }
+
+    /**
+     * Keeps a copy of an address book in memory under a file name, replacing any
+     * book kept there before.
+     * 
+     * @param addressBook The address book to write.
+     * @param file        The file to keep the book under.
+     * @param listener    The listener to report the number of rows written to.
+     * @throws CancellationException Thrown if the writing thread is interrupted,
+     *                               in which case the book kept before is kept.
+     */
+    @Override
+    public void write(AddressBook addressBook, File file, ProgressListener listener) {
+        int rows = addressBook.getRowCount();
+        Person[] persons = new Person[rows];
+        long[] ids = new long[rows];
+        listener.progress(0, rows);
+        for (int row = 0; row < rows; row++) {
+            persons[row] = addressBook.get(row);
+            ids[row] = addressBook.getId(row);
+            if ((row + 1) % PROGRESS_STEP == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("File operation cancelled");
+                }
+                listener.progress(row + 1, rows);
+            }
+        }
+        synchronized (this) {
+            books.put(file.getAbsoluteFile(), new Stored(persons, ids));
+        }
+        listener.progress(rows, rows);
+        addressBook.markSaved(null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A read-only table model that shows an address book saved on disk without
+ * loading it into memory. Rows are read a page at a time as the table asks for
+ * them, using the rowid of the last row of the previous page as the key of the
+ * next one, and only a fixed number of pages are kept in memory.
+ */
+public class PagedAddressBookModel extends AbstractTableModel implements AutoCloseable {
+
+    // Default number of rows read from the file at once
+    public static final int DEFAULT_PAGE_SIZE = 256;
+
+    // Default number of pages kept in memory
+    public static final int DEFAULT_CACHED_PAGES = 16;
+
+    private static final long serialVersionUID = 1L; // For serialization
+    private static final long UNKNOWN = Long.MIN_VALUE; // Marks a page end not yet found
+
+    private final transient Connection connection;
+    private final transient PreparedStatement pageQuery;
+    private final transient PreparedStatement skipQuery;
+    private final int pageSize;
+    private final int rowCount;
+
+    // Rowid of the last row of each page, filled in as pages are found
+    private final long[] pageEnds;
+
+    // Least recently used pages are evicted once more than the cache size are held
+    private final transient Map<Integer, Person[]> pages;
+
+    // Strings of the fields that repeat across persons, shared by every page read
+    private final transient StringPool strings = new StringPool();
+
+    /**
+     * Constructor to show a saved address book using the default page and cache
+     * sizes.
+     * 
+     * @param file The saved address book to show.
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     * @throws SQLException          Thrown if the file was not in correct format.
+     */
+    public PagedAddressBookModel(File file) throws FileNotFoundException, SQLException {
+        this(file, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+
+    /**
+     * Constructor to show a saved address book.
+     * 
+     * @param file        The saved address book to show.
+     * @param pageSize    The number of rows read from the file at once.
+     * @param cachedPages The maximum number of pages kept in memory.
+     * @throws FileNotFoundException    Thrown if the file is unreadable or does
+     *                                  not exist.
+     * @throws SQLException             Thrown if the file was not in correct
+     *                                  format.
+     * @throws IllegalArgumentException Thrown if the page or cache size is less
+     *                                  than 1.
+     */
+    public PagedAddressBookModel(File file, int pageSize, int cachedPages)
+            throws FileNotFoundException, SQLException {
+        if (pageSize < 1 || cachedPages < 1) {
+            throw new IllegalArgumentException("Page and cache sizes must be at least 1");
+        }
+
+        // Throw exception if the file is not usable or doesn't exist
+        FileSystem.requireReadable(file);
+
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, Person[]>(cachedPages * 2, 0.75f, true) {
+            private static final long serialVersionUID = 1L; // For serialization
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Person[]> eldest) {
+                return size() > cachedPages;
+            }
+        };
+
+        connection = FileSystem.connect(file, false);
+        try {
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM persons")) {
+                rowCount = rs.getInt(1);
+            }
+            pageQuery = connection.prepareStatement(
+                    "SELECT rowid, lastName, firstName, address, city, state, zip, phone FROM persons WHERE rowid > ? ORDER BY rowid LIMIT ?");
+            skipQuery = connection
+                    .prepareStatement("SELECT rowid FROM persons WHERE rowid > ? ORDER BY rowid LIMIT 1 OFFSET ?");
+        } catch (SQLException exception) {
+            connection.close();
+            throw exception;
+        }
+
+        pageEnds = new long[(rowCount + pageSize - 1) / pageSize];
+        Arrays.fill(pageEnds, UNKNOWN);
+    }
+
+    /**
+     * Get the person at the given index, reading its page from the file if it is
+     * not in memory.
+     * 
+     * @param index The table index of the person to get.
+     * @return A person object of the person in that location.
+     * @throws IndexOutOfBoundsException Thrown if the index is not a row of the
+     *                                   table.
+     * @throws IllegalStateException     Thrown if the page could not be read.
+     */
+    public Person get(int index) {
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + rowCount);
+        }
+        int page = index / pageSize;
+        Person[] rows = pages.get(page);
+        if (rows == null) {
+            try {
+                rows = readPage(page);
+            } catch (SQLException exception) {
+                throw new IllegalStateException("Unable to read address book page " + page, exception);
+            }
+            pages.put(page, rows);
+        }
+        return rows[index % pageSize];
+    }
+
+    /**
+     * Getter for the number of pages currently held in memory.
+     * 
+     * @return The number of cached pages.
+     */
+    int getCachedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * A helper function to read one page of rows from the file.
+     * 
+     * @param page The page number to read.
+     * @return The persons on that page.
+     * @throws SQLException Thrown if the rows could not be read.
+     */
+    private Person[] readPage(int page) throws SQLException {
+        Person[] rows = new Person[Math.min(pageSize, rowCount - page * pageSize)];
+        pageQuery.setLong(1, pageStart(page));
+        pageQuery.setInt(2, rows.length);
+        int count = 0;
+        try (ResultSet rs = pageQuery.executeQuery()) {
+            while (rs.next() && count < rows.length) {
+                rows[count++] = Person.trusted(rs.getString("firstName"), rs.getString("lastName"),
+                        rs.getString("address"), strings.intern(rs.getString("city")),
+                        strings.intern(rs.getString("state")), rs.getString("zip"),
+                        rs.getString("phone"));
+                pageEnds[page] = rs.getLong(1);
+            }
+        }
+        if (count < rows.length) {
+            throw new SQLException("Address book file changed while being shown");
+        }
+        return rows;
+    }
+
+    /**
+     * A helper function to find the key rows of a page follow. Pages not visited
+     * yet are skipped over from the closest page before them whose end is known.
+     * 
+     * @param page The page number to find the start of.
+     * @return The rowid the first row of the page is greater than.
+     * @throws SQLException Thrown if the key could not be read.
+     */
+    private long pageStart(int page) throws SQLException {
+        if (page == 0) {
+            return Long.MIN_VALUE;
+        }
+        if (pageEnds[page - 1] != UNKNOWN) {
+            return pageEnds[page - 1];
+        }
+
+        // Find the closest known page end before the page
+        int known = page - 2;
+        while (known >= 0 && pageEnds[known] == UNKNOWN) {
+            known--;
+        }
+        long start = known < 0 ? Long.MIN_VALUE : pageEnds[known];
+
+        // Skip the rows between that page end and the end of the previous page
+        skipQuery.setLong(1, start);
+        skipQuery.setInt(2, (page - 1 - known) * pageSize - 1);
+        try (ResultSet rs = skipQuery.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Address book file changed while being shown");
+            }
+            pageEnds[page - 1] = rs.getLong(1);
+        }
+        return pageEnds[page - 1];
+    }
+
+    /**
+     * Closes the connection to the file. The model shows no rows afterwards that
+     * were not already in memory.
+     * 
+     * @throws SQLException Thrown if the connection could not be closed.
+     */
+    @Override
+    public void close() throws SQLException {
+        pages.clear();
+        strings.clear();
+        connection.close();
+    }
+
+    /**
+     * An overridden function to get the number of rows in the table.
+     * 
+     * @return The number of rows in the table.
+     */
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * An overridden function to get the number of columns in the table.
+     * 
+     * @return The number of columns in the table.
+     */
+    @Override
+    public int getColumnCount() {
+        return Person.fields.length;
+    }
+
+    /**
+     * An overridden function to get the value in a specific table cell.
+     * 
+     * @return The contents of the specified table cell.
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        return get(row).getField(column);
+    }
+
+    /**
+     * The column name of the specified column.
+     */
+    @Override
+    public String getColumnName(int column) {
+        return Person.fields[column];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,303 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads large address book files on several threads at once. The persons table
+ * is split into ranges of row ids, and each range is read through its own
+ * read-only connection, building and checking its persons on its own thread.
+ * The ranges are joined in id order and shown in the address book in a single
+ * step, exactly as {@link FileSystem#readFile(AddressBook, FileSession,
+ * ProgressListener)} would show them. Files too small to gain from more threads
+ * are read on the calling thread.
+ */
+public class ParallelLoader {
+
+    // Default fewest rows worth reading on a thread of their own
+    public static final int DEFAULT_MIN_RANGE_ROWS = 20000;
+
+    // Number of rows read by a range between checks for cancellation
+    private static final int PROGRESS_STEP = 1000;
+
+    // Time in milliseconds between progress reports while ranges are read
+    private static final int PROGRESS_INTERVAL = 100;
+
+    // Statements run on the session of the file
+    private static final String ROW_SPAN = "SELECT COUNT(*), MIN(rowid), MAX(rowid) FROM persons";
+    private static final String DATA_VERSION = "PRAGMA data_version";
+
+    // Statement run on the connection of each range
+    private static final String SELECT_RANGE = "SELECT rowid, lastName, firstName, address, city, state, zip, phone FROM persons WHERE rowid >= ? AND rowid <= ? ORDER BY rowid";
+
+    private final int threads;
+    private final int minRangeRows;
+
+    /**
+     * The persons read from one range of row ids.
+     */
+    private static final class Range {
+        private final ArrayList<Person> persons = new ArrayList<>();
+        private long[] ids = new long[16];
+    }
+
+    /**
+     * Constructor for a loader reading on one thread per processor.
+     */
+    public ParallelLoader() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_RANGE_ROWS);
+    }
+
+    /**
+     * Constructor for a loader.
+     * 
+     * @param threads      The most threads to read on.
+     * @param minRangeRows The fewest rows worth reading on a thread of their own.
+     * @throws IllegalArgumentException Thrown if the number of threads or rows is
+     *                                  less than 1.
+     */
+    public ParallelLoader(int threads, int minRangeRows) {
+        if (threads < 1 || minRangeRows < 1) {
+            throw new IllegalArgumentException("Thread count and range size must be at least 1");
+        }
+        this.threads = threads;
+        this.minRangeRows = minRangeRows;
+    }
+
+    /**
+     * Reads an address book file into an address book, reporting progress as rows
+     * are read. The address book is only changed once every row has been read, so
+     * a failed or cancelled read leaves it untouched.
+     * 
+     * @param addressBook The address book to read the data into.
+     * @param file        The file to read the data from.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws SQLException          Thrown if the data in the file is not in the
+     *                               expected SQL format.
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     * @throws CancellationException Thrown if the reading thread is interrupted.
+     */
+    public void load(AddressBook addressBook, File file, ProgressListener listener)
+            throws SQLException, FileNotFoundException {
+        FileSystem.requireReadable(file);
+        try (FileSession session = new FileSession(file, false)) {
+            load(addressBook, session, listener);
+        }
+    }
+
+    /**
+     * Reads an address book file through an open session on it, reporting
+     * progress as rows are read. Files in an older layout are read without being
+     * changed. The address book is only changed once every row has been
+     * read, so a failed or cancelled read leaves it untouched.
+     * 
+     * @param addressBook The address book to read the data into.
+     * @param session     The session on the file to read the data from.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws SQLException          Thrown if the data in the file is not in the
+     *                               expected SQL format, or the file was changed
+     *                               by another program while it was read.
+     * @throws CancellationException Thrown if the reading thread is interrupted.
+     */
+    public void load(AddressBook addressBook, FileSession session, ProgressListener listener) throws SQLException {
+        synchronized (session) {
+            Schema.requireReadable(session.getConnection());
+            if (addressBook.isSyncedWith(session.getFile()) && FileSystem.holds(session, addressBook)) {
+                addressBook.markSaved(session.getFile());
+                listener.progress(0, 0);
+                return;
+            }
+            long total;
+            long first;
+            long last;
+            try (ResultSet rs = session.prepare(ROW_SPAN).executeQuery()) {
+                total = rs.getLong(1);
+                first = rs.getLong(2);
+                last = rs.getLong(3);
+            }
+            int count = (int) Math.min(threads, total / minRangeRows);
+            if (count < 2) {
+                FileSystem.readFile(addressBook, session, listener);
+                return;
+            }
+            listener.progress(0, total);
+
+            // Other programs changing the file while the ranges are read would mix
+            // rows from before and after the change
+            long version = dataVersion(session);
+            Range[] ranges = readRanges(session.getFile(), first, last, count, total, addressBook.stringPool(),
+                    listener);
+            if (dataVersion(session) != version) {
+                throw new SQLException("Address book file changed while being read");
+            }
+
+            // Join the ranges, which are in id order
+            int size = 0;
+            for (Range range : ranges) {
+                size += range.persons.size();
+            }
+            List<Person> persons = new ArrayList<>(size);
+            long[] ids = new long[size];
+            for (Range range : ranges) {
+                System.arraycopy(range.ids, 0, ids, persons.size(), range.persons.size());
+                persons.addAll(range.persons);
+            }
+            listener.progress(size, total);
+            addressBook.replaceAll(persons, ids, session.getFile());
+        }
+    }
+
+    /**
+     * A helper function to read the rows of a file split into ranges of ids of
+     * equal width, one thread per range, reporting progress from the calling
+     * thread while they are read.
+     * 
+     * @param file     The file to read.
+     * @param first    The lowest row id in the file.
+     * @param last     The highest row id in the file.
+     * @param count    The number of ranges to split the ids into.
+     * @param total    The number of rows in the file.
+     * @param strings  The pool to share repeated field values through.
+     * @param listener The listener to report the number of rows read to.
+     * @return The ranges read, in id order.
+     * @throws SQLException          Thrown if a range could not be read.
+     * @throws CancellationException Thrown if the reading thread is interrupted.
+     */
+    private static Range[] readRanges(File file, long first, long last, int count, long total, StringPool strings,
+            ProgressListener listener) throws SQLException {
+        AtomicLong read = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(count, task -> {
+            Thread thread = new Thread(task, "parallel-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Range>> pending = new ArrayList<>(count);
+            long width = (last - first) / count + 1;
+            for (int i = 0; i < count; i++) {
+                long low = first + i * width;
+                long high = i == count - 1 ? last : low + width - 1;
+                pending.add(pool.submit(() -> readRange(file, low, high, strings, read)));
+            }
+
+            Range[] ranges = new Range[count];
+            for (int i = 0; i < count; i++) {
+                ranges[i] = await(pending.get(i), read, total, listener);
+            }
+            return ranges;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * A helper function to read the rows of one range of ids through a read-only
+     * connection of its own.
+     * 
+     * @param file    The file to read.
+     * @param low     The lowest id of the range.
+     * @param high    The highest id of the range.
+     * @param strings The pool to share repeated field values through.
+     * @param read    The number of rows read by every range so far.
+     * @return The range read.
+     * @throws SQLException          Thrown if the range could not be read.
+     * @throws CancellationException Thrown if the load is cancelled.
+     */
+    private static Range readRange(File file, long low, long high, StringPool strings, AtomicLong read)
+            throws SQLException {
+        Range range = new Range();
+        try (Connection connection = FileSystem.connect(file, false)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA query_only = ON");
+            }
+            try (PreparedStatement query = connection.prepareStatement(SELECT_RANGE)) {
+                query.setLong(1, low);
+                query.setLong(2, high);
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        Person p = Person.trusted(rs.getString("firstName"), rs.getString("lastName"),
+                                rs.getString("address"), strings.intern(rs.getString("city")),
+                                strings.intern(rs.getString("state")), rs.getString("zip"),
+                                rs.getString("phone"));
+                        if (range.persons.size() == range.ids.length) {
+                            range.ids = Arrays.copyOf(range.ids, range.ids.length * 2);
+                        }
+                        range.ids[range.persons.size()] = rs.getLong(1);
+                        range.persons.add(p);
+                        if (range.persons.size() % PROGRESS_STEP == 0) {
+                            read.addAndGet(PROGRESS_STEP);
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new CancellationException("File operation cancelled");
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        read.addAndGet(range.persons.size() % PROGRESS_STEP);
+        return range;
+    }
+
+    /**
+     * A helper function to wait for a range to be read, reporting the rows read by
+     * every range in the meantime.
+     * 
+     * @param future   The pending range.
+     * @param read     The number of rows read by every range so far.
+     * @param total    The number of rows in the file.
+     * @param listener The listener to report the number of rows read to.
+     * @return The range read.
+     * @throws SQLException          Thrown if the range could not be read.
+     * @throws CancellationException Thrown if the reading thread is interrupted.
+     */
+    private static Range await(Future<Range> future, AtomicLong read, long total, ProgressListener listener)
+            throws SQLException {
+        while (true) {
+            try {
+                return future.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException exception) {
+                listener.progress(Math.min(read.get(), total), total);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("File operation cancelled");
+            } catch (ExecutionException exception) {
+                if (exception.getCause() instanceof SQLException) {
+                    throw (SQLException) exception.getCause();
+                }
+                if (exception.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) exception.getCause();
+                }
+                throw new IllegalStateException(exception.getCause());
+            }
+        }
+    }
+
+    /**
+     * A helper function to read the counter SQLite advances whenever another
+     * connection changes the file.
+     * 
+     * @param session The session on the file.
+     * @return The data version of the file.
+     * @throws SQLException Thrown if the version could not be read.
+     */
+    private static long dataVersion(FileSession session) throws SQLException {
+        try (ResultSet rs = session.prepare(DATA_VERSION).executeQuery()) {
+            return rs.getLong(1);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Named sets of SQLite settings applied when an address book file is opened.
+ * Each profile trades durability against throughput differently: "durable"
+ * keeps SQLite's safest defaults, "balanced" uses write-ahead logging with a
+ * larger cache, and "bulk-load" gives up crash safety for the fastest writes.
+ */
+public enum PersistenceProfile {
+    DURABLE("durable", "DELETE", "FULL", -2000, 0, "DEFAULT"),
+    BALANCED("balanced", "WAL", "NORMAL", -16384, 64L << 20, "MEMORY"),
+    BULK_LOAD("bulk-load", "MEMORY", "OFF", -65536, 256L << 20, "MEMORY");
+
+    private final String name;
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String tempStore;
+
+    /**
+     * Constructor for a profile.
+     * 
+     * @param name        The name of the profile.
+     * @param journalMode The journal_mode used when writing.
+     * @param synchronous The synchronous level.
+     * @param cacheSize   The cache_size, negative for a size in KiB.
+     * @param mmapSize    The mmap_size in bytes, 0 to disable memory mapping.
+     * @param tempStore   Where temporary tables and indexes are kept.
+     */
+    PersistenceProfile(String name, String journalMode, String synchronous, int cacheSize, long mmapSize,
+            String tempStore) {
+        this.name = name;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+    }
+
+    /**
+     * Finds a profile by its name.
+     * 
+     * @param name The name of the profile, such as "balanced".
+     * @return The profile with that name.
+     * @throws IllegalArgumentException Thrown if no profile has that name.
+     */
+    public static PersistenceProfile forName(String name) {
+        for (PersistenceProfile profile : values()) {
+            if (profile.name.equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown persistence profile: " + name);
+    }
+
+    /**
+     * Applies this profile's settings to a newly opened connection. The journal
+     * mode is stored in the file itself, so it is only changed by connections that
+     * are going to write.
+     * 
+     * @param connection The connection to configure, not inside a transaction.
+     * @param write      Whether the connection will be used to write.
+     * @throws SQLException Thrown if a setting could not be applied.
+     */
+    public void apply(Connection connection, boolean write) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (write) {
+                statement.execute("PRAGMA journal_mode = " + journalMode);
+            }
+            statement.execute("PRAGMA synchronous = " + synchronous);
+            statement.execute("PRAGMA cache_size = " + cacheSize);
+            statement.execute("PRAGMA mmap_size = " + mmapSize);
+            statement.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+
+    /**
+     * An overridden toString() function to print the profile's name.
+     * 
+     * @return The name of the profile.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
\ No newline at end of file
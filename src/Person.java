@@ -1,55 +1,40 @@
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
 
 /**
  * The Person class which stores all contact information about a single person.
  * This class is the main content of the program. Multiple person objects are
  * stored in an address book
+ * 
+ * To keep large address books small, the names and address are packed into one
+ * array of Latin-1 bytes and the zip and phone are held as numbers. Each field
+ * is decoded when it is asked for. The city and state are held as strings, so
+ * they can be shared with the other persons of an address book. Persons whose
+ * fields cannot be packed, such as names outside Latin-1 or fields read
+ * unchecked from a file another program changed, hold every field as a string.
  */
 public class Person {
 
     // List of field names for address book
     protected static final String[] fields = { "Last Name", "First Name", "Address", "City", "State", "ZIP", "Phone" };
 
-    // Person fields
-    private String firstName;
-    private String lastName;
-    private String address;
-    private String city;
-    private String state;
-    private String zip;
-    private String phone;
+    // Digits in a zip and a phone number
+    private static final int ZIP_DIGITS = 5;
+    private static final int PHONE_DIGITS = 10;
 
-    private static String states = "|AL|AK|AS|AZ|AR|CA|CO|CT|DE|DC|FM|FL|GA|GU|HI|ID|IL|IN|IA|KS|KY|LA|ME|MH|MD|MA|MI|MN|MS|MO|MT|NE|NV|NH|NJ|NM|NY|NC|ND|MP|OH|OK|OR|PW|PA|PR|RI|SC|SD|TN|TX|UT|VT|VI|VA|WA|WV|WI|WY|";
+    // Last name, first name and address as Latin-1 bytes back to back, with the
+    // first name starting at firstNameStart and the address at addressStart
+    private byte[] packed;
+    private int firstNameStart;
+    private int addressStart;
 
-    /**
-     * Helper function to check valid state 2 letter code.
-     * 
-     * @param state query to be checked
-     * @return Boolean True is valid state code, false if not
-     */
-    private static boolean isStateAbbreviation(String state) {
-        // Avoid | Being added as input, as it would lead to a false positive.
-        if (state.contains("|")) {
-            return false;
-        }
-
-        // Change to uppercase for comparison
-        state = state.toUpperCase();
-
-        // Index of returns -1 if nothing found 0 could be considered valid
-        return state.length() == 2 && states.indexOf(state) >= 0;
-    }
+    // Person fields held as they are
+    private String city;
+    private String state;
+    private int zip;
+    private long phone;
 
-    /**
-     * A helper function to check regex.
-     * 
-     * @param string The string to check
-     * @param regex  The regex to compare the string to
-     * @return Returns true if the regex is satisfied, false otherwise.
-     */
-    private boolean checkRegex(String string, String regex) {
-        return Pattern.compile(regex).matcher(string).matches();
-    }
+    // Every field in table order, for persons that could not be packed, or null
+    private String[] unpacked;
 
     /**
      * A constructor to instantiate a new person.
@@ -73,42 +58,72 @@ public class Person {
             String phone) {
         // Check if the person's first name, last name, state, zip and phone number meet
         // requirements
-        if (firstName == null || firstName.isEmpty()) {
-            throw new IllegalArgumentException("First name cannot be empty");
-        }
-        if (lastName == null || lastName.isEmpty()) {
-            throw new IllegalArgumentException("Last name cannot be empty");
-        }
-        if (!checkRegex(firstName, "\\S{2,}")) {
-            throw new IllegalArgumentException("First Name requires at least 2 characters.");
-        }
-        if (!checkRegex(lastName, "\\S{2,}")) {
-            throw new IllegalArgumentException("Last Name requires at least 2 characters.");
-        }
-        if (!isStateAbbreviation(state)) {
-            throw new IllegalArgumentException("State Must be 2 Letter Code.");
-        }
-        if (!checkRegex(address, "^[a-zA-Z0-9 ]{2,50}")) {
-            throw new IllegalArgumentException("Address requires at least 2 characters.");
-        }
-        if (!checkRegex(city, "^[a-zA-Z0-9 ]{2,50}")) {
-            throw new IllegalArgumentException("City requires at least 2 characters.");
-        }
-        if (!checkRegex(zip, "\\d{5}")) {
-            throw new IllegalArgumentException("ZipCode Must be 5 numbers");
-        }
-        if (!checkRegex(phone, "\\d{10}")) {
-            throw new IllegalArgumentException("Phone Number Must be 10 numbers");
-        }
+        PersonValidator.validate(firstName, lastName, address, city, state, zip, phone);
 
         // Assignment variables to class attributes
-        this.firstName = firstName;
-        this.lastName = lastName;
-        this.address = address;
+        pack(firstName, lastName, address, city, state, zip, phone);
+    }
+
+    /**
+     * A constructor for the persons made by {@link #trusted}, which fills in
+     * their fields itself.
+     */
+    private Person() {
+    }
+
+    /**
+     * Makes a person from fields read back from a file this program saved,
+     * without checking them again. Every person was checked when it was first
+     * created, so reading a saved file costs little more than the reading.
+     * {@link PersonValidator#verify(java.util.List)} checks persons made this way in bulk.
+     * 
+     * @param firstName The person's first name
+     * @param lastName  The person's last name
+     * @param address   The person's address
+     * @param city      The person's home city
+     * @param state     The person's home state
+     * @param zip       The person's zip
+     * @param phone     The person's phone number
+     * @return The person, whose fields may be invalid or null if the file was
+     *         changed by another program.
+     */
+    static Person trusted(String firstName, String lastName, String address, String city, String state, String zip,
+            String phone) {
+        Person person = new Person();
+        person.pack(firstName, lastName, address, city, state, zip, phone);
+        return person;
+    }
+
+    /**
+     * A helper function to pack the fields of a person, or hold them as strings if
+     * they cannot be packed.
+     * 
+     * @param firstName The person's first name
+     * @param lastName  The person's last name
+     * @param address   The person's address
+     * @param city      The person's home city
+     * @param state     The person's home state
+     * @param zip       The person's zip
+     * @param phone     The person's phone number
+     */
+    private void pack(String firstName, String lastName, String address, String city, String state, String zip,
+            String phone) {
         this.city = city;
         this.state = state;
-        this.zip = zip;
-        this.phone = phone;
+        if (!isLatin1(lastName) || !isLatin1(firstName) || !isLatin1(address) || zip == null
+                || !PersonValidator.isDigits(zip, ZIP_DIGITS) || phone == null
+                || !PersonValidator.isDigits(phone, PHONE_DIGITS)) {
+            unpacked = new String[] { lastName, firstName, address, city, state, zip, phone };
+            return;
+        }
+        firstNameStart = lastName.length();
+        addressStart = firstNameStart + firstName.length();
+        packed = new byte[addressStart + address.length()];
+        copyLatin1(lastName, 0);
+        copyLatin1(firstName, firstNameStart);
+        copyLatin1(address, addressStart);
+        this.zip = Integer.parseInt(zip);
+        this.phone = Long.parseLong(phone);
     }
 
     /**
@@ -117,7 +132,7 @@ public class Person {
      * @return The person's first name.
      */
     public String getFirstName() {
-        return firstName;
+        return getField(1);
     }
 
     /**
@@ -126,7 +141,7 @@ public class Person {
      * @return The person's last name.
      */
     public String getLastName() {
-        return lastName;
+        return getField(0);
     }
 
     /**
@@ -135,7 +150,7 @@ public class Person {
      * @return The person's address.
      */
     public String getAddress() {
-        return address;
+        return getField(2);
     }
 
     /**
@@ -162,7 +177,7 @@ public class Person {
      * @return The person's zip.
      */
     public String getZip() {
-        return zip;
+        return getField(5);
     }
 
     /**
@@ -171,7 +186,7 @@ public class Person {
      * @return The person's phone.
      */
     public String getPhone() {
-        return phone;
+        return getField(6);
     }
 
     /**
@@ -182,20 +197,39 @@ public class Person {
      */
     @Override
     public String toString() {
-        return lastName + ", " + firstName;
+        return getLastName() + ", " + getFirstName();
     }
 
     /**
-     * A function to find if a string exists in any of the person attributes.
+     * A function to find if a string exists in any of the person attributes,
+     * ignoring the case of ASCII letters.
      * 
      * @param findMe The string to find
      * @return True if the string exists in this person object, false otherwise
      */
     public boolean containsString(String findMe) {
-        Pattern p = Pattern.compile(Pattern.quote(findMe), Pattern.CASE_INSENSITIVE);
-        return p.matcher(firstName).find() || p.matcher(lastName).find() || p.matcher(address).find()
-                || p.matcher(city).find() || p.matcher(state).find() || p.matcher(zip).find()
-                || p.matcher(phone).find();
+        return containsString(new SearchNeedle(findMe, false));
+    }
+
+    /**
+     * A function to find if text prepared once for a search exists in any of the
+     * person attributes, without allocating anything, for searching many persons.
+     * 
+     * @param needle The text to find
+     * @return True if the text exists in this person object, false otherwise
+     */
+    boolean containsString(SearchNeedle needle) {
+        if (unpacked != null) {
+            for (String field : unpacked) {
+                if (needle.in(field)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return needle.in(packed, 0, firstNameStart) || needle.in(packed, firstNameStart, addressStart)
+                || needle.in(packed, addressStart, packed.length) || needle.in(city) || needle.in(state)
+                || needle.inDigits(zip, ZIP_DIGITS) || needle.inDigits(phone, PHONE_DIGITS);
     }
 
     /**
@@ -206,23 +240,73 @@ public class Person {
      * @throws IllegalArgumentException Thrown if field is out of bounds.
      */
     public String getField(int field) {
+        if (unpacked != null && field >= 0 && field < unpacked.length) {
+            return unpacked[field];
+        }
         switch (field) {
             case 0:
-                return lastName;
+                return new String(packed, 0, firstNameStart, StandardCharsets.ISO_8859_1);
             case 1:
-                return firstName;
+                return new String(packed, firstNameStart, addressStart - firstNameStart, StandardCharsets.ISO_8859_1);
             case 2:
-                return address;
+                return new String(packed, addressStart, packed.length - addressStart, StandardCharsets.ISO_8859_1);
             case 3:
                 return city;
             case 4:
                 return state;
             case 5:
-                return zip;
+                return digits(zip, ZIP_DIGITS);
             case 6:
-                return phone;
+                return digits(phone, PHONE_DIGITS);
             default:
                 throw new IllegalArgumentException("Field number out of bounds");
         }
     }
+
+    /**
+     * A helper function to check a field can be packed as Latin-1 bytes.
+     * 
+     * @param field The field.
+     * @return True if the field is not null and every character is Latin-1,
+     *         false otherwise.
+     */
+    private static boolean isLatin1(String field) {
+        if (field == null) {
+            return false;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (field.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A helper function to copy a Latin-1 field into the packed bytes.
+     * 
+     * @param field The field.
+     * @param start The index of the packed bytes the field starts at.
+     */
+    private void copyLatin1(String field, int start) {
+        for (int i = 0; i < field.length(); i++) {
+            packed[start + i] = (byte) field.charAt(i);
+        }
+    }
+
+    /**
+     * A helper function to write a number as a fixed count of digits.
+     * 
+     * @param value The number.
+     * @param count The number of digits, with leading zeros as needed.
+     * @return The digits.
+     */
+    private static String digits(long value, int count) {
+        char[] digits = new char[count];
+        for (int i = count - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
 }
\ No newline at end of file
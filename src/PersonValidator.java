@@ -0,0 +1,318 @@
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A static class checking the fields of a person before it is created. Fields
+ * are checked a character at a time against tables built once when the class is
+ * loaded, instead of compiling a regular expression for every check, so a valid
+ * person is checked without allocating anything.
+ * 
+ * The rules are the ones the person constructor has always applied: names are
+ * at least 2 characters with no whitespace, the address and city are 2 to 50
+ * letters, digits or spaces, the state is a 2 letter code in either case, the
+ * zip is 5 digits and the phone is 10 digits.
+ */
+final class PersonValidator {
+
+    // State codes, in the order they have always been listed
+    private static final String STATES = "AL|AK|AS|AZ|AR|CA|CO|CT|DE|DC|FM|FL|GA|GU|HI|ID|IL|IN|IA|KS|KY|LA|ME|MH|MD|MA|MI|MN|MS|MO|MT|NE|NV|NH|NJ|NM|NY|NC|ND|MP|OH|OK|OR|PW|PA|PR|RI|SC|SD|TN|TX|UT|VT|VI|VA|WA|WV|WI|WY";
+
+    // Character classes of the ASCII characters
+    private static final byte DIGIT = 1;
+    private static final byte ADDRESS = 2;
+    private static final byte WHITESPACE = 4;
+    private static final byte[] CLASSES = new byte[128];
+
+    // Whether each pair of upper case letters is a state code, indexed by
+    // 26 * first letter + second letter
+    private static final boolean[] STATE_CODES = new boolean[26 * 26];
+
+    // Lengths allowed for the address and city
+    private static final int MIN_ADDRESS = 2;
+    private static final int MAX_ADDRESS = 50;
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT | ADDRESS;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = ADDRESS;
+            CLASSES[Character.toUpperCase(c)] = ADDRESS;
+        }
+        CLASSES[' '] = ADDRESS | WHITESPACE;
+        for (char c : new char[] { '\t', '\n', '\u000B', '\f', '\r' }) {
+            CLASSES[c] = WHITESPACE;
+        }
+        for (String code : STATES.split("\\|")) {
+            STATE_CODES[stateIndex(code.charAt(0), code.charAt(1))] = true;
+        }
+    }
+
+    /**
+     * A private constructor to prevent instantiation
+     */
+    private PersonValidator() {
+    }
+
+    /**
+     * Checks the fields of a person, in the order the person constructor has
+     * always checked them.
+     * 
+     * @param firstName The person's first name
+     * @param lastName  The person's last name
+     * @param address   The person's address
+     * @param city      The person's home city
+     * @param state     The person's home state
+     * @param zip       The person's zip
+     * @param phone     The person's phone number
+     * @throws IllegalArgumentException Thrown with the reason the first invalid
+     *                                  field was rejected.
+     * @throws NullPointerException     Thrown if the state, address, city, zip or
+     *                                  phone is null.
+     */
+    static void validate(String firstName, String lastName, String address, String city, String state, String zip,
+            String phone) {
+        if (firstName == null || firstName.isEmpty()) {
+            throw new IllegalArgumentException("First name cannot be empty");
+        }
+        if (lastName == null || lastName.isEmpty()) {
+            throw new IllegalArgumentException("Last name cannot be empty");
+        }
+        if (!isName(firstName)) {
+            throw new IllegalArgumentException("First Name requires at least 2 characters.");
+        }
+        if (!isName(lastName)) {
+            throw new IllegalArgumentException("Last Name requires at least 2 characters.");
+        }
+        if (!isStateAbbreviation(state)) {
+            throw new IllegalArgumentException("State Must be 2 Letter Code.");
+        }
+        if (!isAddress(address)) {
+            throw new IllegalArgumentException("Address requires at least 2 characters.");
+        }
+        if (!isAddress(city)) {
+            throw new IllegalArgumentException("City requires at least 2 characters.");
+        }
+        if (!isDigits(zip, 5)) {
+            throw new IllegalArgumentException("ZipCode Must be 5 numbers");
+        }
+        if (!isDigits(phone, 10)) {
+            throw new IllegalArgumentException("Phone Number Must be 10 numbers");
+        }
+    }
+
+    /**
+     * Checks the fields of many persons, such as ones read from a file without
+     * being checked, a field at a time down the whole list rather than a person at
+     * a time. Every invalid person is reported, with the reason the person
+     * constructor would have rejected it, instead of stopping at the first. Null
+     * fields are reported as invalid rather than throwing.
+     * 
+     * @param persons The persons to check.
+     * @return The reason each invalid person was rejected, by its index in the
+     *         list. The map is empty if every person is valid.
+     */
+    static SortedMap<Integer, String> verify(List<Person> persons) {
+        int size = persons.size();
+        String[] reasons = new String[size];
+        for (int i = 0; i < size; i++) {
+            String firstName = persons.get(i).getFirstName();
+            if (firstName == null || firstName.isEmpty()) {
+                reasons[i] = "First name cannot be empty";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            String lastName = persons.get(i).getLastName();
+            if (reasons[i] == null && (lastName == null || lastName.isEmpty())) {
+                reasons[i] = "Last name cannot be empty";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (reasons[i] == null && !isName(persons.get(i).getFirstName())) {
+                reasons[i] = "First Name requires at least 2 characters.";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (reasons[i] == null && !isName(persons.get(i).getLastName())) {
+                reasons[i] = "Last Name requires at least 2 characters.";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            String state = persons.get(i).getState();
+            if (reasons[i] == null && (state == null || !isStateAbbreviation(state))) {
+                reasons[i] = "State Must be 2 Letter Code.";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            String address = persons.get(i).getAddress();
+            if (reasons[i] == null && (address == null || !isAddress(address))) {
+                reasons[i] = "Address requires at least 2 characters.";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            String city = persons.get(i).getCity();
+            if (reasons[i] == null && (city == null || !isAddress(city))) {
+                reasons[i] = "City requires at least 2 characters.";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            String zip = persons.get(i).getZip();
+            if (reasons[i] == null && (zip == null || !isDigits(zip, 5))) {
+                reasons[i] = "ZipCode Must be 5 numbers";
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            String phone = persons.get(i).getPhone();
+            if (reasons[i] == null && (phone == null || !isDigits(phone, 10))) {
+                reasons[i] = "Phone Number Must be 10 numbers";
+            }
+        }
+
+        SortedMap<Integer, String> invalid = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            if (reasons[i] != null) {
+                invalid.put(i, reasons[i]);
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Checks a name is at least 2 characters with no whitespace. Characters outside
+     * the Basic Multilingual Plane count once, as they are one code point.
+     * 
+     * @param name The name to check.
+     * @return True if the name is valid, false otherwise.
+     */
+    static boolean isName(String name) {
+        int length = name.length();
+        int codePoints = length;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < 128 && (CLASSES[c] & WHITESPACE) != 0) {
+                return false;
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(name.charAt(i + 1))) {
+                codePoints--;
+                i++;
+            }
+        }
+        return codePoints >= 2;
+    }
+
+    /**
+     * Checks an address or city is 2 to 50 letters, digits or spaces.
+     * 
+     * @param address The address or city to check.
+     * @return True if the address is valid, false otherwise.
+     */
+    static boolean isAddress(String address) {
+        int length = address.length();
+        if (length < MIN_ADDRESS || length > MAX_ADDRESS) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = address.charAt(i);
+            if (c >= 128 || (CLASSES[c] & ADDRESS) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a string is exactly the given number of digits.
+     * 
+     * @param digits The string to check.
+     * @param count  The number of digits required.
+     * @return True if the string is that many digits, false otherwise.
+     */
+    static boolean isDigits(String digits, int count) {
+        if (digits.length() != count) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            char c = digits.charAt(i);
+            if (c >= 128 || (CLASSES[c] & DIGIT) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a state is a 2 letter state code in either case. Codes of two ASCII
+     * letters are looked up directly. Anything else is upper cased in the default
+     * locale first, as some characters, such as the "fl" ligature, upper case to
+     * two letters, and some locales upper case letters differently or drop accents
+     * while upper casing.
+     * 
+     * @param state The state to check.
+     * @return True if the state is a valid state code, false otherwise.
+     */
+    static boolean isStateAbbreviation(String state) {
+        if (state.length() == 2) {
+            int first = upperLetter(state.charAt(0));
+            int second = upperLetter(state.charAt(1));
+            if (first >= 0 && second >= 0) {
+                return STATE_CODES[stateIndex((char) first, (char) second)];
+            }
+        }
+        if (state.indexOf('|') >= 0) {
+            // A separator would match across two codes in the old lookup, so it is never valid
+            return false;
+        }
+        String upper = state.toUpperCase();
+        return upper.length() == 2 && isAsciiUpper(upper.charAt(0)) && isAsciiUpper(upper.charAt(1))
+                && STATE_CODES[stateIndex(upper.charAt(0), upper.charAt(1))];
+    }
+
+    /**
+     * A helper function to upper case an ASCII letter the same way the default
+     * locale would.
+     * 
+     * @param c The character.
+     * @return The upper case letter, or -1 if the character is not an ASCII letter
+     *         or the default locale upper cases it to something else.
+     */
+    private static int upperLetter(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c;
+        }
+        if (c < 'a' || c > 'z') {
+            return -1;
+        }
+        if (c == 'i') {
+            // Turkish and Azerbaijani upper case i to a dotted capital I
+            String language = Locale.getDefault().getLanguage();
+            if ("tr".equals(language) || "az".equals(language)) {
+                return -1;
+            }
+        }
+        return c - 'a' + 'A';
+    }
+
+    /**
+     * A helper function to check for an upper case ASCII letter.
+     * 
+     * @param c The character.
+     * @return True if the character is from A to Z, false otherwise.
+     */
+    private static boolean isAsciiUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * A helper function to find the entry of a pair of upper case letters in the
+     * state table.
+     * 
+     * @param first  The first letter.
+     * @param second The second letter.
+     * @return The index of the pair.
+     */
+    private static int stateIndex(char first, char second) {
+        return (first - 'A') * 26 + (second - 'A');
+    }
+}
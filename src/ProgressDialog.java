@@ -0,0 +1,135 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A progress dialog class for running long file operations in the background.
+ * The dialog blocks input to its parent while the operation runs, but the Event
+ * Dispatch Thread keeps painting and handling the dialog's cancel button.
+ */
+public class ProgressDialog extends JDialog {
+    /**
+     * An operation run by the dialog on a background thread.
+     * 
+     * @param <T> The type of the operation's result.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        /**
+         * Runs the operation.
+         * 
+         * @param listener The listener to report progress to.
+         * @return The result of the operation.
+         * @throws Exception Thrown if the operation failed.
+         */
+        T run(ProgressListener listener) throws Exception;
+    }
+
+    private static final long serialVersionUID = 1L; // For serialization
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private final JButton cancelButton = new JButton("Cancel");
+    private transient SwingWorker<?, ?> worker = null;
+
+    /**
+     * Constructor for the progress dialog.
+     * 
+     * @param parent  The parent frame for creating dialog ownership.
+     * @param title   The title of the dialog.
+     * @param message The message shown above the progress bar.
+     */
+    public ProgressDialog(Frame parent, String title, String message) {
+        // Call JDialog constructor
+        super(parent);
+        setName("progress");
+
+        // Create message and progress bar
+        JPanel p = new JPanel(new BorderLayout(6, 6));
+        p.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+        p.add(new JLabel(message), BorderLayout.PAGE_START);
+        progressBar.setName("progressBar");
+        progressBar.setStringPainted(true);
+        p.add(progressBar, BorderLayout.CENTER);
+
+        // Create Cancel button at bottom
+        JPanel buttons = new JPanel();
+        cancelButton.setName("cancel");
+        cancelButton.setMnemonic('C');
+        cancelButton.addActionListener(e -> {
+            if (worker != null) {
+                cancelButton.setEnabled(false);
+                cancelButton.setText("Cancelling...");
+                worker.cancel(true);
+            }
+        });
+        buttons.add(cancelButton);
+
+        // Set window properties
+        getContentPane().add(p, BorderLayout.CENTER);
+        getContentPane().add(buttons, BorderLayout.PAGE_END);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        setSize(320, getPreferredSize().height);
+        setTitle(title);
+        setModalityType(ModalityType.DOCUMENT_MODAL);
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Runs a task on a background thread while showing this dialog. Must be called
+     * on the Event Dispatch Thread, which keeps handling events until the task has
+     * finished or been cancelled. A cancelled task is interrupted, and the dialog
+     * stays open until the task has stopped.
+     * 
+     * @param <T>  The type of the task's result.
+     * @param task The task to run.
+     * @return The result of the task.
+     * @throws CancellationException Thrown if the user cancelled the task.
+     * @throws Exception             Thrown if the task failed.
+     */
+    public <T> T run(Task<T> task) throws Exception {
+        AtomicBoolean started = new AtomicBoolean();
+        SwingWorker<T, Void> taskWorker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                started.set(true);
+                try {
+                    return task.run((done, total) -> setProgress(
+                            total > 0 ? (int) Math.min(100, done * 100 / total) : 0));
+                } finally {
+                    // Return control to run() once the task has stopped
+                    SwingUtilities.invokeLater(() -> setVisible(false));
+                }
+            }
+
+            @Override
+            protected void done() {
+                // A task cancelled before it started never runs at all
+                if (!started.get()) {
+                    setVisible(false);
+                }
+            }
+        };
+        taskWorker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        worker = taskWorker;
+        taskWorker.execute();
+
+        // Blocks until the dialog is hidden, while still handling events
+        setVisible(true);
+        dispose();
+
+        try {
+            return taskWorker.get();
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw exception;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+/**
+ * A listener notified as a long running file operation makes progress. Used to
+ * drive progress bars while address books are read or written.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    // A listener that ignores all progress
+    ProgressListener NONE = (done, total) -> {
+    };
+
+    /**
+     * Called each time another part of the operation has completed.
+     * 
+     * @param done  The number of rows processed so far.
+     * @param total The total number of rows to process.
+     */
+    void progress(long done, long total);
+}
\ No newline at end of file
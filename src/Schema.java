@@ -0,0 +1,325 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A static class describing the on-disk layout of address book files. Files
+ * record the version of the layout they use in a schema_version table. Files in
+ * an older layout are read as they are, and migrated to the current one when
+ * changes are next saved to them.
+ * 
+ * Version 0 files have a persons table with no primary key, no indexes and no
+ * schema_version table. Version 1 adds the id INTEGER PRIMARY KEY (an alias of
+ * the rowid) and indexes on lastName, zip and phone. Version 2 adds the
+ * persons_fts full-text index over every field, kept in sync with the persons
+ * table by triggers. Version 3 adds a metadata table holding the content hash of
+ * the address book last saved, which triggers delete as soon as any row of the
+ * persons table is inserted, updated or deleted by anything other than a save.
+ * Address books kept in their file also record the next id to give there, so
+ * the ids of removed rows are never given again.
+ */
+public class Schema {
+
+    // The layout version written by this version of the program
+    public static final int VERSION = 3;
+
+    // Indexes on the persons table, created after rows are bulk inserted
+    private static final String[] INDEXES = {
+            "CREATE INDEX IF NOT EXISTS persons_lastName ON persons (lastName)",
+            "CREATE INDEX IF NOT EXISTS persons_zip ON persons (zip)",
+            "CREATE INDEX IF NOT EXISTS persons_phone ON persons (phone)" };
+
+    // Full-text index reading its content from the persons table, with prefix
+    // indexes so short search terms do not scan every token
+    private static final String CREATE_FTS = "CREATE VIRTUAL TABLE IF NOT EXISTS persons_fts USING fts5("
+            + "firstName, lastName, address, city, state, zip, phone, "
+            + "content='persons', content_rowid='id', prefix='1 2 3')";
+
+    // Triggers keeping the full-text index in sync, created after it is rebuilt
+    private static final String FTS_COLUMNS = "firstName, lastName, address, city, state, zip, phone";
+    private static final String FTS_DELETE = "INSERT INTO persons_fts (persons_fts, rowid, " + FTS_COLUMNS
+            + ") VALUES ('delete', old.id, old.firstName, old.lastName, old.address, old.city, old.state, old.zip, old.phone);";
+    private static final String FTS_INSERT = "INSERT INTO persons_fts (rowid, " + FTS_COLUMNS
+            + ") VALUES (new.id, new.firstName, new.lastName, new.address, new.city, new.state, new.zip, new.phone);";
+    private static final String[] TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS persons_fts_insert AFTER INSERT ON persons BEGIN " + FTS_INSERT + " END",
+            "CREATE TRIGGER IF NOT EXISTS persons_fts_delete AFTER DELETE ON persons BEGIN " + FTS_DELETE + " END",
+            "CREATE TRIGGER IF NOT EXISTS persons_fts_update AFTER UPDATE ON persons BEGIN " + FTS_DELETE + " "
+                    + FTS_INSERT + " END" };
+
+    // Metadata of the file, and triggers forgetting the content hash once rows change
+    private static final String CONTENT_HASH = "content_hash";
+    private static final String NEXT_ID = "next_id";
+    private static final String FORGET_HASH = "DELETE FROM metadata WHERE key = '" + CONTENT_HASH + "';";
+    private static final String[] HASH_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS persons_hash_insert AFTER INSERT ON persons BEGIN " + FORGET_HASH + " END",
+            "CREATE TRIGGER IF NOT EXISTS persons_hash_delete AFTER DELETE ON persons BEGIN " + FORGET_HASH + " END",
+            "CREATE TRIGGER IF NOT EXISTS persons_hash_update AFTER UPDATE ON persons BEGIN " + FORGET_HASH + " END" };
+
+    /**
+     * A private constructor to prevent instantiation
+     */
+    private Schema() {
+    }
+
+    /**
+     * Reads the layout version of an address book file.
+     * 
+     * @param connection The connection to the file.
+     * @return The version recorded in the file, or 0 if none is recorded.
+     * @throws SQLException Thrown if the version could not be read.
+     */
+    public static int version(Connection connection) throws SQLException {
+        if (!hasTable(connection, "schema_version")) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Checks that an address book file can be read by this program without
+     * changing it. Rows of every older layout are read by their rowid, which the
+     * id column of later layouts is an alias of.
+     * 
+     * @param connection The connection to the file.
+     * @return The version recorded in the file, or 0 if none is recorded.
+     * @throws SQLException Thrown if the file uses a newer layout than this
+     *                      program knows, or could not be read.
+     */
+    static int requireReadable(Connection connection) throws SQLException {
+        int version = version(connection);
+        if (version > VERSION) {
+            throw new SQLException("Address book file uses a newer format (version " + version + ")");
+        }
+        return version;
+    }
+
+    /**
+     * Checks whether an address book file has the full-text index of version 2
+     * and later layouts.
+     * 
+     * @param connection The connection to the file.
+     * @return True if the file can be searched through its index.
+     * @throws SQLException Thrown if the version could not be read.
+     */
+    static boolean hasSearchIndex(Connection connection) throws SQLException {
+        return version(connection) >= 2;
+    }
+
+    /**
+     * Checks whether an address book file has a persons table, in any layout.
+     * 
+     * @param connection The connection to the file.
+     * @return True if the file has a persons table, false if it is new.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    static boolean hasPersons(Connection connection) throws SQLException {
+        return hasTable(connection, "persons");
+    }
+
+    /**
+     * Migrates an address book file to the current layout in a single
+     * transaction. Files without a persons table are left as they are.
+     * 
+     * @param connection The connection to the file, not inside a transaction.
+     * @throws SQLException Thrown if the file uses a newer layout than this
+     *                      program knows, or could not be migrated.
+     */
+    static void migrate(Connection connection) throws SQLException {
+        int version = requireReadable(connection);
+        if (version == VERSION || !hasTable(connection, "persons")) {
+            return;
+        }
+
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            // Version 0 to 1: give rows a primary key, keeping their rowids as ids
+            if (version < 1) {
+                createPersons(statement, "persons_migrated");
+                statement.execute(
+                        "INSERT INTO persons_migrated (id, firstName, lastName, address, city, state, zip, phone) "
+                                + "SELECT rowid, firstName, lastName, address, city, state, zip, phone FROM persons");
+                statement.execute("DROP TABLE persons");
+                statement.execute("ALTER TABLE persons_migrated RENAME TO persons");
+            }
+
+            // Versions 2 and 3 only add the full-text index and metadata, built here
+            finish(connection);
+            connection.commit();
+        } catch (SQLException | RuntimeException exception) {
+            connection.rollback();
+            throw exception;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Replaces the persons table of a file with an empty one in the current
+     * layout. Indexes, including the full-text index, are added by
+     * {@link #finish(Connection)} once rows have been inserted, which is faster
+     * than updating them for every row.
+     * 
+     * @param connection The connection to the file.
+     * @throws SQLException Thrown if the table could not be created.
+     */
+    static void create(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // Drop any data in the file, along with its full-text index and triggers
+            statement.execute("DROP TABLE IF EXISTS persons_fts");
+            statement.execute("DROP TABLE IF EXISTS persons");
+            statement.execute("DROP TABLE IF EXISTS metadata");
+
+            // Prepare table for storing data
+            createPersons(statement, "persons");
+        }
+    }
+
+    /**
+     * Creates the indexes of the current layout, rebuilds the full-text index from
+     * the persons table and records the layout version in the file. Any content
+     * hash is left out until the caller records one.
+     * 
+     * @param connection The connection to the file.
+     * @throws SQLException Thrown if the indexes or version could not be written.
+     */
+    static void finish(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String index : INDEXES) {
+                statement.execute(index);
+            }
+            statement.execute(CREATE_FTS);
+            statement.execute("INSERT INTO persons_fts (persons_fts) VALUES ('rebuild')");
+            for (String trigger : TRIGGERS) {
+                statement.execute(trigger);
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS metadata (key TEXT PRIMARY KEY, value)");
+            for (String trigger : HASH_TRIGGERS) {
+                statement.execute(trigger);
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (version INTEGER NOT NULL)");
+            statement.execute("DELETE FROM schema_version");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO schema_version VALUES (?)")) {
+            insert.setInt(1, VERSION);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * Checks whether a file records the given content hash, meaning its persons
+     * table was last written by a save of an address book with that hash.
+     * 
+     * @param connection The connection to the file.
+     * @param hash       The content hash of an address book.
+     * @return True if the file records that hash, false if it records another or
+     *         none.
+     * @throws SQLException Thrown if the metadata could not be read.
+     */
+    static boolean hasContentHash(Connection connection, long hash) throws SQLException {
+        if (version(connection) != VERSION) {
+            return false;
+        }
+        try (PreparedStatement query = connection.prepareStatement("SELECT value FROM metadata WHERE key = ?")) {
+            query.setString(1, CONTENT_HASH);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next() && rs.getLong(1) == hash;
+            }
+        }
+    }
+
+    /**
+     * Records the content hash of the address book just written to a file in the
+     * current layout. Must be called after the rows are written, as writing them
+     * deletes any hash recorded before.
+     * 
+     * @param connection The connection to the file.
+     * @param hash       The content hash of the address book written.
+     * @throws SQLException Thrown if the metadata could not be written.
+     */
+    static void recordContentHash(Connection connection, long hash) throws SQLException {
+        try (PreparedStatement insert = connection
+                .prepareStatement("INSERT OR REPLACE INTO metadata (key, value) VALUES (?, ?)")) {
+            insert.setString(1, CONTENT_HASH);
+            insert.setLong(2, hash);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads the next id to give a new row, as recorded by an address book kept in
+     * the file, or one more than the highest id in the file if that is greater.
+     * Files in a layout older than the metadata record no next id.
+     * 
+     * @param connection The connection to a file with a persons table.
+     * @return The next id to give.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    static long nextId(Connection connection) throws SQLException {
+        if (!hasTable(connection, "metadata")) {
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(rowid), 0) + 1 FROM persons")) {
+                return rs.getLong(1);
+            }
+        }
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT MAX(COALESCE((SELECT value FROM metadata WHERE key = ?), 1), "
+                        + "COALESCE((SELECT MAX(rowid) FROM persons), 0) + 1)")) {
+            query.setString(1, NEXT_ID);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Records the next id to give a new row in a file in the current layout.
+     * 
+     * @param connection The connection to the file.
+     * @param id         The next id to give.
+     * @throws SQLException Thrown if the metadata could not be written.
+     */
+    static void recordNextId(Connection connection, long id) throws SQLException {
+        try (PreparedStatement insert = connection
+                .prepareStatement("INSERT OR REPLACE INTO metadata (key, value) VALUES (?, ?)")) {
+            insert.setString(1, NEXT_ID);
+            insert.setLong(2, id);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * A helper function to create a persons table in the current layout.
+     * 
+     * @param statement The statement to create the table with.
+     * @param name      The name of the table.
+     * @throws SQLException Thrown if the table could not be created.
+     */
+    private static void createPersons(Statement statement, String name) throws SQLException {
+        statement.execute("CREATE TABLE " + name
+                + " (id INTEGER PRIMARY KEY, firstName TEXT, lastName TEXT, address TEXT, city TEXT, state TEXT, zip TEXT, phone TEXT)");
+    }
+
+    /**
+     * A helper function to check whether a file has a table.
+     * 
+     * @param connection The connection to the file.
+     * @param table      The name of the table.
+     * @return True if the table exists, false otherwise.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        try (PreparedStatement query = connection
+                .prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            query.setString(1, table);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,260 @@
+/**
+ * A piece of text to search for in many strings, ignoring case, prepared once
+ * per search. The text is folded to one case once, and strings are then scanned
+ * with the Boyer-Moore-Horspool method, skipping ahead by a table built from the
+ * text, without allocating anything per string searched.
+ * 
+ * Matches are the same as finding the quoted text with a regular expression
+ * compiled with {@link java.util.regex.Pattern#CASE_INSENSITIVE}, and also with
+ * {@link java.util.regex.Pattern#UNICODE_CASE} if Unicode case is asked for.
+ * Text holding characters outside the Basic Multilingual Plane is compared a
+ * code point at a time instead of skipping ahead, as the regular expression
+ * would compare it.
+ * 
+ * Fields packed as Latin-1 bytes or held as numbers are searched where they
+ * are, without decoding them to strings first.
+ */
+final class SearchNeedle {
+
+    // Size of the skip table, indexed by the low bits of a folded character
+    private static final int SKIP_SIZE = 256;
+
+    // Powers of ten, for reading the digits of a number in place
+    private static final long[] POWERS = new long[19];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    private final char[] folded;
+    private final boolean unicodeCase;
+    private final boolean codePoints;
+    private final boolean digits;
+    private final int[] skips = new int[SKIP_SIZE];
+
+    /**
+     * Constructor to prepare text to search for.
+     * 
+     * @param text        The text to search for.
+     * @param unicodeCase True to ignore the case of all letters, false to only
+     *                    ignore the case of ASCII letters.
+     */
+    SearchNeedle(String text, boolean unicodeCase) {
+        this.unicodeCase = unicodeCase;
+        folded = new char[text.length()];
+        boolean surrogates = false;
+        for (int i = 0; i < folded.length; i++) {
+            char c = text.charAt(i);
+            surrogates |= Character.isSurrogate(c);
+            folded[i] = (char) fold(c);
+        }
+        codePoints = surrogates;
+        boolean allDigits = true;
+        for (char c : folded) {
+            allDigits &= c >= '0' && c <= '9';
+        }
+        digits = allDigits;
+        if (codePoints) {
+            // Fold whole code points, as a surrogate pair may fold to another pair
+            for (int i = 0; i < folded.length;) {
+                int c = Character.codePointAt(text, i);
+                i += Character.toChars(fold(c), folded, i);
+            }
+        }
+
+        // A mismatch at the last character skips ahead to the next place that
+        // character is in the text, or past the whole text if it is not there
+        int last = folded.length - 1;
+        for (int i = 0; i < SKIP_SIZE; i++) {
+            skips[i] = folded.length;
+        }
+        for (int i = 0; i < last; i++) {
+            skips[folded[i] % SKIP_SIZE] = last - i;
+        }
+    }
+
+    /**
+     * A function to find if the text is in a string.
+     * 
+     * @param haystack The string to search, which may be null.
+     * @return True if the text is in the string, false otherwise. Empty text is in
+     *         every string that is not null.
+     */
+    boolean in(String haystack) {
+        if (haystack == null) {
+            return false;
+        }
+        if (codePoints) {
+            return inByCodePoint(haystack);
+        }
+        int length = folded.length;
+        if (length == 0) {
+            return true;
+        }
+        int last = length - 1;
+        char end = folded[last];
+        int limit = haystack.length() - length;
+        int start = 0;
+        while (start <= limit) {
+            char c = haystack.charAt(start + last);
+            int foldedChar = fold(c);
+            if ((c == end || foldedChar == end) && matchesAt(haystack, start, last)) {
+                return true;
+            }
+            int skip = skips[foldedChar % SKIP_SIZE];
+            if (c != foldedChar) {
+                // The character may equal a folded character it does not fold to itself
+                skip = Math.min(skip, skips[c % SKIP_SIZE]);
+            }
+            start += skip;
+        }
+        return false;
+    }
+
+    /**
+     * A function to find if the text is in part of an array of Latin-1 bytes.
+     * 
+     * @param latin1 The bytes to search.
+     * @param from   The index of the first byte to search.
+     * @param to     The index after the last byte to search.
+     * @return True if the text is in the bytes, false otherwise. Empty text is in
+     *         all bytes.
+     */
+    boolean in(byte[] latin1, int from, int to) {
+        int length = folded.length;
+        if (length == 0) {
+            return true;
+        }
+        if (codePoints) {
+            // Latin-1 holds no surrogates
+            return false;
+        }
+        int last = length - 1;
+        char end = folded[last];
+        int limit = to - length;
+        int start = from;
+        while (start <= limit) {
+            char c = (char) (latin1[start + last] & 0xFF);
+            int foldedChar = fold(c);
+            if ((c == end || foldedChar == end) && matchesAt(latin1, start, last)) {
+                return true;
+            }
+            int skip = skips[foldedChar % SKIP_SIZE];
+            if (c != foldedChar) {
+                skip = Math.min(skip, skips[c % SKIP_SIZE]);
+            }
+            start += skip;
+        }
+        return false;
+    }
+
+    /**
+     * A function to find if the text is in the digits of a number written with a
+     * fixed count of digits.
+     * 
+     * @param value The number, which is not negative.
+     * @param count The number of digits, with leading zeros as needed.
+     * @return True if the text is in the digits, false otherwise. Empty text is
+     *         in all digits.
+     */
+    boolean inDigits(long value, int count) {
+        if (!digits) {
+            // Only digits fold to digits
+            return false;
+        }
+        for (int start = 0; start + folded.length <= count; start++) {
+            int i = 0;
+            while (i < folded.length && folded[i] == '0' + value / POWERS[count - 1 - start - i] % 10) {
+                i++;
+            }
+            if (i == folded.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A helper function to check the characters before the last one of a place
+     * the text may be.
+     * 
+     * @param haystack The string searched.
+     * @param start    The index the text may start at.
+     * @param count    The number of characters to check.
+     * @return True if the characters match the text, false otherwise.
+     */
+    private boolean matchesAt(String haystack, int start, int count) {
+        for (int i = 0; i < count; i++) {
+            char c = haystack.charAt(start + i);
+            if (folded[i] != c && folded[i] != fold(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A helper function to check the bytes before the last one of a place the
+     * text may be.
+     * 
+     * @param latin1 The bytes searched.
+     * @param start  The index the text may start at.
+     * @param count  The number of bytes to check.
+     * @return True if the bytes match the text, false otherwise.
+     */
+    private boolean matchesAt(byte[] latin1, int start, int count) {
+        for (int i = 0; i < count; i++) {
+            char c = (char) (latin1[start + i] & 0xFF);
+            if (folded[i] != c && folded[i] != fold(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A helper function to find text holding surrogates a code point at a time,
+     * starting only between code points.
+     * 
+     * @param haystack The string to search.
+     * @return True if the text is in the string, false otherwise.
+     */
+    private boolean inByCodePoint(String haystack) {
+        int length = haystack.length();
+        for (int start = 0; start + folded.length <= length;) {
+            int at = start;
+            int i = 0;
+            while (i < folded.length && at < length) {
+                int expected = Character.codePointAt(folded, i);
+                int c = haystack.codePointAt(at);
+                if (expected != c && expected != fold(c)) {
+                    break;
+                }
+                i += Character.charCount(expected);
+                at += Character.charCount(c);
+            }
+            if (i >= folded.length) {
+                return true;
+            }
+            start += Character.charCount(haystack.codePointAt(start));
+        }
+        return false;
+    }
+
+    /**
+     * A helper function to fold a character or code point to one case.
+     * 
+     * @param c The character or code point.
+     * @return The lower case of its upper case, or for ASCII case only the lower
+     *         case of an ASCII capital and the character itself otherwise.
+     */
+    private int fold(int c) {
+        if (unicodeCase) {
+            return Character.toLowerCase(Character.toUpperCase(c));
+        }
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Stores address books as binary snapshots, for files named with
+ * {@link SnapshotFile#EXTENSION}. Opening a snapshot only maps it into memory,
+ * and rows are decoded as they are shown.
+ */
+public class SnapshotBackend implements StorageBackend {
+
+    /**
+     * Getter for the name of the backend.
+     * 
+     * @return The name of the format.
+     */
+    @Override
+    public String getName() {
+        return "Address book snapshot";
+    }
+
+    /**
+     * Snapshots are decoded lazily.
+     * 
+     * @return The capabilities of the backend.
+     */
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Collections.unmodifiableSet(EnumSet.of(Capability.LAZY));
+    }
+
+    /**
+     * Checks whether a file is a snapshot by its magic number.
+     * 
+     * @param file The file to check.
+     * @return True if the file starts like a snapshot, false otherwise.
+     */
+    @Override
+    public boolean canRead(File file) {
+        return SnapshotFile.isSnapshot(file);
+    }
+
+    /**
+     * Checks whether a file is named as a snapshot.
+     * 
+     * @param file The file to check.
+     * @return True if the file name ends in {@link SnapshotFile#EXTENSION}.
+     */
+    @Override
+    public boolean canWrite(File file) {
+        return SnapshotFile.isSnapshotName(file);
+    }
+
+    /**
+     * Shows a snapshot in an address book without decoding any of its rows.
+     * 
+     * @param addressBook The address book to read the file into.
+     * @param file        The file to read.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws IOException Thrown if the file is not a snapshot this program can
+     *                     read.
+     */
+    @Override
+    public void read(AddressBook addressBook, File file, ProgressListener listener) throws IOException {
+        SnapshotFile snapshot = SnapshotFile.open(file);
+        listener.progress(0, snapshot.getRowCount());
+        addressBook.replaceAll(snapshot);
+        listener.progress(snapshot.getRowCount(), snapshot.getRowCount());
+    }
+
+    /**
+     * Writes every row of an address book to a snapshot. The address book is not
+     * in sync with any database file afterwards, so the next save to one writes
+     * every row.
+     * 
+     * @param addressBook The address book to write.
+     * @param file        The file to write.
+     * @param listener    The listener to report the number of rows written to.
+     * @throws IOException Thrown if the snapshot could not be written.
+     */
+    @Override
+    public void write(AddressBook addressBook, File file, ProgressListener listener) throws IOException {
+        SnapshotFile.write(addressBook, file, listener);
+        addressBook.markSaved(null);
+    }
+}
\ No newline at end of file
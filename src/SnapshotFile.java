@@ -0,0 +1,447 @@
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A compact binary snapshot of an address book, read by mapping the file into
+ * memory. Opening a snapshot only reads its header, so even very large books
+ * open at once, and each row is decoded the first time it is asked for.
+ * 
+ * A snapshot is laid out as a header (magic number, format version, row count
+ * and field count), a table of the row ids, a table of the offset of each row in
+ * the file, and then the rows. Each row is its fields in table order, each
+ * written as its length in bytes followed by its UTF-8 text. All numbers are big
+ * endian. The ids are in ascending order, so rows are found by bisection.
+ * 
+ * A mapped file cannot be replaced or deleted on every platform, so before this
+ * program replaces or deletes a snapshot it calls {@link #release(File)}, which
+ * copies the snapshots still open on the file into memory and unmaps them.
+ */
+public final class SnapshotFile {
+
+    // File name extension of address books saved as snapshots
+    public static final String EXTENSION = ".snap";
+
+    // The snapshot format version written by this version of the program
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x41425350; // "ABSP"
+    private static final int HEADER_SIZE = 16;
+    private static final int NULL_LENGTH = -1; // Length written for a missing field
+
+    // Number of rows written between progress reports
+    private static final int PROGRESS_STEP = 1000;
+
+    // Size of the buffer rows are written through
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Snapshots still mapped, by the file they were mapped from
+    private static final Map<File, List<WeakReference<SnapshotFile>>> MAPPED = new HashMap<>();
+
+    // The mapped file, or a copy of it in memory once the file is released
+    private ByteBuffer buffer;
+    private final int rowCount;
+    private final int offsetsStart;
+
+    /**
+     * A private constructor over a mapped snapshot whose header has been checked.
+     * 
+     * @param buffer   The mapped file.
+     * @param rowCount The number of rows in the snapshot.
+     */
+    private SnapshotFile(ByteBuffer buffer, int rowCount) {
+        this.buffer = buffer;
+        this.rowCount = rowCount;
+        this.offsetsStart = HEADER_SIZE + rowCount * 8;
+    }
+
+    /**
+     * Checks whether a file is an address book snapshot by its magic number.
+     * 
+     * @param file The file to check.
+     * @return True if the file starts like a snapshot, false otherwise.
+     */
+    public static boolean isSnapshot(File file) {
+        if (file.length() < HEADER_SIZE) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a file name asks for an address book to be saved as a
+     * snapshot.
+     * 
+     * @param file The file to check.
+     * @return True if the file name ends in {@link #EXTENSION}.
+     */
+    public static boolean isSnapshotName(File file) {
+        return file.getName().toLowerCase().endsWith(EXTENSION);
+    }
+
+    /**
+     * Opens a snapshot by mapping it into memory. The file must be released with
+     * {@link #release(File)} before it is replaced or deleted.
+     * 
+     * @param file The snapshot to open.
+     * @return The open snapshot.
+     * @throws FileNotFoundException Thrown if the file is unreadable or does not
+     *                               exist.
+     * @throws IOException           Thrown if the file is not a snapshot this
+     *                               program can read, or its ids are not in
+     *                               ascending order.
+     */
+    public static SnapshotFile open(File file) throws IOException {
+        FileSystem.requireReadable(file);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to map: " + size + " bytes");
+            }
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not an address book snapshot");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            // Check the header describes a file of this size
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an address book snapshot");
+            }
+            int version = buffer.getInt(4);
+            if (version > VERSION) {
+                throw new IOException("Snapshot uses a newer format (version " + version + ")");
+            }
+            int rowCount = buffer.getInt(8);
+            if (buffer.getInt(12) != Person.fields.length || rowCount < 0
+                    || HEADER_SIZE + rowCount * 16L + 8 > size) {
+                throw new IOException("Snapshot header is corrupt");
+            }
+            SnapshotFile snapshot = new SnapshotFile(buffer, rowCount);
+            if (snapshot.offset(rowCount) != size) {
+                throw new IOException("Snapshot is truncated");
+            }
+
+            // Rows are found by bisecting the ids, which only works if they ascend
+            for (int row = 1; row < rowCount; row++) {
+                if (buffer.getLong(HEADER_SIZE + row * 8) <= buffer.getLong(HEADER_SIZE + (row - 1) * 8)) {
+                    throw new IOException("Snapshot ids are not in ascending order");
+                }
+            }
+            synchronized (MAPPED) {
+                MAPPED.computeIfAbsent(file.getAbsoluteFile(), key -> new ArrayList<>())
+                        .add(new WeakReference<>(snapshot));
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Writes every row of an address book to a snapshot, reporting progress as
+     * rows are written. The snapshot is written to a temporary file which replaces
+     * the target once complete, so a failed or cancelled write leaves any existing
+     * file as it was.
+     * 
+     * @param addressBook The address book to write.
+     * @param file        The snapshot to write.
+     * @param listener    The listener to report the number of rows written to.
+     * @throws IOException           Thrown if the snapshot could not be written.
+     * @throws CancellationException Thrown if the writing thread is interrupted.
+     */
+    public static void write(AddressBook addressBook, File file, ProgressListener listener) throws IOException {
+        int rows = addressBook.getRowCount();
+        long[] offsets = new long[rows + 1];
+        long[] ids = new long[rows];
+        File temp = new File(file.getPath() + ".tmp");
+        boolean written = false;
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Write the rows after space left for the header and tables
+            long position = HEADER_SIZE + rows * 16L + 8;
+            channel.position(position);
+            ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+            listener.progress(0, rows);
+            for (int row = 0; row < rows; row++) {
+                ids[row] = addressBook.getId(row);
+                offsets[row] = position;
+                Person person = addressBook.get(row);
+                for (int field = 0; field < Person.fields.length; field++) {
+                    String value = person.getField(field);
+                    byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+                    if (out.remaining() < 4 + bytes.length) {
+                        flush(channel, out);
+                        if (out.capacity() < 4 + bytes.length) {
+                            out = ByteBuffer.allocate(4 + bytes.length);
+                        }
+                    }
+                    out.putInt(value == null ? NULL_LENGTH : bytes.length).put(bytes);
+                    position += 4 + bytes.length;
+                }
+                if ((row + 1) % PROGRESS_STEP == 0) {
+                    checkCancelled();
+                    listener.progress(row + 1L, rows);
+                }
+            }
+            offsets[rows] = position;
+            flush(channel, out);
+
+            // Fill in the header and tables
+            ByteBuffer tables = ByteBuffer.allocate(HEADER_SIZE + rows * 16 + 8);
+            tables.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(Person.fields.length);
+            tables.asLongBuffer().put(ids).put(offsets);
+            tables.clear();
+            channel.position(0);
+            while (tables.hasRemaining()) {
+                channel.write(tables);
+            }
+            channel.force(false);
+            written = true;
+        } finally {
+            if (!written) {
+                temp.delete();
+            }
+        }
+
+        // The rows are all written, so the snapshot being replaced is no longer needed mapped
+        release(file);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        listener.progress(rows, rows);
+    }
+
+    /**
+     * Releases a file so it can be replaced or deleted. Every snapshot still open
+     * on the file is copied into memory and unmapped, and keeps reading its rows
+     * from the copy.
+     * 
+     * @param file The snapshot file about to be replaced or deleted.
+     */
+    static void release(File file) {
+        List<WeakReference<SnapshotFile>> snapshots;
+        synchronized (MAPPED) {
+            snapshots = MAPPED.remove(file.getAbsoluteFile());
+        }
+        if (snapshots != null) {
+            for (WeakReference<SnapshotFile> reference : snapshots) {
+                SnapshotFile snapshot = reference.get();
+                if (snapshot != null) {
+                    snapshot.copyToMemory();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the snapshot still reads its rows from the mapped file.
+     * 
+     * @return True if the file is mapped, false if it was released.
+     */
+    synchronized boolean isMapped() {
+        return buffer.isDirect();
+    }
+
+    /**
+     * Getter for the number of rows in the snapshot.
+     * 
+     * @return The number of rows.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Reads the ids of every row in the snapshot.
+     * 
+     * @return The row ids in ascending order.
+     */
+    synchronized long[] getIds() {
+        long[] ids = new long[rowCount];
+        ByteBuffer view = buffer.duplicate();
+        view.position(HEADER_SIZE);
+        view.asLongBuffer().get(ids);
+        return ids;
+    }
+
+    /**
+     * Finds the row of the snapshot holding the person with the given id.
+     * 
+     * @param id The id of the person.
+     * @return The row of the person, or -1 if no row has that id.
+     */
+    synchronized int indexOf(long id) {
+        int low = 0;
+        int high = rowCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long found = buffer.getLong(HEADER_SIZE + middle * 8);
+            if (found < id) {
+                low = middle + 1;
+            } else if (found > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the person in a row of the snapshot. Rows are not checked as they
+     * are decoded, as every person was checked before it was written; use
+     * {@link #verify()} to check a snapshot another program may have changed.
+     * 
+     * @param row The row to decode.
+     * @return The person in that row, whose fields may be invalid or null.
+     * @throws IndexOutOfBoundsException Thrown if the row is not in the snapshot.
+     * @throws IllegalStateException     Thrown if the row could not be decoded.
+     */
+    public Person get(int row) {
+        return get(row, null);
+    }
+
+    /**
+     * Decodes the person in a row of the snapshot, sharing the state and city
+     * through a string pool.
+     * 
+     * @param row  The row to decode.
+     * @param pool The pool of the address book the person is for, or null to not
+     *             share strings.
+     * @return The person in that row.
+     * @throws IndexOutOfBoundsException Thrown if the row is not in the snapshot.
+     * @throws IllegalStateException     Thrown if the row could not be decoded.
+     */
+    synchronized Person get(int row, StringPool pool) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Index " + row + " out of bounds for length " + rowCount);
+        }
+        String[] fields = new String[Person.fields.length];
+        try {
+            ByteBuffer view = buffer.duplicate();
+            view.position((int) offset(row));
+            for (int field = 0; field < fields.length; field++) {
+                int length = view.getInt();
+                if (length != NULL_LENGTH) {
+                    byte[] bytes = new byte[length];
+                    view.get(bytes);
+                    fields[field] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+            if (pool != null) {
+                fields[3] = pool.intern(fields[3]);
+                fields[4] = pool.intern(fields[4]);
+            }
+            return Person.trusted(fields[1], fields[0], fields[2], fields[3], fields[4], fields[5], fields[6]);
+        } catch (RuntimeException exception) {
+            throw new IllegalStateException("Snapshot row " + row + " is corrupt", exception);
+        }
+    }
+
+    /**
+     * Checks every row of the snapshot, for snapshots that may have been changed
+     * by another program. Rows are decoded without being checked, as when they are
+     * shown, and then checked a field at a time across the whole snapshot.
+     * 
+     * @return The reason each invalid row was rejected, by the id of the row. The
+     *         map is empty if every row is valid.
+     * @throws IllegalStateException Thrown if a row could not be decoded.
+     */
+    SortedMap<Long, String> verify() {
+        List<Person> persons = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            persons.add(get(row));
+        }
+        long[] ids = getIds();
+        SortedMap<Long, String> invalid = new TreeMap<>();
+        PersonValidator.verify(persons).forEach((row, reason) -> invalid.put(ids[row], reason));
+        return invalid;
+    }
+
+    /**
+     * A helper function to read the file offset of a row from the offset table.
+     * 
+     * @param row The row, or the row count for the end of the last row.
+     * @return The offset of the row in the file.
+     */
+    private long offset(int row) {
+        return buffer.getLong(offsetsStart + row * 8);
+    }
+
+    /**
+     * A helper function to copy the mapped file into memory and unmap it, so the
+     * file can be replaced or deleted while the snapshot is still read.
+     */
+    private synchronized void copyToMemory() {
+        ByteBuffer mapped = buffer;
+        if (!mapped.isDirect()) {
+            return;
+        }
+        ByteBuffer copy = ByteBuffer.allocate(mapped.capacity());
+        copy.put(mapped.duplicate().clear());
+        buffer = copy;
+        unmap(mapped);
+    }
+
+    /**
+     * A helper function to unmap a mapped file at once rather than when the buffer
+     * is garbage collected. Every read of the buffer is made holding the lock of
+     * its snapshot, so nothing reads it once it is replaced by a copy.
+     * 
+     * @param mapped The mapped buffer, which must not be read afterwards.
+     */
+    private static void unmap(ByteBuffer mapped) {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field instance = unsafe.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+            unsafe.getMethod("invokeCleaner", ByteBuffer.class).invoke(instance.get(null), mapped);
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            // Left to the garbage collector where the runtime does not allow it
+        }
+    }
+
+    /**
+     * A helper function to write out and empty a buffer of rows.
+     * 
+     * @param channel The channel to write to.
+     * @param out     The buffer to write.
+     * @throws IOException Thrown if the rows could not be written.
+     */
+    private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * A helper function to stop writing when the thread doing so has been
+     * interrupted, which is how a background save is cancelled.
+     * 
+     * @throws CancellationException Thrown if the current thread is interrupted.
+     */
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("File operation cancelled");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,250 @@
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores address books in SQLite database files, the default format. A session
+ * on the file last read or written is kept open, so saving back to it only
+ * writes the rows changed since, and searches use its full-text index. Large
+ * files are read on several threads.
+ * 
+ * Files are opened only to read until they are first saved, so opening a file
+ * never changes its journal mode.
+ * 
+ * Reads, saves and searches may run on different threads at once. A session
+ * still in use when another file is asked for is closed once its last user is
+ * done with it, so a save of one file is never cut off by a read of another.
+ */
+public class SqliteBackend implements StorageBackend {
+
+    // The first bytes of every SQLite database file
+    private static final byte[] HEADER = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+
+    private final ParallelLoader loader;
+
+    // Session on the file last read or written, kept open for later reads and saves
+    private FileSession session = null;
+
+    // Number of reads, saves and searches using each open session
+    private final Map<FileSession, Integer> users = new IdentityHashMap<>();
+
+    /**
+     * Constructor for a backend reading large files on one thread per processor.
+     */
+    public SqliteBackend() {
+        this(new ParallelLoader());
+    }
+
+    /**
+     * Constructor for a backend reading files with the given loader.
+     * 
+     * @param loader The loader to read files with.
+     */
+    public SqliteBackend(ParallelLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Getter for the name of the backend.
+     * 
+     * @return The name of the format.
+     */
+    @Override
+    public String getName() {
+        return "SQLite database";
+    }
+
+    /**
+     * Databases are saved incrementally and searched through their index.
+     * 
+     * @return The capabilities of the backend.
+     */
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Collections.unmodifiableSet(EnumSet.of(Capability.INCREMENTAL, Capability.INDEXED));
+    }
+
+    /**
+     * Checks whether a file is a SQLite database by its header. Empty and missing
+     * files are accepted too, as new address books start empty.
+     * 
+     * @param file The file to check.
+     * @return True if the file is a database, empty or missing, false otherwise.
+     * @throws IOException Thrown if the file could not be read.
+     */
+    @Override
+    public boolean canRead(File file) throws IOException {
+        if (!file.isFile() || file.length() == 0) {
+            return true;
+        }
+        if (file.length() < HEADER.length) {
+            return false;
+        }
+        byte[] header = new byte[HEADER.length];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(header);
+        }
+        return Arrays.equals(header, HEADER);
+    }
+
+    /**
+     * Any file name may be used for a database, so this backend writes the files
+     * no other backend claims.
+     * 
+     * @param file The file to check.
+     * @return Always true.
+     */
+    @Override
+    public boolean canWrite(File file) {
+        return true;
+    }
+
+    /**
+     * Reads a database, reusing the session on it if it was the last file read or
+     * written.
+     * 
+     * @param addressBook The address book to read the file into.
+     * @param file        The file to read.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws IOException  Thrown if the file is unreadable or does not exist.
+     * @throws SQLException Thrown if the file was not in correct format.
+     */
+    @Override
+    public void read(AddressBook addressBook, File file, ProgressListener listener) throws IOException, SQLException {
+        FileSystem.requireReadable(file);
+        FileSession using = acquire(file, false);
+        try {
+            loader.load(addressBook, using, listener);
+        } finally {
+            release(using);
+        }
+    }
+
+    /**
+     * Saves an address book to a database, writing only the changed rows if it
+     * was last read from or saved to the same file.
+     * 
+     * @param addressBook The address book to write.
+     * @param file        The file to write.
+     * @param listener    The listener to report the number of rows written to.
+     * @throws SQLException Thrown if the file could not be saved.
+     */
+    @Override
+    public void write(AddressBook addressBook, File file, ProgressListener listener) throws SQLException {
+        FileSession using = acquire(file, true);
+        try {
+            FileSystem.saveFile(addressBook, using, listener);
+        } finally {
+            release(using);
+        }
+    }
+
+    /**
+     * Backs up a database with the online backup of SQLite, which copies a few
+     * pages at a time through a connection of its own.
+     * 
+     * @param file     The file to back up.
+     * @param target   The file to write the backup to.
+     * @param listener The listener to report the number of pages copied to.
+     * @throws IOException  Thrown if the backup could not be written.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    @Override
+    public void backup(File file, File target, ProgressListener listener) throws IOException, SQLException {
+        FileSystem.backupFile(file, target, listener);
+    }
+
+    /**
+     * Searches the full-text index of the file last read or written.
+     * 
+     * @param file  The file to search.
+     * @param terms The search terms.
+     * @return The ids of the matching rows, or null if the file is not the one
+     *         last read or written or has no index yet.
+     * @throws SQLException Thrown if the file could not be searched.
+     */
+    @Override
+    public long[] search(File file, String[] terms) throws SQLException {
+        FileSession using;
+        synchronized (this) {
+            if (session == null || !session.isFor(file)) {
+                return null;
+            }
+            using = session;
+            users.merge(using, 1, Integer::sum);
+        }
+        try {
+            synchronized (using) {
+                // Files in a layout older than the index are searched in memory until saved
+                if (!Schema.hasSearchIndex(using.getConnection())) {
+                    return null;
+                }
+            }
+            return FileSystem.search(using, terms);
+        } finally {
+            release(using);
+        }
+    }
+
+    /**
+     * Closes the session on the file last read or written, or leaves it to be
+     * closed by the last read, save or search still using it.
+     * 
+     * @throws SQLException Thrown if the file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        if (session != null) {
+            FileSession closing = session;
+            session = null;
+            if (!users.containsKey(closing)) {
+                closing.close();
+            }
+        }
+    }
+
+    /**
+     * A helper function to get a session on a file for one read or save, reusing
+     * the current session if it is on the same file and can be used as asked, and
+     * otherwise opening a new one in its place. Must be followed by
+     * {@link #release(FileSession)}.
+     * 
+     * @param file  The file to get a session on.
+     * @param write Whether the session will be used to write.
+     * @return The open session on the file.
+     * @throws SQLException Thrown if the file could not be opened.
+     */
+    private synchronized FileSession acquire(File file, boolean write) throws SQLException {
+        if (session == null || !session.isFor(file) || write && !session.isWritable()) {
+            close();
+            session = new FileSession(file, write);
+        }
+        users.merge(session, 1, Integer::sum);
+        return session;
+    }
+
+    /**
+     * A helper function to end one use of a session, closing it if it was the
+     * last use and another session has taken its place.
+     * 
+     * @param using The session no longer used.
+     * @throws SQLException Thrown if the file could not be closed.
+     */
+    private synchronized void release(FileSession using) throws SQLException {
+        if (users.merge(using, -1, Integer::sum) == 0) {
+            users.remove(using);
+            if (using != session) {
+                using.close();
+            }
+        }
+    }
+}
\ No newline at end of file
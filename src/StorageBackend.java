@@ -0,0 +1,166 @@
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A way of storing address books in files. The controller reads and writes
+ * every file through a backend, choosing the first backend that recognises the
+ * contents of a file to read it, and the first that claims the name of a file to
+ * write it. Backends report progress as rows are read and written, and may keep
+ * state between calls, such as an open connection, until they are closed.
+ */
+public interface StorageBackend extends AutoCloseable {
+
+    /**
+     * Optional abilities of a backend.
+     */
+    enum Capability {
+        // Saving to the file last read or written only writes the rows changed since
+        INCREMENTAL,
+
+        // The file last read or written can be searched without checking every row
+        INDEXED,
+
+        // Rows are only decoded when they are first shown
+        LAZY
+    }
+
+    /**
+     * Getter for the name of the backend, as shown to users.
+     * 
+     * @return The name of the backend.
+     */
+    String getName();
+
+    /**
+     * Getter for the optional abilities of the backend.
+     * 
+     * @return The capabilities of the backend.
+     */
+    Set<Capability> getCapabilities();
+
+    /**
+     * Checks whether a file holds an address book this backend can read, by its
+     * contents rather than its name.
+     * 
+     * @param file The file to check.
+     * @return True if the backend can read the file, false otherwise.
+     * @throws IOException Thrown if the file could not be read.
+     */
+    boolean canRead(File file) throws IOException;
+
+    /**
+     * Checks whether this backend stores address books in files with the given
+     * name.
+     * 
+     * @param file The file to check.
+     * @return True if the backend writes files with that name, false otherwise.
+     */
+    boolean canWrite(File file);
+
+    /**
+     * Replaces the contents of an address book with those of a file in a single
+     * step, reporting progress as rows are read. A failed or cancelled read
+     * leaves the address book untouched.
+     * 
+     * @param addressBook The address book to read the file into.
+     * @param file        The file to read.
+     * @param listener    The listener to report the number of rows read to.
+     * @throws IOException           Thrown if the file could not be read.
+     * @throws SQLException          Thrown if the file was not in correct format.
+     * @throws CancellationException Thrown if the reading thread is interrupted.
+     */
+    void read(AddressBook addressBook, File file, ProgressListener listener) throws IOException, SQLException;
+
+    /**
+     * Writes the contents of an address book to a file, reporting progress as
+     * rows are written. A failed or cancelled write leaves the file as it was.
+     * 
+     * @param addressBook The address book to write.
+     * @param file        The file to write.
+     * @param listener    The listener to report the number of rows written to.
+     * @throws IOException           Thrown if the file could not be written.
+     * @throws SQLException          Thrown if the file could not be saved.
+     * @throws CancellationException Thrown if the writing thread is interrupted.
+     */
+    void write(AddressBook addressBook, File file, ProgressListener listener) throws IOException, SQLException;
+
+    /**
+     * Finds the ids of the rows in a file with a word starting with each of the
+     * given terms, using an index of the file. Only backends with the
+     * {@link Capability#INDEXED} capability search, and only the file they last
+     * read or wrote.
+     * 
+     * @param file  The file to search.
+     * @param terms The search terms, as returned by
+     *              {@link FileSystem#searchTerms(String)}.
+     * @return The ids of the matching rows, or null if the file has no index.
+     * @throws SQLException Thrown if the file could not be searched.
+     */
+    default long[] search(File file, String[] terms) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Copies a file to a backup while it may still be saved to, without waiting
+     * for saves in progress and without holding up later ones. Only backends that
+     * can copy a file consistently while it is written back up files.
+     * 
+     * @param file     The file to back up.
+     * @param target   The file to write the backup to, replaced if it exists.
+     * @param listener The listener to report the progress of the copy to.
+     * @throws IOException  Thrown if the backend cannot back up files, or the
+     *                      backup could not be written.
+     * @throws SQLException Thrown if the file could not be read.
+     */
+    default void backup(File file, File target, ProgressListener listener) throws IOException, SQLException {
+        throw new IOException(getName() + " files cannot be backed up while open");
+    }
+
+    /**
+     * Releases anything the backend keeps open between calls.
+     * 
+     * @throws SQLException Thrown if an open file could not be closed.
+     */
+    @Override
+    default void close() throws SQLException {
+    }
+
+    /**
+     * Chooses the backend to read a file with, by its contents.
+     * 
+     * @param backends The backends to choose from, in order of preference.
+     * @param file     The file to read.
+     * @return The first backend able to read the file.
+     * @throws IOException Thrown if the file could not be read, or no backend
+     *                     recognises it.
+     */
+    static StorageBackend forReading(List<? extends StorageBackend> backends, File file) throws IOException {
+        for (StorageBackend backend : backends) {
+            if (backend.canRead(file)) {
+                return backend;
+            }
+        }
+        throw new IOException("Not an address book file: " + file.getName());
+    }
+
+    /**
+     * Chooses the backend to write a file with, by its name.
+     * 
+     * @param backends The backends to choose from, in order of preference.
+     * @param file     The file to write.
+     * @return The first backend claiming the file name.
+     * @throws IOException Thrown if no backend writes files with that name.
+     */
+    static StorageBackend forWriting(List<? extends StorageBackend> backends, File file) throws IOException {
+        for (StorageBackend backend : backends) {
+            if (backend.canWrite(file)) {
+                return backend;
+            }
+        }
+        throw new IOException("No address book format for " + file.getName());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of the strings of one address book, so equal field values read for
+ * many persons, such as the same state or city, are held once instead of
+ * once per person. Loaders pass the fields that repeat through the pool as they
+ * read rows, and the address book empties it when it is closed or cleared.
+ * 
+ * The pool stops taking new strings once it holds its capacity, so fields that
+ * hardly repeat cannot grow it without bound. It may be used from several
+ * threads at once, as files are read in the background and in parallel.
+ */
+final class StringPool {
+
+    // Default number of distinct strings held
+    static final int DEFAULT_CAPACITY = 65536;
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor for a pool holding up to the default number of strings.
+     */
+    StringPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for a pool holding up to a given number of strings.
+     * 
+     * @param capacity The most distinct strings to hold.
+     * @throws IllegalArgumentException Thrown if the capacity is less than 1.
+     */
+    StringPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the string held in the pool equal to a value, adding the value if none
+     * is and the pool is not full.
+     * 
+     * @param value The value, which may be null.
+     * @return The pooled string equal to the value, or the value itself if it is
+     *         new or null.
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = strings.get(value);
+        if (pooled != null) {
+            hits.increment();
+            return pooled;
+        }
+        misses.increment();
+        if (strings.size() >= capacity) {
+            return value;
+        }
+        pooled = strings.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    /**
+     * Gets the number of values found already in the pool since it was made or
+     * last emptied.
+     * 
+     * @return The number of hits.
+     */
+    long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of values not yet in the pool since it was made or last
+     * emptied.
+     * 
+     * @return The number of misses.
+     */
+    long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the share of values found already in the pool, each of which saved a
+     * copy of a string.
+     * 
+     * @return The hit rate from 0 to 1, or 0 if no values were looked up.
+     */
+    double hitRate() {
+        long found = hits.sum();
+        long lookups = found + misses.sum();
+        return lookups == 0 ? 0 : (double) found / lookups;
+    }
+
+    /**
+     * Gets the number of distinct strings held.
+     * 
+     * @return The number of strings in the pool.
+     */
+    int size() {
+        return strings.size();
+    }
+
+    /**
+     * Empties the pool and resets its hit rate. Strings already handed out stay
+     * with the persons holding them.
+     */
+    void clear() {
+        strings.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * A function to describe the pool for reports.
+     * 
+     * @return The number of strings held and the hit rate.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d strings, %.1f%% hits", size(), hitRate() * 100);
+    }
+}
@@ -237,7 +237,7 @@ class AddressBookControllerIntegrationTest {
      * save with an invalid file
      */
     @Test
-    public void throwSQLExceptionWhenSavingAddressBook() throws SQLException {
+    public void throwSQLExceptionWhenSavingAddressBook() throws SQLException, IOException {
         AddressBook addressBookSpy = spy(AddressBook.class);
         AddressBookController controllerSpy = spy(new AddressBookController(addressBookSpy));
 
@@ -1,11 +1,19 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Rule;
 import org.junit.jupiter.api.AfterEach;
@@ -188,4 +196,318 @@ class AddressBookControllerTest {
         assertDoesNotThrow(() -> controllerTest.save(file));
         assertTrue(file.exists()); // Check file exists on disk
     }
+
+    /**
+     * Functional and Positive Testing. This test case will test that loading a file
+     * does not change the current address book until it replaces it.
+     */
+    @Test
+    public void loadThenReplace() throws IOException {
+        // Create a new file for testing each time
+        folder.create();
+        file = folder.newFile("MyTestFile");
+
+        // Save a book with two people
+        AddressBook saved = new AddressBook();
+        saved.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        saved.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(saved, file));
+
+        // Load it while the current book holds someone else
+        controllerTest.add(test_Person);
+        AddressBook loaded = assertDoesNotThrow(() -> controllerTest.load(file, ProgressListener.NONE));
+        assertEquals(1, test_AddressBook.getRowCount());
+        assertEquals(2, loaded.getRowCount());
+
+        // Replace the current book with the loaded one
+        controllerTest.replace(loaded);
+        assertEquals(2, test_AddressBook.getRowCount());
+        assertEquals("Doe, Jane", controllerTest.get(1).toString());
+        assertTrue(test_AddressBook.isSyncedWith(file));
+        assertEquals(0, loaded.getRowCount());
+    }
+
+    /**
+     * Functional and Positive Testing. This test case will test that the
+     * controller can switch between files, closing the file it had open.
+     */
+    @Test
+    public void saveThenOpenOtherFile() throws IOException {
+        // Create two new files for testing each time
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        File otherFile = folder.newFile("MyOtherTestFile");
+
+        // Save one person to the first file and two to the other
+        controllerTest.add(test_Person);
+        assertDoesNotThrow(() -> controllerTest.save(file));
+        controllerTest.add(test_Person);
+        assertDoesNotThrow(() -> controllerTest.save(otherFile));
+
+        // Open the first file again
+        assertDoesNotThrow(() -> controllerTest.open(file));
+        assertEquals(1, test_AddressBook.getRowCount());
+        assertDoesNotThrow(() -> controllerTest.close());
+    }
+
+    /**
+     * Functional and Positive Testing. This test case will test that searching a
+     * saved address book uses the file's index for saved rows and checks rows
+     * changed since the save in memory.
+     */
+    @Test
+    public void searchSavedFile() throws IOException {
+        // Create a new file for testing each time
+        folder.create();
+        file = folder.newFile("MyTestFile");
+
+        controllerTest.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        controllerTest.add(test_Person);
+        controllerTest.add(new Person("J\u00f6hn", "Smith", "1 Main Street", "Naples", "FL", "34102", "2395551234"));
+        assertDoesNotThrow(() -> controllerTest.save(file));
+
+        // Prefixes of words in any field match, regardless of case or accents
+        assertArrayEquals(new int[] { 0, 2 }, assertDoesNotThrow(() -> controllerTest.search("jo")));
+        assertArrayEquals(new int[] { 1 }, assertDoesNotThrow(() -> controllerTest.search("westb CINC")));
+        assertArrayEquals(new int[] { 2 }, assertDoesNotThrow(() -> controllerTest.search("john smi")));
+        assertArrayEquals(new int[] { 0, 1, 2 }, assertDoesNotThrow(() -> controllerTest.search(" ")));
+        assertEquals(0, assertDoesNotThrow(() -> controllerTest.search("Blvd\" OR \"Doe")).length);
+
+        // Unsaved changes are reflected without saving
+        controllerTest.set(0, test_Person);
+        controllerTest.remove(2);
+        controllerTest.add(new Person("Johnny", "Appleseed", "2 Orchard Lane", "Naples", "FL", "34102", "2395550000"));
+        assertArrayEquals(new int[] { 2 }, assertDoesNotThrow(() -> controllerTest.search("jo")));
+        assertArrayEquals(new int[] { 0, 1 }, assertDoesNotThrow(() -> controllerTest.search("dorian")));
+
+        // And the index is kept up to date by saving them
+        assertDoesNotThrow(() -> controllerTest.save(file));
+        assertArrayEquals(new int[] { 2 }, assertDoesNotThrow(() -> controllerTest.search("jo")));
+        assertArrayEquals(new int[] { 0, 1 }, assertDoesNotThrow(() -> controllerTest.search("dorian")));
+        assertDoesNotThrow(() -> controllerTest.close());
+    }
+
+    /**
+     * Functional and Positive Testing. This test case will test that rows handed
+     * to a save that has not been written yet are still found.
+     */
+    @Test
+    public void searchDuringSave() throws IOException {
+        // Create a new file for testing each time
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        controllerTest.add(test_Person);
+        assertDoesNotThrow(() -> controllerTest.save(file));
+
+        controllerTest.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        AddressBookController.Capture capture = controllerTest.capture(file);
+        assertArrayEquals(new int[] { 1 }, assertDoesNotThrow(() -> controllerTest.search("1234 non")));
+        assertDoesNotThrow(() -> controllerTest.save(capture));
+        assertArrayEquals(new int[] { 1 }, assertDoesNotThrow(() -> controllerTest.search("1234 non")));
+        assertDoesNotThrow(() -> controllerTest.close());
+    }
+
+    /**
+     * Functional and Positive Testing. This test case will test that an address
+     * book that was never saved is searched in memory.
+     */
+    @Test
+    public void searchUnsavedBook() {
+        controllerTest.add(test_Person);
+        controllerTest.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertArrayEquals(new int[] { 1 }, assertDoesNotThrow(() -> controllerTest.search("1234 non")));
+        assertArrayEquals(new int[] { 0 }, assertDoesNotThrow(() -> controllerTest.search("0123")));
+        assertEquals(0, assertDoesNotThrow(() -> controllerTest.search("ohn")).length);
+    }
+
+    /**
+     * Functional and Positive Testing. This test case will test that rows imported
+     * into an opened address book share their repeated strings with the rows that
+     * were opened.
+     */
+    @Test
+    public void importedRowsSharePool() throws IOException {
+        // Create a new file for testing each time
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        File csv = folder.newFile("import.csv");
+        Files.write(csv.toPath(), "Doe,Jack,1234 NON EXIST ROAD,SomeCity,FL,12345,1234567890\n"
+                .getBytes(StandardCharsets.UTF_8));
+
+        AddressBook saved = new AddressBook();
+        saved.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(saved, file));
+        assertDoesNotThrow(() -> controllerTest.open(file));
+        AddressBook imported = new AddressBook();
+        assertDoesNotThrow(() -> controllerTest.importCsv(csv, imported, new File(csv.getPath() + ".errors.csv"),
+                ProgressListener.NONE));
+        controllerTest.append(imported);
+
+        assertEquals(2, test_AddressBook.getRowCount());
+        assertSame(test_AddressBook.get(0).getCity(), test_AddressBook.get(1).getCity());
+        assertSame(test_AddressBook.get(0).getState(), test_AddressBook.get(1).getState());
+        assertDoesNotThrow(() -> controllerTest.close());
+    }
+
+    /**
+     * Functional and Positive/Negative Testing. This test case will test that the
+     * saved file is backed up, and that an address book never saved cannot be.
+     */
+    @Test
+    public void backupSavedFile() throws IOException {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        File backup = new File(folder.getRoot(), "MyTestFile.bak");
+        assertThrows(IOException.class, () -> controllerTest.backup(backup, ProgressListener.NONE));
+
+        controllerTest.add(test_Person);
+        assertDoesNotThrow(() -> controllerTest.save(file));
+        controllerTest.add(test_Person);
+        assertDoesNotThrow(() -> controllerTest.backup(backup, ProgressListener.NONE));
+
+        // Only the saved row is in the backup
+        AddressBook copy = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(copy, backup));
+        assertEquals(1, copy.getRowCount());
+        assertDoesNotThrow(() -> controllerTest.close());
+    }
+
+    /**
+     * Functional and Positive Testing. This test case will test that the address
+     * book can be edited while contents taken for a save are written, and that
+     * those edits are left for the next save.
+     */
+    @Test
+    public void editsDuringSaveKept() throws Exception {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        controllerTest.add(test_Person);
+        controllerTest.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+
+        // Edit while the capture is written on another thread
+        AddressBookController.Capture capture = controllerTest.capture(file);
+        Thread saving = new Thread(() -> assertDoesNotThrow(() -> controllerTest.save(capture)));
+        saving.start();
+        controllerTest.set(0, new Person("Sweet", "Tea", "19964 Miami Beach", "Miami", "OH", "85012", "2321232010"));
+        controllerTest.remove(1);
+        controllerTest.add(test_Person);
+        saving.join();
+
+        // The file holds the captured rows, and only the later edits are unsaved
+        AddressBook saved = new AddressBook();
+        FileSystem.readFile(saved, file);
+        assertEquals(2, saved.getRowCount());
+        assertEquals("Dorian, Jane", saved.get(0).toString());
+        assertEquals(2, test_AddressBook.getChangedRows().size());
+        assertEquals(1, test_AddressBook.getRemovedIds().size());
+
+        assertDoesNotThrow(() -> controllerTest.save(controllerTest.capture(file)));
+        FileSystem.readFile(saved, file);
+        assertEquals(2, saved.getRowCount());
+        assertEquals("Tea, Sweet", saved.get(0).toString());
+        assertTrue(test_AddressBook.getChangedRows().isEmpty());
+        assertDoesNotThrow(() -> controllerTest.close());
+    }
+
+    /**
+     * Functional and Negative Testing. This test case will test that when a save
+     * fails, a save taken before the failure writes every row and keeps the
+     * journaled edits of the failed save, which never reached the file.
+     */
+    @Test
+    public void saveAfterFailedSaveWritesEverything() throws Exception {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        boolean[] fail = { false };
+        List<StorageBackend> backends = new ArrayList<>(Arrays.asList(new SnapshotBackend(), new SqliteBackend() {
+            @Override
+            public void write(AddressBook addressBook, File file, ProgressListener listener) throws SQLException {
+                if (fail[0]) {
+                    fail[0] = false;
+                    throw new SQLException("Disk full");
+                }
+                super.write(addressBook, file, listener);
+            }
+        }));
+        AddressBookController controller = new AddressBookController(test_AddressBook, backends);
+        controller.add(test_Person);
+        controller.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        controller.save(file);
+
+        // Two saves are taken before the first is written, and the first fails
+        controller.set(0, new Person("Sweet", "Tea", "19964 Miami Beach", "Miami", "OH", "85012", "2321232010"));
+        AddressBookController.Capture first = controller.capture(file);
+        controller.add(test_Person);
+        AddressBookController.Capture second = controller.capture(file);
+        fail[0] = true;
+        assertThrows(SQLException.class, () -> controller.save(first));
+        controller.save(second);
+
+        AddressBook saved = new AddressBook();
+        FileSystem.readFile(saved, file);
+        assertEquals(3, saved.getRowCount());
+        assertEquals("Tea, Sweet", saved.get(0).toString());
+        assertEquals("Dorian, Jane", saved.get(2).toString());
+
+        // The journal still holds the edits of the failed save once written to disk
+        AddressBook recovered = new AddressBook();
+        long deadline = System.currentTimeMillis() + 5000;
+        boolean found = false;
+        while (!found && System.currentTimeMillis() < deadline) {
+            FileSystem.readFile(recovered, file);
+            found = EditJournal.recover(recovered, file);
+            Thread.sleep(10);
+        }
+        assertTrue(found);
+        assertEquals(3, recovered.getRowCount());
+        assertEquals("Tea, Sweet", recovered.get(0).toString());
+        controller.close();
+    }
+
+    /**
+     * Functional and Positive/Negative Testing. This test case will test that
+     * reopening the file the address book was saved to shows it without reading
+     * any rows, and that a file changed since, or a book edited since, is loaded
+     * instead.
+     */
+    @Test
+    public void reopenUnchangedFileWithoutReading() throws Exception {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        int[] reads = { 0 };
+        List<StorageBackend> backends = new ArrayList<>(Arrays.asList(new SnapshotBackend(), new SqliteBackend() {
+            @Override
+            public void read(AddressBook addressBook, File file, ProgressListener listener)
+                    throws IOException, SQLException {
+                reads[0]++;
+                super.read(addressBook, file, listener);
+            }
+        }));
+        AddressBookController controller = new AddressBookController(test_AddressBook, backends);
+        controller.add(test_Person);
+        controller.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        controller.save(file);
+
+        assertTrue(controller.reopen(file));
+        assertFalse(controller.wasRecovered());
+        assertEquals(2, test_AddressBook.getRowCount());
+        assertEquals(0, reads[0]);
+
+        // An edit not saved yet means the file must be read again
+        controller.remove(1);
+        assertFalse(controller.reopen(file));
+        controller.replace(controller.load(file, ProgressListener.NONE));
+        assertEquals(2, test_AddressBook.getRowCount());
+        assertEquals(1, reads[0]);
+        assertTrue(controller.reopen(file));
+
+        // So does a change made to the file by another program
+        AddressBook other = new AddressBook();
+        FileSystem.readFile(other, file);
+        other.remove(0);
+        FileSystem.saveFile(other, file);
+        assertFalse(controller.reopen(new File(folder.getRoot(), "MissingFile")));
+        assertFalse(controller.reopen(file));
+        controller.close();
+    }
 }
@@ -25,6 +25,8 @@ import org.assertj.swing.finder.WindowFinder;
 import org.assertj.swing.fixture.DialogFixture;
 import org.assertj.swing.fixture.FrameFixture;
 import org.assertj.swing.security.NoExitSecurityManagerInstaller;
+import org.assertj.swing.timing.Condition;
+import org.assertj.swing.timing.Pause;
 import org.junit.Rule;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -170,6 +172,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -212,6 +215,7 @@ public class AddressBookGUITest {
         // Get the file chooser and select the test file
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Check table now has the two persons in file
         window.table().requireRowCount(2);
@@ -268,6 +272,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -300,6 +305,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click edit button for no window
         window.button("edit").click();
@@ -320,6 +326,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Check table now has the two persons in file
         window.table().requireRowCount(2);
@@ -373,6 +380,7 @@ public class AddressBookGUITest {
         // Get the file chooser and select the file saved
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Check error message is displayed
         window.optionPane().requireErrorMessage();
@@ -397,6 +405,7 @@ public class AddressBookGUITest {
         // Get the file chooser and select the file saved
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Check table now has the two persons in file
         window.table().requireRowCount(2);
@@ -459,10 +468,12 @@ public class AddressBookGUITest {
         // Click 'save'
         window.menuItem("file").click();
         window.menuItem("save").click();
+        awaitFileTask();
 
         // Save over test file
         window.fileChooser().selectFile(testFile);
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Check that question message is shown for overwriting a book
         window.optionPane().requireQuestionMessage();
@@ -473,16 +484,19 @@ public class AddressBookGUITest {
         // Click 'save' again
         window.menuItem("file").click();
         window.menuItem("save").click();
+        awaitFileTask();
 
         // Save over test file
         window.fileChooser().selectFile(testFile);
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Check that question message is shown for overwriting a book
         window.optionPane().requireQuestionMessage();
 
         // Select 'Yes' this time
         window.dialog().button(JButtonMatcher.withText("Yes")).click();
+        awaitFileTask();
     }
 
     /**
@@ -498,6 +512,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -519,6 +534,7 @@ public class AddressBookGUITest {
         window.menuItem("saveAs").click();
         window.fileChooser().setCurrentDirectory(folder.getRoot()).fileNameTextBox().enterText("test file");
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Test file exists
         File file = new File(folder.getRoot() + "/test file");
@@ -538,6 +554,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -572,6 +589,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click print
         window.menuItem("file").click();
@@ -609,6 +627,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click print
         window.menuItem("file").click();
@@ -625,9 +644,10 @@ public class AddressBookGUITest {
      * the GUI has been replaced. The test still functions correctly
      * 
      * @throws SQLException if database cannot be connected.
+     * @throws IOException  if the file cannot be written.
      */
     @Test
-    public void errorShowsOnSaveFail() throws SQLException {
+    public void errorShowsOnSaveFail() throws SQLException, IOException {
         // Clear the started program
         window.cleanUp();
 
@@ -637,7 +657,8 @@ public class AddressBookGUITest {
         // Set table to throw exception
         AddressBook addressBookSpy = spy(new AddressBook());
         AddressBookController controllerSpy = spy(new AddressBookController(addressBookSpy));
-        doThrow(new SQLException("An error occurred during save")).when(controllerSpy).save(isA(File.class));
+        doThrow(new SQLException("An error occurred during save")).when(controllerSpy)
+                .save(isA(AddressBookController.Capture.class), isA(ProgressListener.class));
         addressBookGUI = GuiActionRunner.execute(() -> new AddressBookGUI(addressBookSpy, controllerSpy));
 
         // Start the application with the injected spies
@@ -649,6 +670,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click and get dialog window
         window.button("add").click();
@@ -670,6 +692,7 @@ public class AddressBookGUITest {
         // Click print
         window.menuItem("file").click();
         window.menuItem("save").click();
+        awaitFileTask();
 
         // Make sure that the error dialog is visible
         window.optionPane().requireErrorMessage();
@@ -686,6 +709,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -732,6 +756,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -778,6 +803,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'quit'
         window.menuItem("file").click();
@@ -803,6 +829,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -839,6 +866,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Click 'John Doe' test person entry and click 'Edit'
         window.table().cell("John").click();
@@ -874,6 +902,7 @@ public class AddressBookGUITest {
         window.menuItem("open").click();
         window.fileChooser().selectFile(testFile.getAbsoluteFile());
         window.fileChooser().approve();
+        awaitFileTask();
 
         // Type 'jan'
         window.textBox().enterText("jan");
@@ -949,4 +978,17 @@ public class AddressBookGUITest {
         // Check if save and saveAs match enabled state
         assertEquals(window.menuItem("save").isEnabled(), window.menuItem("saveAs").isEnabled());
     }
+
+    /**
+     * Waits for a file being opened or saved in the background to finish, so the
+     * table and menus show its result.
+     */
+    private void awaitFileTask() {
+        Pause.pause(new Condition("file to be opened or saved") {
+            @Override
+            public boolean test() {
+                return !addressBookGUI.isBusy();
+            }
+        }, 10000);
+    }
 }
\ No newline at end of file
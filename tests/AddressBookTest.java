@@ -4,6 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.TableModelEvent;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -212,4 +217,109 @@ class AddressBookTest {
         assertEquals("Last Name", test_AddressBook.getColumnName(0));
         assertEquals("Phone", test_AddressBook.getColumnName(6));
     }
-}
\ No newline at end of file
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * added, changed and removed persons are tracked by their id until the address
+     * book is marked as saved.
+     */
+    @Test
+    void changesAreTrackedUntilSaved() {
+        Person test_Person2 = new Person("Steely", "Phil", "19964 Miami Beach", "Miami", "OH", "85012", "2321232100");
+        test_AddressBook.add(test_Person);
+        test_AddressBook.add(test_Person2);
+        long firstId = test_AddressBook.getId(0);
+        long secondId = test_AddressBook.getId(1);
+        assertTrue(firstId != secondId);
+        assertEquals(2, test_AddressBook.getChangedRows().size());
+
+        // Nothing is left to write once saved
+        File file = new File("book.db");
+        test_AddressBook.markSaved(file);
+        assertTrue(test_AddressBook.isSyncedWith(file));
+        assertTrue(test_AddressBook.getChangedRows().isEmpty());
+
+        // Removing keeps the id of the remaining person and records the removal
+        test_AddressBook.remove(0);
+        assertEquals(secondId, test_AddressBook.getId(0));
+        assertTrue(test_AddressBook.getRemovedIds().contains(firstId));
+
+        // Setting records the new person under the same id
+        test_AddressBook.set(0, test_Person);
+        assertEquals(test_Person, test_AddressBook.getChangedRows().get(secondId));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * clearing the address book means it is no longer in sync with its file.
+     */
+    @Test
+    void clearForgetsSyncedFile() {
+        File file = new File("book.db");
+        test_AddressBook.add(test_Person);
+        test_AddressBook.markSaved(file);
+        test_AddressBook.clear();
+        assertFalse(test_AddressBook.isSyncedWith(file));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * adding many persons at once gives them increasing ids with a single table
+     * update, and that they can be found by id.
+     */
+    @Test
+    void addAllWithOneUpdate() {
+        test_AddressBook.add(test_Person);
+        List<Person> added = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            added.add(test_Person);
+        }
+        List<TableModelEvent> events = new ArrayList<>();
+        test_AddressBook.addTableModelListener(events::add);
+        test_AddressBook.addAll(added);
+
+        assertEquals(41, test_AddressBook.getRowCount());
+        assertEquals(1, events.size());
+        assertEquals(1, events.get(0).getFirstRow());
+        assertEquals(40, events.get(0).getLastRow());
+        assertEquals(41, test_AddressBook.getChangedRows().size());
+        for (int i = 1; i < 41; i++) {
+            assertTrue(test_AddressBook.getId(i) > test_AddressBook.getId(i - 1));
+            assertEquals(i, test_AddressBook.indexOf(test_AddressBook.getId(i)));
+        }
+        assertEquals(-1, test_AddressBook.indexOf(1000));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * content hash follows the rows and ids of the address book, whatever edits
+     * led to them.
+     */
+    @Test
+    void contentHashFollowsRows() {
+        Person other = new Person("Sweet", "Tea", "19964 Miami Beach", "Miami", "OH", "85012", "2321232010");
+        long empty = test_AddressBook.contentHash();
+        test_AddressBook.add(test_Person);
+        test_AddressBook.add(other);
+        long both = test_AddressBook.contentHash();
+        assertTrue(both != empty);
+
+        // Changed and changed back
+        test_AddressBook.set(1, test_Person);
+        assertTrue(test_AddressBook.contentHash() != both);
+        test_AddressBook.set(1, other);
+        assertEquals(both, test_AddressBook.contentHash());
+
+        // The same rows added in one step have the same hash
+        AddressBook copy = new AddressBook();
+        copy.addAll(List.of(test_Person, other));
+        assertEquals(both, copy.contentHash());
+
+        // The same persons under other ids do not
+        test_AddressBook.remove(1);
+        test_AddressBook.add(other);
+        assertTrue(test_AddressBook.contentHash() != both);
+        test_AddressBook.clear();
+        assertEquals(empty, test_AddressBook.contentHash());
+    }
+}
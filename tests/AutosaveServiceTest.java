@@ -0,0 +1,258 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * AutosaveServiceTest.java This is the test class for saving address books
+ * automatically after they are edited.
+ */
+public class AutosaveServiceTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static AddressBook addressBook = null; // An generic address book
+    private static AddressBookController controller = null; // A controller for the address book
+    private static File file = null; // The file saved to
+    private static BlockingQueue<Object> saves = null; // Failure, or file, of each save in order
+
+    /**
+     * This method runs before each test, saving an address book of two persons.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws Exception {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        saves = new LinkedBlockingQueue<>();
+
+        addressBook = new AddressBook();
+        controller = new AddressBookController(addressBook);
+        controller.add(person("John"));
+        controller.add(person("Jane"));
+        controller.save(file);
+    }
+
+    /**
+     * This method runs after each test, closing the file.
+     * 
+     * @throws Exception if file cannot be closed
+     */
+    @AfterEach
+    public void close() throws Exception {
+        controller.close();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * burst of edits is saved once, after the edits stop.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void burstOfEditsSavedOnce() throws Exception {
+        AutosaveService autosave = start(100, 5000);
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < 50; i++) {
+                controller.add(person("Bob"));
+            }
+            controller.remove(0);
+            assertTrue(autosave.isPending());
+        });
+
+        assertEquals(file, saves.poll(5, TimeUnit.SECONDS));
+        assertNull(saves.poll(300, TimeUnit.MILLISECONDS));
+        SwingUtilities.invokeAndWait(() -> assertFalse(autosave.isPending()));
+        autosave.close();
+
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, file);
+        assertEquals(51, read.getRowCount());
+        assertEquals("Doe, Jane", read.get(0).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * edits carrying on without a pause are still saved once the oldest is the
+     * maximum delay old.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void steadyEditsSavedByMaxDelay() throws Exception {
+        AutosaveService autosave = start(300, 400);
+        long end = System.currentTimeMillis() + 1000;
+        while (System.currentTimeMillis() < end) {
+            SwingUtilities.invokeAndWait(() -> controller.add(person("Bob")));
+            Thread.sleep(50);
+        }
+        assertFalse(saves.isEmpty());
+        autosave.close();
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * edits made while a copy is saved are kept for the next save, both in memory
+     * and in the journal.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void editsDuringSaveAreKept() throws Exception {
+        controller.add(person("Bob"));
+        AddressBookController.Capture capture = controller.capture(file);
+        controller.set(0, person("Johnny"));
+        controller.save(capture);
+
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, file);
+        assertEquals(3, read.getRowCount());
+        assertEquals("Doe, John", read.get(0).toString());
+
+        // The later edit is journaled and tracked for the next save
+        AddressBook recovered = new AddressBook();
+        FileSystem.readFile(recovered, file);
+        EditJournal.recover(recovered, file);
+        assertEquals("Doe, Johnny", recovered.get(0).toString());
+        controller.save(file);
+        FileSystem.readFile(read, file);
+        assertEquals("Doe, Johnny", read.get(0).toString());
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * replacing the whole table, or editing without a file to save to, does not
+     * save or leave edits pending.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void loadsAndUntitledBooksNotSaved() throws Exception {
+        AutosaveService autosave = start(50, 50);
+        SwingUtilities.invokeAndWait(() -> addressBook.fireTableDataChanged());
+        assertNull(saves.poll(300, TimeUnit.MILLISECONDS));
+        autosave.close();
+
+        AutosaveService untitled = new AutosaveService(controller, addressBook, () -> null, 50, 50,
+                (saved, failure) -> saves.add(saved));
+        SwingUtilities.invokeAndWait(() -> controller.add(person("Bob")));
+        assertNull(saves.poll(300, TimeUnit.MILLISECONDS));
+        SwingUtilities.invokeAndWait(() -> assertFalse(untitled.isPending()));
+        untitled.close();
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * edit made after a file is picked for an untitled book waits the full delay,
+     * however long ago the untitled book was edited.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void pickedFileWaitsFullDelay() throws Exception {
+        File[] target = new File[1];
+        AutosaveService autosave = new AutosaveService(controller, addressBook, () -> target[0], 300, 300,
+                (saved, failure) -> saves.add(failure == null ? saved : failure));
+        SwingUtilities.invokeAndWait(() -> controller.add(person("Bob")));
+        Thread.sleep(400);
+        SwingUtilities.invokeAndWait(() -> {
+            assertFalse(autosave.isPending());
+            target[0] = file;
+            controller.add(person("Bob"));
+            assertTrue(autosave.isPending());
+        });
+        assertNull(saves.poll(150, TimeUnit.MILLISECONDS));
+        assertEquals(file, saves.poll(5, TimeUnit.SECONDS));
+        autosave.close();
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * showing the changes another program made to the file, or emptying the
+     * address book, does not save.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void outsideChangesNotSaved() throws Exception {
+        AddressBook saved = new AddressBook();
+        FileSystem.readFile(saved, file);
+        saved.add(person("Bob"));
+        saved.remove(0);
+
+        AutosaveService autosave = start(50, 50);
+        SwingUtilities.invokeAndWait(() -> {
+            assertEquals(2, addressBook.mergeSaved(saved));
+            assertFalse(autosave.isPending());
+            controller.clear();
+            assertFalse(autosave.isPending());
+        });
+        assertNull(saves.poll(300, TimeUnit.MILLISECONDS));
+        autosave.close();
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that a
+     * failed save is reported, and that the next save writes every row.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void failedSaveIsReported() throws Exception {
+        File missing = new File(new File(folder.getRoot(), "missing"), "MyTestFile");
+        AutosaveService autosave = new AutosaveService(controller, addressBook, () -> missing, 50, 50,
+                (saved, failure) -> saves.add(failure == null ? saved : failure));
+        SwingUtilities.invokeAndWait(() -> controller.add(person("Bob")));
+        Object result = saves.poll(5, TimeUnit.SECONDS);
+        assertNotNull(result);
+        assertTrue(result instanceof Exception);
+        assertFalse(addressBook.isSyncedWith(file));
+        autosave.close();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new AutosaveService(controller, addressBook, () -> file, 100, 50, null));
+    }
+
+    /**
+     * A helper function to start saving the address book to the test file,
+     * recording each save.
+     * 
+     * @param delay    The time without edits before saving.
+     * @param maxDelay The longest time an edit waits to be saved.
+     * @return The service.
+     */
+    private static AutosaveService start(int delay, int maxDelay) {
+        return new AutosaveService(controller, addressBook, () -> file, delay, maxDelay,
+                (saved, failure) -> saves.add(failure == null ? saved : failure));
+    }
+
+    /**
+     * A helper function to make a person with the given first name.
+     * 
+     * @param firstName The first name of the person.
+     * @return The person.
+     */
+    private static Person person(String firstName) {
+        return new Person(firstName, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import javax.swing.table.DefaultTableModel;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * CsvExporterTest.java This is the test class for exporting persons as CSV and
+ * TSV files.
+ */
+public class CsvExporterTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static AddressBook addressBook = null; // An generic address book
+    private static File out = null; // The exported file
+
+    /**
+     * This method runs before each test to create an address book with two
+     * persons and a file to export to.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        addressBook = new AddressBook();
+        addressBook.add(new Person("John", "Doe", "1234 SomeStreet", "SomeCity", "FL", "12345", "1234567890"));
+        addressBook.add(new Person("Jane", "Dorian", "987 Westbrook Blvd", "Cincinnati", "OH", "43123", "0123456789"));
+        folder.create();
+        out = new File(folder.getRoot(), "export.csv");
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * address book is exported with a header, and can be imported again.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void exportAddressBook() throws IOException {
+        assertEquals(2, new CsvExporter().export(addressBook, out, ProgressListener.NONE));
+        List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.UTF_8);
+        assertEquals("Last Name,First Name,Address,City,State,ZIP,Phone", lines.get(0));
+        assertEquals("Doe,John,1234 SomeStreet,SomeCity,FL,12345,1234567890", lines.get(1));
+        assertEquals(3, lines.size());
+
+        // Import the export into another address book
+        AddressBook imported = new AddressBook();
+        CsvImporter.Result result = new CsvImporter().importFile(imported, out,
+                new File(folder.getRoot(), "errors.csv"), ProgressListener.NONE);
+        assertEquals(2, result.getImported());
+        assertEquals("Dorian, Jane", imported.get(1).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that only
+     * the chosen columns are exported in the chosen order, compressed and tab
+     * separated.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void exportColumnsAsGzipTsv() throws IOException {
+        new CsvExporter('\t', true, 6, 1).export(addressBook, out, ProgressListener.NONE);
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(out))) {
+            byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                text.write(buffer, 0, read);
+            }
+        }
+        assertEquals("Phone\tFirst Name\r\n1234567890\tJohn\r\n0123456789\tJane\r\n",
+                new String(text.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * fields holding the separator, quotes or line breaks are quoted.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void exportQuotesFields() throws IOException {
+        DefaultTableModel model = new DefaultTableModel(new Object[][] {
+                { "Doe, Jr", "Jo \"JJ\"", "Line 1\nLine 2", null, "FL", "12345", "1234567890" } }, Person.fields);
+        new CsvExporter().export(model, out, ProgressListener.NONE);
+        assertEquals(
+                "Last Name,First Name,Address,City,State,ZIP,Phone\r\n"
+                        + "\"Doe, Jr\",\"Jo \"\"JJ\"\"\",\"Line 1\nLine 2\",,FL,12345,1234567890\r\n",
+                new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * saved address book is exported straight from its file.
+     * 
+     * @throws IOException  if file cannot be read or written
+     * @throws SQLException if the address book file cannot be read
+     */
+    @Test
+    public void exportSavedFile() throws IOException, SQLException {
+        for (int i = 0; i < 2500; i++) {
+            addressBook.add(new Person("Bob", "Doe", "1 Main Street", "Naples", "FL", "34102", "2395551234"));
+        }
+        File database = folder.newFile("MyTestFile");
+        FileSystem.saveFile(addressBook, database);
+
+        long[] progress = new long[2];
+        long rows = new CsvExporter(',', false, 1, 0).export(database, out, (done, total) -> {
+            progress[0] = done;
+            progress[1] = total;
+        });
+        assertEquals(2502, rows);
+        assertEquals(2502, progress[0]);
+        assertEquals(2502, progress[1]);
+        List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2503, lines.size());
+        assertEquals("First Name,Last Name", lines.get(0));
+        assertEquals("Jane,Dorian", lines.get(2));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * exporting a missing or invalid address book file fails without leaving an
+     * export behind.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void exportInvalidFileThrowsException() throws IOException {
+        File database = new File(folder.getRoot(), "missing");
+        assertThrows(FileNotFoundException.class,
+                () -> new CsvExporter().export(database, out, ProgressListener.NONE));
+
+        File blank = folder.newFile("blank");
+        assertThrows(SQLException.class, () -> new CsvExporter().export(blank, out, ProgressListener.NONE));
+        assertFalse(out.exists());
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that an
+     * exporter cannot be created without valid columns or with an unusable
+     * separator.
+     */
+    @Test
+    public void invalidOptionsThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvExporter(',', false));
+        assertThrows(IllegalArgumentException.class, () -> new CsvExporter(',', false, 7));
+        assertThrows(IllegalArgumentException.class, () -> new CsvExporter('"', false, 0));
+        assertDoesNotThrow(() -> new CsvExporter(';', false, 0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CancellationException;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * CsvImporterTest.java This is the test class for importing persons from CSV
+ * files.
+ */
+public class CsvImporterTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static AddressBook addressBook = null; // An generic address book
+    private static StringWriter errors = null; // The error report
+
+    /**
+     * This method runs before each test to create a new address book and error
+     * report.
+     */
+    @BeforeEach
+    public void init() {
+        addressBook = new AddressBook();
+        errors = new StringWriter();
+    }
+
+    /**
+     * A helper function to import CSV text with small chunks spread over several
+     * threads.
+     * 
+     * @param csv The text to import.
+     * @return The number of rows imported and rejected.
+     * @throws IOException if the text cannot be read
+     */
+    private static CsvImporter.Result importText(String csv) throws IOException {
+        return new CsvImporter(3, 2).importCsv(addressBook, new StringReader(csv), csv.length(), errors,
+                ProgressListener.NONE);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * header row is used to find fields in any order, and that quoted fields are
+     * read.
+     * 
+     * @throws IOException if the text cannot be read
+     */
+    @Test
+    public void importWithHeader() throws IOException {
+        CsvImporter.Result result = importText("Phone,First Name,lastName,Address,City,STATE,ZIP\r\n"
+                + "1234567890,John,Doe,\"1234 SomeStreet\",SomeCity,FL,12345\r\n"
+                + "\r\n"
+                + "0123456789,Jane,\"Dor\"\"ian\",987 Westbrook Blvd,Cincinnati,OH,43123\r\n");
+
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals("Doe, John", addressBook.get(0).toString());
+        assertEquals("1234567890", addressBook.get(0).getPhone());
+        assertEquals("Dor\"ian, Jane", addressBook.get(1).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * rows without a header are read in table order, and that rows breaking the
+     * Person rules are written to the error report with their line.
+     * 
+     * @throws IOException if the text cannot be read
+     */
+    @Test
+    public void importRejectsInvalidRows() throws IOException {
+        CsvImporter.Result result = importText("Doe,John,1234 SomeStreet,SomeCity,FL,12345,1234567890\n"
+                + "Doe,Jane,1234 SomeStreet,SomeCity,XX,12345,1234567890\n"
+                + "Doe,Bob,\"1234, SomeStreet\nApt 2\",SomeCity,FL,12345,1234567890\n"
+                + "Doe,Tim,1234 SomeStreet\n"
+                + "Doe,Ann,1234 SomeStreet,SomeCity,FL,12345,1234567890");
+
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getRejected());
+        assertEquals("Doe, John", addressBook.get(0).toString());
+        assertEquals("Doe, Ann", addressBook.get(1).toString());
+        assertEquals("Line,Error,Last Name,First Name,Address,City,State,ZIP,Phone\r\n"
+                + "2,State Must be 2 Letter Code.,Doe,Jane,1234 SomeStreet,SomeCity,XX,12345,1234567890\r\n"
+                + "3,Address requires at least 2 characters.,Doe,Bob,\"1234, SomeStreet\nApt 2\",SomeCity,FL,12345,1234567890\r\n"
+                + "5,Expected 7 fields but found 3,Doe,Tim,1234 SomeStreet\r\n", errors.toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * file split into many chunks is added to the address book in file order.
+     * 
+     * @throws IOException if the text cannot be read
+     */
+    @Test
+    public void importKeepsFileOrder() throws IOException {
+        StringBuilder csv = new StringBuilder("Last Name,First Name,Address,City,State,ZIP,Phone\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("Doe,John").append(i).append(",1234 SomeStreet,SomeCity,FL,12345,1234567890\n");
+        }
+        CsvImporter.Result result = importText(csv.toString());
+
+        assertEquals(1000, result.getImported());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("John" + i, addressBook.get(i).getFirstName());
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * error report is only kept when rows were rejected.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void importFileKeepsReportOnlyForRejects() throws IOException {
+        folder.create();
+        File csv = folder.newFile("contacts.csv");
+        File report = new File(folder.getRoot(), "contacts.csv.errors.csv");
+
+        Files.write(csv.toPath(),
+                "Doe,John,1234 SomeStreet,SomeCity,FL,12345,1234567890\n".getBytes(StandardCharsets.UTF_8));
+        CsvImporter.Result result = new CsvImporter().importFile(addressBook, csv, report, ProgressListener.NONE);
+        assertEquals(1, result.getImported());
+        assertFalse(report.exists());
+
+        Files.write(csv.toPath(),
+                "Doe,John,1234 SomeStreet,SomeCity,FL,1234,1234567890\n".getBytes(StandardCharsets.UTF_8));
+        result = new CsvImporter().importFile(addressBook, csv, report, ProgressListener.NONE);
+        assertEquals(1, result.getRejected());
+        assertTrue(report.exists());
+        assertEquals(1, addressBook.getRowCount());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * files exported as TSV and with gzip are imported back as they were
+     * exported, including fields holding the other separator.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void exportedFilesImportedBack() throws IOException {
+        folder.create();
+        AddressBook exported = new AddressBook();
+        exported.add(new Person("John", "Doe", "1234 SomeStreet", "SomeCity", "FL", "12345", "1234567890"));
+        exported.add(new Person("Jane,Ann", "Doe", "987 Westbrook Blvd", "Cincinnati", "OH", "43123", "0123456789"));
+        for (String name : new String[] { "contacts.csv.gz", "contacts.tsv", "contacts.tsv.gz" }) {
+            File file = new File(folder.getRoot(), name);
+            CsvExporter.forFile(file).export(exported, file, ProgressListener.NONE);
+            AddressBook imported = new AddressBook();
+            File report = new File(folder.getRoot(), name + ".errors.csv");
+            CsvImporter.Result result = new CsvImporter().importFile(imported, file, report, ProgressListener.NONE);
+            assertEquals(2, result.getImported(), name);
+            assertEquals(0, result.getRejected(), name);
+            assertEquals("Doe, John", imported.get(0).toString());
+            assertEquals("Doe, Jane,Ann", imported.get(1).toString());
+            assertEquals("43123", imported.get(1).getZip());
+        }
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that a
+     * header missing a field is not imported.
+     */
+    @Test
+    public void headerMissingFieldThrowsException() {
+        assertThrows(IOException.class, () -> importText("Last Name,First Name,Address,City,State,ZIP\n"));
+        assertThrows(IOException.class, () -> importText("Doe,\"John,1234 SomeStreet\n"));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that an
+     * importer cannot be created with no threads or empty chunks.
+     */
+    @Test
+    public void invalidSizesThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvImporter(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CsvImporter(1, 0));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that an
+     * import is stopped when the importing thread is interrupted.
+     */
+    @Test
+    public void cancelledImportThrowsException() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class,
+                    () -> importText("Doe,John,1234 SomeStreet,SomeCity,FL,12345,1234567890\n"
+                            + "Doe,Jane,1234 SomeStreet,SomeCity,FL,12345,1234567890\n"
+                            + "Doe,Bob,1234 SomeStreet,SomeCity,FL,12345,1234567890\n"
+                            + "Doe,Ann,1234 SomeStreet,SomeCity,FL,12345,1234567890\n"));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
\ No newline at end of file
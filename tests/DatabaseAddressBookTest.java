@@ -0,0 +1,461 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * DatabaseAddressBookTest.java This is the test class for address books kept
+ * in their file rather than in memory.
+ */
+public class DatabaseAddressBookTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static File file = null; // The address book file
+    private static DatabaseAddressBook addressBook = null; // An address book kept in the file
+
+    /**
+     * This method runs before each test, keeping an empty address book in a new
+     * file with small pages.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws Exception {
+        folder.create();
+        file = new File(folder.getRoot(), "MyTestFile");
+        file.delete();
+        addressBook = new DatabaseAddressBook(file, 4, 2);
+    }
+
+    /**
+     * This method runs after each test, closing the file.
+     * 
+     * @throws Exception if file cannot be closed
+     */
+    @AfterEach
+    public void close() throws Exception {
+        addressBook.close();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * edits made through the controller are in the file without saving.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void editsWrittenToFile() throws Exception {
+        AddressBookController controller = new AddressBookController(addressBook);
+        for (int i = 0; i < 10; i++) {
+            controller.add(person("Bob" + i));
+        }
+        controller.set(3, person("Janet"));
+        controller.remove(0);
+        assertEquals(9, addressBook.getRowCount());
+        assertEquals("Doe, Janet", addressBook.get(2).toString());
+
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, file);
+        assertEquals(9, read.getRowCount());
+        for (int row = 0; row < read.getRowCount(); row++) {
+            assertEquals(addressBook.getId(row), read.getId(row));
+            assertEquals(addressBook.get(row).toString(), read.get(row).toString());
+        }
+
+        // Saving to the file itself has nothing left to write, and nothing is journaled
+        controller.save(file);
+        assertFalse(EditJournal.journalFile(file).exists());
+        controller.close();
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that no
+     * more pages are held in memory than the cache size, however many rows are
+     * read.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void pageCacheIsBounded() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            persons.add(person(String.format("Bob%02d", i)));
+        }
+        addressBook.addAll(persons);
+        for (int row = 0; row < 50; row++) {
+            assertEquals("Bob" + String.format("%02d", row), addressBook.get(row).getFirstName());
+        }
+        assertTrue(addressBook.getCachedPageCount() <= 2);
+
+        // Reading backwards, and removing from the middle, still finds every row
+        addressBook.remove(20);
+        for (int row = 48; row >= 0; row--) {
+            assertEquals(row < 20 ? row : row + 1, Integer.parseInt(addressBook.get(row).getFirstName().substring(3)));
+            assertEquals(row, addressBook.indexOf(addressBook.getId(row)));
+        }
+        assertEquals(-1, addressBook.indexOf(-5));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * index of an id is found by bisecting the pages, including ids removed, in
+     * gaps between rows and past the last row, and after the pages are forgotten.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void indexOfBisectsPages() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            persons.add(person("Bob" + i));
+        }
+        addressBook.addAll(persons);
+        long removed = addressBook.getId(33);
+        addressBook.remove(33);
+        addressBook.remove(8);
+
+        long[] ids = new long[48];
+        for (int row = 0; row < ids.length; row++) {
+            ids[row] = addressBook.getId(row);
+        }
+
+        // Read the file again, so no page or page end is known
+        addressBook.attach(file);
+        assertEquals(45, addressBook.indexOf(ids[45]));
+        for (int row = 0; row < ids.length; row++) {
+            assertEquals(row, addressBook.indexOf(ids[row]));
+        }
+        assertEquals(0, addressBook.getCachedPageCount());
+        for (int row = ids.length - 1; row >= 0; row--) {
+            assertEquals(ids[row], addressBook.getId(row));
+            assertEquals(row, addressBook.indexOf(ids[row]));
+        }
+        assertTrue(addressBook.getCachedPageCount() <= 2);
+        assertEquals(-1, addressBook.indexOf(removed));
+        assertEquals(-1, addressBook.indexOf(0));
+        assertEquals(-1, addressBook.indexOf(addressBook.getId(47) + 1));
+
+        // Rows added at the end are found once only the last page is forgotten
+        addressBook.add(person("Ann"));
+        assertEquals(48, addressBook.indexOf(addressBook.getId(48)));
+        addressBook.clear();
+        assertEquals(-1, addressBook.indexOf(1));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * changes made to the file by another program are shown on refresh.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void refreshShowsOtherChanges() throws Exception {
+        addressBook.add(person("John"));
+        addressBook.add(person("Jane"));
+        assertFalse(addressBook.refresh());
+
+        try (Connection other = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = other.createStatement()) {
+            statement.executeUpdate("INSERT INTO persons (lastName, firstName, address, city, state, zip, phone) "
+                    + "VALUES ('Roe', 'Rick', '1 Main St', 'Naples', 'FL', '34102', '2395550000')");
+        }
+        assertTrue(addressBook.refresh());
+        assertEquals(3, addressBook.getRowCount());
+        assertEquals("Roe, Rick", addressBook.get(2).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * searches use the index of the file and give table indexes.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void searchUsesFileIndex() throws Exception {
+        AddressBookController controller = new AddressBookController(addressBook);
+        controller.add(person("John"));
+        controller.add(person("Jane"));
+        controller.add(person("Johnny"));
+        controller.remove(0);
+        assertArrayEquals(new int[] { 1 }, controller.search("joh"));
+        assertArrayEquals(new int[] { 0, 1 }, controller.search("doe"));
+        assertArrayEquals(new int[] { 0, 1 }, controller.search(""));
+        controller.close();
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * invalid sizes and rows out of range throw exceptions.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void invalidUseThrowsException() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new DatabaseAddressBook(file, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new DatabaseAddressBook(file, 1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> addressBook.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> addressBook.remove(0));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * clearing the address book shows a new empty file and leaves the rows of the
+     * file shown before, and that the new file is deleted once another is shown.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void clearKeepsFileRows() throws Exception {
+        addressBook.add(person("John"));
+        addressBook.add(person("Jane"));
+        addressBook.clear();
+        assertEquals(0, addressBook.getRowCount());
+        File temporary = addressBook.getFile();
+        assertFalse(temporary.equals(file.getAbsoluteFile()));
+
+        addressBook.add(person("Bob"));
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, file);
+        assertEquals(2, read.getRowCount());
+
+        addressBook.attach(file);
+        assertFalse(temporary.exists());
+        assertEquals(2, addressBook.getRowCount());
+        assertEquals("Doe, Jane", addressBook.get(1).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * id of the last row is not given again after the row is removed, even after
+     * the file is opened again, and that journaled adds of used ids are skipped.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void idsNeverReused() throws Exception {
+        addressBook.add(person("John"));
+        addressBook.add(person("Jane"));
+        long removed = addressBook.getId(1);
+        addressBook.remove(1);
+        addressBook.add(person("Bob"));
+        assertEquals(removed + 1, addressBook.getId(1));
+
+        addressBook.remove(1);
+        addressBook.close();
+        addressBook = new DatabaseAddressBook(file, 4, 2);
+        addressBook.add(person("Rick"));
+        assertEquals(removed + 2, addressBook.getId(1));
+
+        assertFalse(addressBook.addWithId(removed, person("Bob")));
+        assertTrue(addressBook.addWithId(removed + 5, person("Ann")));
+        assertEquals(3, addressBook.getRowCount());
+        assertEquals(2, addressBook.indexOf(removed + 5));
+        addressBook.add(person("Sam"));
+        assertEquals(removed + 6, addressBook.getId(3));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * opening files and showing a book read in the background switch the file
+     * shown, writing nothing to the file shown before.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void openSwitchesFile() throws Exception {
+        File other = new File(folder.getRoot(), "OtherFile");
+        other.delete();
+        AddressBook saved = new AddressBook();
+        saved.add(person("Rick"));
+        saved.add(person("Ann"));
+        FileSystem.saveFile(saved, other);
+
+        AddressBookController controller = new AddressBookController(addressBook);
+        controller.add(person("John"));
+        controller.open(other);
+        assertEquals(other.getAbsoluteFile(), addressBook.getFile());
+        assertEquals(2, addressBook.getRowCount());
+        assertEquals("Doe, Ann", addressBook.get(1).toString());
+
+        // A book read in the background brings its recovered edits along
+        AddressBook loaded = controller.load(file, ProgressListener.NONE);
+        loaded.add(person("Jane"));
+        loaded.set(0, person("Johnny"));
+        controller.replace(loaded);
+        assertEquals(file.getAbsoluteFile(), addressBook.getFile());
+        assertEquals(0, loaded.getRowCount());
+        assertEquals(2, addressBook.getRowCount());
+        assertEquals("Doe, Johnny", addressBook.get(0).toString());
+        assertEquals("Doe, Jane", addressBook.get(1).toString());
+
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, other);
+        assertEquals(2, read.getRowCount());
+        assertEquals("Doe, Rick", read.get(0).toString());
+
+        // Saving to another file keeps the book in that file from then on
+        File copy = new File(folder.getRoot(), "CopyFile");
+        copy.delete();
+        controller.save(copy);
+        assertEquals(copy.getAbsoluteFile(), addressBook.getFile());
+        assertTrue(controller.holdsLastSave(copy));
+        controller.close();
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * edits journaled for a file by an address book held in memory are recovered
+     * into the file when it is opened as a database.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void journalRecoveredIntoFile() throws Exception {
+        File saved = new File(folder.getRoot(), "SavedFile");
+        saved.delete();
+        AddressBook memory = new AddressBook();
+        memory.add(person("John"));
+        memory.add(person("Jane"));
+        FileSystem.saveFile(memory, saved);
+
+        EditJournal journal = new EditJournal(saved, memory);
+        memory.add(person("Bob"));
+        journal.recordAdd(memory.getId(2), memory.get(2));
+        journal.recordRemove(memory.getId(0));
+        journal.sync();
+        journal.close();
+
+        AddressBookController controller = new AddressBookController(addressBook);
+        controller.open(saved);
+        assertTrue(controller.wasRecovered());
+        assertEquals(2, addressBook.getRowCount());
+        assertEquals("Doe, Jane", addressBook.get(0).toString());
+        assertEquals("Doe, Bob", addressBook.get(1).toString());
+
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, saved);
+        assertEquals(2, read.getRowCount());
+        controller.close();
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * file written before rows had ids is shown and searched without being
+     * changed, and is only migrated when the first edit is written to it.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void olderFileMigratedOnFirstEdit() throws Exception {
+        File old = new File(folder.getRoot(), "OldFile");
+        old.delete();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + old.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute(
+                    "CREATE TABLE persons (firstName TEXT, lastName TEXT, address TEXT, city TEXT, state TEXT, zip TEXT, phone TEXT)");
+            statement.execute(
+                    "INSERT INTO persons VALUES ('John', 'Doe', '1234 SomeStreet', 'SomeCity', 'FL', '12345', '1234567890')");
+            statement.execute(
+                    "INSERT INTO persons VALUES ('Jane', 'Doe', '1234 SomeStreet', 'SomeCity', 'FL', '12345', '1234567890')");
+        }
+
+        addressBook.attach(old);
+        assertEquals(2, addressBook.getRowCount());
+        assertEquals("Doe, Jane", addressBook.get(1).toString());
+        assertEquals(2, addressBook.getId(1));
+        assertEquals(1, addressBook.indexOf(2));
+        assertArrayEquals(new int[] { 1 }, addressBook.search(new String[] { "jane" }));
+        assertEquals(0, version(old));
+
+        addressBook.add(person("Bob"));
+        assertEquals(Schema.VERSION, version(old));
+        assertEquals(3, addressBook.getId(2));
+        assertArrayEquals(new int[] { 2 }, addressBook.search(new String[] { "bob" }));
+
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, old);
+        assertEquals(3, read.getRowCount());
+        assertEquals("Doe, John", read.get(0).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * rows, hash and tracked changes an address book keeps in memory are answered
+     * from the file.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void memoryStateAnsweredFromFile() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            addressBook.add(person("Bob" + i));
+        }
+        addressBook.remove(0);
+        addressBook.set(0, person("Ann"));
+        assertTrue(addressBook.getChangedRows().isEmpty());
+        assertTrue(addressBook.getRemovedIds().isEmpty());
+        assertEquals(file.getAbsoluteFile(), addressBook.getSyncedFile());
+
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, file);
+        assertEquals(read.contentHash(), addressBook.contentHash());
+        AddressBook copy = addressBook.copyRows();
+        assertEquals(5, copy.getRowCount());
+        assertEquals(addressBook.getId(4), copy.getId(4));
+        assertEquals(read.contentHash(), copy.contentHash());
+
+        addressBook.markUnsynced();
+        assertTrue(addressBook.isSyncedWith(file));
+
+        // Rows another program wrote are shown by reading the file again
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM persons");
+        }
+        assertEquals(0, addressBook.mergeSaved(new AddressBook()));
+        assertEquals(0, addressBook.getRowCount());
+    }
+
+    /**
+     * A helper function to read the layout version of a file.
+     * 
+     * @param file The file to read.
+     * @return The version recorded in the file.
+     * @throws Exception if the file cannot be read
+     */
+    private static int version(File file) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            return Schema.version(connection);
+        }
+    }
+
+    /**
+     * A helper function to make a person with the given first name.
+     * 
+     * @param firstName The first name of the person.
+     * @return The person.
+     */
+    private static Person person(String firstName) {
+        return new Person(firstName, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,301 @@
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * EditJournalTest.java This is the test class for the journal of unsaved edits
+ * kept next to a saved address book.
+ */
+public class EditJournalTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static AddressBook addressBook = null; // An generic address book
+    private static File file = null; // The saved address book
+
+    /**
+     * This method runs before each test, saving an address book of two persons.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+
+        addressBook = new AddressBook();
+        addressBook.add(person("John", "1234567890"));
+        addressBook.add(person("Jane", "0123456789"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that edits
+     * journaled after a save are recovered on top of the saved file.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void recoverJournaledEdits() throws Exception {
+        EditJournal journal = new EditJournal(file, addressBook);
+        edit(journal);
+        journal.sync();
+        journal.close();
+        assertTrue(EditJournal.journalFile(file).exists());
+
+        AddressBook recovered = new AddressBook();
+        FileSystem.readFile(recovered, file);
+        assertTrue(EditJournal.recover(recovered, file));
+        assertSameRows(addressBook, recovered);
+
+        // The recovered edits are saved as changes to the file
+        FileSystem.saveFile(recovered, file);
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, file);
+        assertSameRows(addressBook, read);
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * record cut off part way through is ignored and removed from the journal.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void tornRecordIsIgnored() throws Exception {
+        EditJournal journal = new EditJournal(file, addressBook);
+        addressBook.add(person("Bob", "2395551234"));
+        journal.recordAdd(addressBook.getId(2), addressBook.get(2));
+        journal.recordRemove(addressBook.getId(0));
+        journal.close();
+
+        // Cut the end off the removal
+        File journaled = EditJournal.journalFile(file);
+        try (RandomAccessFile torn = new RandomAccessFile(journaled, "rw")) {
+            torn.setLength(torn.length() - 3);
+        }
+        AddressBook recovered = new AddressBook();
+        FileSystem.readFile(recovered, file);
+        assertTrue(EditJournal.recover(recovered, file));
+        assertEquals(3, recovered.getRowCount());
+        assertEquals("Doe, Bob", recovered.get(2).toString());
+
+        // Reopening the journal drops the torn record before appending more
+        long length = journaled.length();
+        EditJournal reopened = new EditJournal(file, recovered);
+        assertTrue(reopened.size() < length);
+        reopened.recordRemove(recovered.getId(1));
+        recovered.remove(1);
+        reopened.close();
+
+        AddressBook again = new AddressBook();
+        FileSystem.readFile(again, file);
+        EditJournal.recover(again, file);
+        assertSameRows(recovered, again);
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * journal past its size limit is compacted into a checkpoint, and that the
+     * checkpoint and what is left of the journal recover every edit.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void compactIntoCheckpoint() throws Exception {
+        EditJournal journal = new EditJournal(file, addressBook, 4096, 0);
+        for (int i = 0; i < 200; i++) {
+            addressBook.add(person("Bob", String.format("%010d", i)));
+            journal.recordAdd(addressBook.getId(addressBook.getRowCount() - 1),
+                    addressBook.get(addressBook.getRowCount() - 1));
+            if (i % 3 == 0) {
+                journal.recordRemove(addressBook.getId(0));
+                addressBook.remove(0);
+            }
+        }
+        journal.close();
+        assertTrue(EditJournal.checkpointFile(file).exists());
+
+        // Any records appended while compacting are compacted by the next record
+        EditJournal reopened = new EditJournal(file, addressBook, 4096, 0);
+        reopened.recordSet(addressBook.getId(0), addressBook.get(0));
+        reopened.close();
+        assertTrue(EditJournal.journalFile(file).length() <= 4096);
+
+        AddressBook recovered = new AddressBook();
+        FileSystem.readFile(recovered, file);
+        assertTrue(EditJournal.recover(recovered, file));
+        assertSameRows(addressBook, recovered);
+
+        // Saving deletes the checkpoint only once it is no longer mapped
+        SnapshotFile checkpoint = SnapshotFile.open(EditJournal.checkpointFile(file));
+        EditJournal saved = new EditJournal(file, recovered);
+        saved.reset();
+        saved.close();
+        assertFalse(EditJournal.checkpointFile(file).exists());
+        assertFalse(checkpoint.isMapped());
+        assertSameRows(addressBook, recovered);
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * address book shown from a snapshot, with rows not decoded yet, is compacted
+     * into a checkpoint holding every row, and that edits made after its rows are
+     * copied do not change the copy.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void compactUndecodedRows() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            addressBook.add(person("Bob", String.format("%010d", i)));
+        }
+        File snapshot = new File(folder.getRoot(), "book" + SnapshotFile.EXTENSION);
+        SnapshotFile.write(addressBook, snapshot, ProgressListener.NONE);
+        AddressBook shown = new AddressBook();
+        shown.replaceAll(SnapshotFile.open(snapshot));
+
+        AddressBook copy = shown.copyRows();
+        shown.set(0, person("Janet", "0123456789"));
+        assertTrue(copy.getChangedRows().isEmpty());
+        assertSameRows(addressBook, copy);
+
+        EditJournal journal = new EditJournal(file, shown, 64, 0);
+        journal.recordSet(shown.getId(0), shown.get(0));
+        journal.close();
+        AddressBook checkpoint = new AddressBook();
+        checkpoint.replaceAll(SnapshotFile.open(EditJournal.checkpointFile(file)));
+        assertSameRows(shown, checkpoint);
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * records already held by the checkpoint are harmless when replayed again, as
+     * after a crash part way through compaction.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void replayIsRepeatable() throws Exception {
+        EditJournal journal = new EditJournal(file, addressBook);
+        edit(journal);
+        journal.close();
+        SnapshotFile.write(addressBook, EditJournal.checkpointFile(file), ProgressListener.NONE);
+
+        AddressBook recovered = new AddressBook();
+        FileSystem.readFile(recovered, file);
+        assertTrue(EditJournal.recover(recovered, file));
+        assertSameRows(addressBook, recovered);
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * controller empties the journal on save and deletes it on close, leaving
+     * nothing to recover.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void controllerKeepsJournal() throws Exception {
+        AddressBook opened = new AddressBook();
+        AddressBookController controller = new AddressBookController(opened);
+        controller.open(file);
+        assertFalse(controller.wasRecovered());
+        File journaled = EditJournal.journalFile(file);
+        assertTrue(journaled.exists());
+
+        controller.add(person("Bob", "2395551234"));
+        controller.save(file);
+        assertEquals(8, journaled.length());
+
+        controller.remove(0);
+        controller.close();
+        assertFalse(journaled.exists());
+        AddressBook reopened = new AddressBook();
+        assertFalse(EditJournal.recover(reopened, file));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that files
+     * that are not journals are not replayed, and that a closed journal takes no
+     * more records.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void invalidJournalThrowsException() throws IOException {
+        File journaled = EditJournal.journalFile(file);
+        try (RandomAccessFile other = new RandomAccessFile(journaled, "rw")) {
+            other.writeLong(42);
+            other.writeLong(42);
+        }
+        assertThrows(IOException.class, () -> EditJournal.recover(new AddressBook(), file));
+        assertThrows(IOException.class, () -> new EditJournal(file, addressBook));
+
+        journaled.delete();
+        EditJournal journal = new EditJournal(file, addressBook);
+        journal.close();
+        assertThrows(IllegalStateException.class, () -> journal.recordRemove(1));
+        assertThrows(IllegalArgumentException.class, () -> new EditJournal(file, addressBook, -1, 0));
+    }
+
+    /**
+     * A helper function to add, change and remove persons, journaling each edit.
+     * 
+     * @param journal The journal to record the edits in.
+     */
+    private static void edit(EditJournal journal) {
+        addressBook.add(person("Bob", "2395551234"));
+        journal.recordAdd(addressBook.getId(2), addressBook.get(2));
+        addressBook.set(1, person("Janet", "0123456789"));
+        journal.recordSet(addressBook.getId(1), addressBook.get(1));
+        journal.recordRemove(addressBook.getId(0));
+        addressBook.remove(0);
+        addressBook.add(person("Al\u00f6ys", "1112223333"));
+        journal.recordAdd(addressBook.getId(2), addressBook.get(2));
+    }
+
+    /**
+     * A helper function to make a person with the given first name and phone.
+     * 
+     * @param firstName The first name of the person.
+     * @param phone     The phone number of the person.
+     * @return The person.
+     */
+    private static Person person(String firstName, String phone) {
+        return new Person(firstName, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", phone);
+    }
+
+    /**
+     * A helper function to check two address books hold the same persons with the
+     * same ids.
+     * 
+     * @param expected The address book expected.
+     * @param actual   The address book to check.
+     */
+    private static void assertSameRows(AddressBook expected, AddressBook actual) {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        for (int row = 0; row < expected.getRowCount(); row++) {
+            assertEquals(expected.getId(row), actual.getId(row));
+            for (int field = 0; field < Person.fields.length; field++) {
+                assertEquals(expected.get(row).getField(field), actual.get(row).getField(field));
+            }
+        }
+    }
+}
\ No newline at end of file
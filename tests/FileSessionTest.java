@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * FileSessionTest.java This is the test class for sessions kept open on an
+ * address book file.
+ */
+public class FileSessionTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static File file = null; // A java file for testing
+
+    /**
+     * This method runs before each test, to create a file to test with.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * statement is only prepared once per session.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void prepareReusesStatements() throws SQLException {
+        try (FileSession session = new FileSession(file)) {
+            PreparedStatement statement = session.prepare("SELECT ?");
+            statement.setInt(1, 1);
+            assertSame(statement, session.prepare("SELECT ?"));
+            assertFalse(statement == session.prepare("SELECT 1"));
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * closing a session closes its statements and connection.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void closeClosesStatements() throws SQLException {
+        FileSession session = new FileSession(file);
+        PreparedStatement statement = session.prepare("SELECT 1");
+        session.close();
+        assertTrue(statement.isClosed());
+        assertTrue(session.getConnection().isClosed());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * session knows which file it is open on.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void isForSameFile() throws SQLException {
+        try (FileSession session = new FileSession(file)) {
+            assertTrue(session.isFor(new File(file.getParentFile(), file.getName())));
+            assertTrue(session.isFor(file));
+            assertFalse(session.isFor(new File(file.getParentFile(), "OtherFile")));
+            assertEquals(file.getAbsoluteFile(), session.getFile());
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * address book can be saved, edited and saved again through one session.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void saveTwiceThroughSession() throws SQLException {
+        AddressBook addressBook = new AddressBook();
+        try (FileSession session = new FileSession(file)) {
+            addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+            FileSystem.saveFile(addressBook, session, ProgressListener.NONE);
+            addressBook.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+            FileSystem.saveFile(addressBook, session, ProgressListener.NONE);
+
+            AddressBook read = new AddressBook();
+            FileSystem.readFile(read, session, ProgressListener.NONE);
+            assertEquals(2, read.getRowCount());
+        }
+
+        // Check the file is complete once the session is closed
+        AddressBook read = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(read, file));
+        assertEquals("Doe, Jane", read.get(1).toString());
+    }
+}
\ No newline at end of file
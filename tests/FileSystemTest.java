@@ -3,7 +3,16 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.event.TableModelEvent;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.doReturn;
@@ -191,4 +200,330 @@ public class FileSystemTest {
         assertEquals("Doe, Bob", addressBook.getPersons()[0].toString());
         assertEquals("Doe, Joe", addressBook.getPersons()[1].toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * save split across several JDBC batches writes every person to the file.
+     */
+    @Test
+    public void saveAcrossMultipleBatches() {
+        // Use a small batch size so the save needs several batches
+        FileSystem.setBatchSize(3);
+        try {
+            for (int i = 0; i < 10; i++) {
+                addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345",
+                        "123456789" + i));
+            }
+            assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+        } finally {
+            FileSystem.setBatchSize(FileSystem.DEFAULT_BATCH_SIZE);
+        }
+
+        // Read the file back and check all persons were written in order
+        addressBook = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file));
+        assertEquals(10, addressBook.getPersons().length);
+        assertEquals("1234567899", addressBook.get(9).getPhone());
+
+        // Check the save reported its throughput
+        assertTrue(FileSystem.getLastSaveRate() > 0);
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that a
+     * batch size smaller than one is rejected.
+     */
+    @Test
+    public void invalidBatchSizeThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> FileSystem.setBatchSize(0));
+        assertEquals(FileSystem.DEFAULT_BATCH_SIZE, FileSystem.getBatchSize());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that saving
+     * back to the file a book was read from only writes the rows that changed,
+     * leaving every other row in the file untouched.
+     * 
+     * @throws SQLException if the test file cannot be edited directly
+     */
+    @Test
+    public void saveOnlyWritesChangedRows() throws SQLException {
+        // Save three people and read them back
+        addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        addressBook.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        addressBook.add(new Person("Bob", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+        addressBook = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file));
+
+        // Change Jane's city behind the address book's back
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE persons SET city = 'OtherCity' WHERE firstName = 'Jane'");
+        }
+
+        // Edit John, remove Bob and add Joe, then save again
+        addressBook.set(0, new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "GA", "12345", "1234567890"));
+        addressBook.remove(2);
+        addressBook.add(new Person("Joe", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+
+        // Check the changes were applied and Jane's row was not rewritten
+        addressBook = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file));
+        assertEquals(3, addressBook.getPersons().length);
+        assertEquals("GA", addressBook.get(0).getState());
+        assertEquals("OtherCity", addressBook.get(1).getCity());
+        assertEquals("Doe, Joe", addressBook.get(2).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * file written before rows had ids can be read, edited and saved back.
+     * 
+     * @throws SQLException if the test file cannot be created
+     */
+    @Test
+    public void saveOverFileWithoutIds() throws SQLException {
+        // Create a file in the format without an id column
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute(
+                    "CREATE TABLE persons (firstName TEXT, lastName TEXT, address TEXT, city TEXT, state TEXT, zip TEXT, phone TEXT)");
+            statement.execute(
+                    "INSERT INTO persons VALUES ('John', 'Doe', '1234 SomeStreet', 'SomeCity', 'FL', '12345', '1234567890')");
+        }
+
+        // Read it, add a person and save
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file));
+        addressBook.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+
+        // Check both persons are in the file
+        addressBook = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file));
+        assertEquals(2, addressBook.getPersons().length);
+        assertEquals("Doe, John", addressBook.get(0).toString());
+        assertEquals("Doe, Jane", addressBook.get(1).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * reading a file reports progress up to the number of rows in it.
+     */
+    @Test
+    public void readReportsProgress() {
+        addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        addressBook.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+
+        // Read the file, remembering the last progress reported
+        AtomicLong done = new AtomicLong(-1);
+        AtomicLong total = new AtomicLong(-1);
+        addressBook = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file, (d, t) -> {
+            done.set(d);
+            total.set(t);
+        }));
+        assertEquals(2, done.get());
+        assertEquals(2, total.get());
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that a
+     * save cancelled by interrupting the saving thread leaves the file as it was.
+     */
+    @Test
+    public void cancelledSaveLeavesFileUnchanged() {
+        addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+
+        // Save again from an interrupted thread
+        addressBook.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> FileSystem.saveFile(addressBook, file));
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Check only the first save is in the file
+        AddressBook saved = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(saved, file));
+        assertEquals(1, saved.getPersons().length);
+        assertFalse(addressBook.getChangedRows().isEmpty());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that saving
+     * rows the file already holds, or reading the file back into the address book
+     * it was saved from, does no work.
+     */
+    @Test
+    public void unchangedSaveAndReadSkipped() {
+        addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        addressBook.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+
+        // The same rows in a book not read from the file
+        AddressBook same = new AddressBook();
+        same.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        same.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        AtomicLong total = new AtomicLong(-1);
+        assertDoesNotThrow(() -> FileSystem.saveFile(same, file, (d, t) -> total.set(t)));
+        assertEquals(0, total.get());
+        assertTrue(same.isSyncedWith(file));
+        assertTrue(same.getChangedRows().isEmpty());
+
+        // Read back into the book it was saved from
+        total.set(-1);
+        List<TableModelEvent> events = new ArrayList<>();
+        addressBook.addTableModelListener(events::add);
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file, (d, t) -> total.set(t)));
+        assertEquals(0, total.get());
+        assertTrue(events.isEmpty());
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that rows
+     * changed in the file by another program are read and saved again, as the
+     * file no longer records the hash of what was saved.
+     * 
+     * @throws SQLException if the file cannot be written
+     */
+    @Test
+    public void externallyChangedFileNotSkipped() throws SQLException {
+        addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+        try (Connection other = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = other.createStatement()) {
+            statement.executeUpdate("UPDATE persons SET firstName = 'Johnny'");
+        }
+
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file));
+        assertEquals("Doe, Johnny", addressBook.get(0).toString());
+
+        // Saving the old rows over the change writes them again
+        AddressBook old = new AddressBook();
+        old.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        AtomicLong total = new AtomicLong(-1);
+        assertDoesNotThrow(() -> FileSystem.saveFile(old, file, (d, t) -> total.set(t)));
+        assertEquals(1, total.get());
+        AddressBook saved = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(saved, file));
+        assertEquals("Doe, John", saved.get(0).toString());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * state and city repeated across rows read are held once, until the
+     * address book showing them is cleared.
+     * 
+     * @throws SQLException if file cannot be read or written
+     */
+    @Test
+    public void repeatedFieldsShared() throws SQLException {
+        for (String name : new String[] { "John", "Jane", "Bob" }) {
+            addressBook.add(new Person(name, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        }
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+
+        AddressBook read = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(read, file));
+        for (int row = 1; row < 3; row++) {
+            assertSame(read.get(0).getCity(), read.get(row).getCity());
+            assertSame(read.get(0).getState(), read.get(row).getState());
+        }
+        assertEquals(2, read.stringPool().size());
+        assertEquals(4, read.stringPool().hits());
+
+        // A book taking over the rows read takes over their pool too
+        StringPool pool = read.stringPool();
+        AddressBook shown = new AddressBook();
+        shown.replaceWith(read);
+        assertSame(pool, shown.stringPool());
+        assertEquals(0, read.stringPool().size());
+
+        shown.clear();
+        assertEquals(0, shown.stringPool().size());
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that rows another program made invalid are still read, and that checking the
+     * file reports every one of them by id.
+     * 
+     * @throws SQLException if file cannot be read or written
+     */
+    @Test
+    public void invalidRowsReadAndVerified() throws SQLException {
+        addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        addressBook.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        addressBook.add(new Person("Bob", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+        assertTrue(assertDoesNotThrow(() -> FileSystem.verifyFile(file)).isEmpty());
+        try (Connection other = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = other.createStatement()) {
+            statement.executeUpdate("UPDATE persons SET zip = '1' WHERE id = 1");
+            statement.executeUpdate("UPDATE persons SET state = NULL, zip = '1' WHERE id = 3");
+        }
+
+        AddressBook read = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(read, file));
+        assertEquals(3, read.getRowCount());
+        assertEquals("1", read.get(0).getZip());
+        Map<Long, String> invalid = assertDoesNotThrow(() -> FileSystem.verifyFile(file));
+        assertEquals(2, invalid.size());
+        assertEquals("ZipCode Must be 5 numbers", invalid.get(1L));
+        assertEquals("State Must be 2 Letter Code.", invalid.get(3L));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * file saved to while it is backed up is copied whole, as the save left it,
+     * without holding up the save.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void backupWhileSaving() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            persons.add(new Person("Bob" + i, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        }
+        addressBook.addAll(persons);
+        FileSystem.saveFile(addressBook, file);
+
+        // Save an edit once the first pages have been copied
+        File backup = new File(folder.getRoot(), "MyTestFile.bak");
+        AtomicLong pages = new AtomicLong();
+        FileSystem.backupFile(file, backup, (done, total) -> {
+            if (pages.getAndSet(total) == 0) {
+                assertTrue(done < total);
+                addressBook.set(0, new Person("Al", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345",
+                        "1234567890"));
+                assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+            }
+        });
+        assertFalse(new File(backup.getPath() + ".tmp").exists());
+
+        AddressBook copy = new AddressBook();
+        FileSystem.readFile(copy, backup);
+        assertEquals(20000, copy.getRowCount());
+        assertEquals("Al", copy.get(0).getFirstName());
+        assertEquals("Bob19999", copy.get(19999).getFirstName());
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * backing up a missing file, or a file over itself, throws an exception.
+     */
+    @Test
+    public void invalidBackupThrowsException() {
+        assertThrows(IOException.class, () -> FileSystem.backupFile(file, file, ProgressListener.NONE));
+        file.delete();
+        File backup = new File(folder.getRoot(), "MyTestFile.bak");
+        assertThrows(FileNotFoundException.class, () -> FileSystem.backupFile(file, backup, ProgressListener.NONE));
+        assertFalse(backup.exists());
+    }
+}
@@ -0,0 +1,182 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * FileWatcherTest.java This is the test class for showing the changes other
+ * programs make to the open file.
+ */
+public class FileWatcherTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static AddressBook addressBook = null; // An generic address book
+    private static AddressBookController controller = null; // A controller for the address book
+    private static File file = null; // The open file
+
+    /**
+     * This method runs before each test, opening a file of three persons.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws Exception {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        AddressBook saved = new AddressBook();
+        saved.add(person("John"));
+        saved.add(person("Jane"));
+        saved.add(person("Bob"));
+        FileSystem.saveFile(saved, file);
+
+        addressBook = new AddressBook();
+        controller = new AddressBookController(addressBook);
+        controller.open(file);
+    }
+
+    /**
+     * This method runs after each test, closing the file.
+     * 
+     * @throws Exception if file cannot be closed
+     */
+    @AfterEach
+    public void close() throws Exception {
+        controller.close();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that rows
+     * another program adds, changes and removes are shown one row at a time,
+     * without being treated as edits to save.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void externalChangesShownByRow() throws Exception {
+        List<TableModelEvent> events = new CopyOnWriteArrayList<>();
+        addressBook.addTableModelListener(events::add);
+        try (FileWatcher watcher = new FileWatcher(controller, addressBook, 50)) {
+            watcher.watch(file);
+            execute("UPDATE persons SET firstName = 'Janet' WHERE id = 2",
+                    "DELETE FROM persons WHERE id = 1",
+                    "INSERT INTO persons (id, lastName, firstName, address, city, state, zip, phone) "
+                            + "VALUES (7, 'Roe', 'Rick', '1 Main St', 'Naples', 'FL', '34102', '2395550000')");
+
+            long end = System.currentTimeMillis() + 10000;
+            while (events.size() < 3 && System.currentTimeMillis() < end) {
+                Thread.sleep(50);
+            }
+            SwingUtilities.invokeAndWait(() -> {
+                assertEquals(3, events.size());
+                for (TableModelEvent event : events) {
+                    assertEquals(event.getFirstRow(), event.getLastRow());
+                }
+                assertEquals(3, addressBook.getRowCount());
+                assertEquals("Doe, Janet", addressBook.get(0).toString());
+                assertEquals("Doe, Bob", addressBook.get(1).toString());
+                assertEquals(7, addressBook.getId(2));
+                assertTrue(addressBook.getChangedRows().isEmpty());
+                assertTrue(addressBook.getRemovedIds().isEmpty());
+            });
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that rows
+     * edited here since the last save keep their edits when the file changes.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void localEditsKept() throws Exception {
+        controller.set(0, person("Johnny"));
+        controller.remove(1);
+        controller.add(person("Al"));
+
+        AddressBook saved = new AddressBook();
+        saved.add(person("Jack"));
+        saved.add(person("Janet"));
+        saved.add(person("Bobby"));
+        assertEquals(1, addressBook.mergeSaved(saved));
+        assertEquals(3, addressBook.getRowCount());
+        assertEquals("Doe, Johnny", addressBook.get(0).toString());
+        assertEquals("Doe, Bobby", addressBook.get(1).toString());
+        assertEquals("Doe, Al", addressBook.get(2).toString());
+        assertEquals(0, addressBook.mergeSaved(saved));
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that a file last changed by a save from here is recognised, so it is not
+     * read back, and that a change by another program after it is not.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void ownSavesRecognised() throws Exception {
+        assertFalse(controller.holdsLastSave(file));
+        controller.set(0, person("Johnny"));
+        controller.save(file);
+        assertTrue(controller.holdsLastSave(file));
+        assertFalse(controller.holdsLastSave(folder.newFile("Other")));
+
+        execute("UPDATE persons SET firstName = 'Janet' WHERE id = 2");
+        assertFalse(controller.holdsLastSave(file));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that an
+     * invalid settle delay throws an exception.
+     */
+    @Test
+    public void invalidDelayThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new FileWatcher(controller, addressBook, 0));
+    }
+
+    /**
+     * A helper function to change the file through a connection of its own, as
+     * another program would.
+     * 
+     * @param statements The statements to run.
+     * @throws Exception if the file cannot be written
+     */
+    private static void execute(String... statements) throws Exception {
+        try (Connection other = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = other.createStatement()) {
+            for (String sql : statements) {
+                statement.executeUpdate(sql);
+            }
+        }
+    }
+
+    /**
+     * A helper function to make a person with the given first name.
+     * 
+     * @param firstName The first name of the person.
+     * @return The person.
+     */
+    private static Person person(String firstName) {
+        return new Person(firstName, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+/**
+ * MemoryBackendTest.java This is the test class for storing address books with the
+ * in-memory backend.
+ */
+public class MemoryBackendTest extends StorageBackendConformanceTest {
+
+    /**
+     * Creates the backend to test.
+     * 
+     * @return A new backend.
+     */
+    @Override
+    protected StorageBackend createBackend() {
+        return new MemoryBackend();
+    }
+
+    /**
+     * Gets the name of a file the backend writes.
+     * 
+     * @return The file name.
+     */
+    @Override
+    protected String fileName() {
+        return "MyTestFile.memory";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * PagedAddressBookModelTest.java This is the test class for the paged table
+ * model that reads an address book from disk on demand.
+ */
+public class PagedAddressBookModelTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static File file = null; // A java file for testing
+
+    /**
+     * This method runs before each test, saving an address book of 95 persons
+     * whose phone numbers are their row numbers.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+
+        AddressBook addressBook = new AddressBook();
+        for (int i = 0; i < 95; i++) {
+            addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345",
+                    String.format("%010d", i)));
+        }
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that rows
+     * are read in order whichever page is asked for first.
+     * 
+     * @throws Exception if the file cannot be read
+     */
+    @Test
+    public void readsRowsOnAnyPage() throws Exception {
+        try (PagedAddressBookModel model = new PagedAddressBookModel(file, 10, 3)) {
+            assertEquals(95, model.getRowCount());
+            assertEquals(7, model.getColumnCount());
+
+            // Jump to the last, partial, page before any other is read
+            assertEquals("0000000094", model.getValueAt(94, 6));
+
+            // Then read from the middle and the start
+            assertEquals("0000000042", model.getValueAt(42, 6));
+            assertEquals("0000000000", model.getValueAt(0, 6));
+            assertEquals("Doe", model.getValueAt(57, 0));
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that no
+     * more pages than the cache size are kept in memory.
+     * 
+     * @throws Exception if the file cannot be read
+     */
+    @Test
+    public void cacheIsBounded() throws Exception {
+        try (PagedAddressBookModel model = new PagedAddressBookModel(file, 10, 3)) {
+            for (int row = 0; row < model.getRowCount(); row++) {
+                assertEquals(String.format("%010d", row), model.get(row).getPhone());
+                assertTrue(model.getCachedPageCount() <= 3);
+            }
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that rows
+     * removed from the file leave no gaps between pages.
+     * 
+     * @throws Exception if the file cannot be edited or read
+     */
+    @Test
+    public void readsFileWithRemovedRows() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM persons WHERE CAST(phone AS INTEGER) % 2 = 0");
+        }
+
+        try (PagedAddressBookModel model = new PagedAddressBookModel(file, 4, 2)) {
+            assertEquals(47, model.getRowCount());
+            assertEquals("0000000093", model.get(46).getPhone());
+            assertEquals("0000000001", model.get(0).getPhone());
+            assertEquals("0000000051", model.get(25).getPhone());
+        }
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * asking for a row outside the table throws an exception.
+     * 
+     * @throws Exception if the file cannot be read
+     */
+    @Test
+    public void rowOutOfBoundsThrowsException() throws Exception {
+        try (PagedAddressBookModel model = new PagedAddressBookModel(file)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> model.get(95));
+            assertThrows(IndexOutOfBoundsException.class, () -> model.get(-1));
+        }
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * showing a file that does not exist throws an exception.
+     */
+    @Test
+    public void missingFileThrowsException() {
+        file.delete();
+        assertThrows(FileNotFoundException.class, () -> new PagedAddressBookModel(file));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that page
+     * and cache sizes smaller than one are rejected.
+     */
+    @Test
+    public void invalidSizesThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new PagedAddressBookModel(file, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PagedAddressBookModel(file, 1, 0));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that a
+     * file that is not an address book throws an exception.
+     * 
+     * @throws SQLException if the test file cannot be edited
+     */
+    @Test
+    public void fileWithoutPersonsThrowsException() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE persons");
+        }
+        assertThrows(SQLException.class, () -> new PagedAddressBookModel(file));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ParallelLoaderTest.java This is the test class for reading address book files
+ * on several threads.
+ */
+public class ParallelLoaderTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static AddressBook addressBook = null; // An generic address book
+    private static File file = null; // The saved address book
+
+    /**
+     * This method runs before each test, saving an address book of 1000 persons
+     * with some removed to leave gaps in the ids.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws Exception {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+
+        addressBook = new AddressBook();
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            persons.add(new Person("Bob" + i, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345",
+                    String.format("%010d", i)));
+        }
+        addressBook.addAll(persons);
+        for (int row = 900; row >= 100; row -= 7) {
+            addressBook.remove(row);
+        }
+        FileSystem.saveFile(addressBook, file);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that rows
+     * read on several threads are joined in id order with a single table update.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void loadRangesInOrder() throws Exception {
+        AddressBook read = new AddressBook();
+        AtomicInteger events = new AtomicInteger();
+        read.addTableModelListener(e -> events.incrementAndGet());
+        AtomicLong lastProgress = new AtomicLong();
+        new ParallelLoader(4, 100).load(read, file, (done, total) -> lastProgress.set(done));
+
+        assertEquals(1, events.get());
+        assertEquals(addressBook.getRowCount(), lastProgress.get());
+        assertEquals(addressBook.getRowCount(), read.getRowCount());
+        for (int row = 0; row < read.getRowCount(); row++) {
+            assertEquals(addressBook.getId(row), read.getId(row));
+            assertEquals(addressBook.get(row).getPhone(), read.get(row).getPhone());
+        }
+        assertTrue(read.isSyncedWith(file));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that small
+     * files and single threads are read the same way on the calling thread.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void smallFilesReadOnOneThread() throws Exception {
+        AddressBook read = new AddressBook();
+        new ParallelLoader(4, 100000).load(read, file, ProgressListener.NONE);
+        assertEquals(addressBook.getRowCount(), read.getRowCount());
+
+        AddressBook single = new AddressBook();
+        new ParallelLoader(1, 1).load(single, file, ProgressListener.NONE);
+        assertEquals(addressBook.getId(500), single.getId(500));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that
+     * missing files and invalid sizes throw exceptions.
+     */
+    @Test
+    public void invalidLoadThrowsException() {
+        assertThrows(FileNotFoundException.class,
+                () -> new ParallelLoader().load(new AddressBook(), new File("Missing"), ProgressListener.NONE));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelLoader(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelLoader(1, 0));
+    }
+}
\ No newline at end of file
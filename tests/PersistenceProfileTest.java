@@ -0,0 +1,143 @@
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * PersistenceProfileTest.java This is the test class for the SQLite settings
+ * applied to address book files.
+ */
+public class PersistenceProfileTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static File file = null; // A java file for testing
+
+    /**
+     * This method runs before each test, to create a file to test with.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+    }
+
+    /**
+     * This method runs after each test, to restore the default profile.
+     */
+    @AfterEach
+    public void tearDown() {
+        FileSystem.setProfile(PersistenceProfile.DURABLE);
+    }
+
+    /**
+     * A helper function to read the value of a PRAGMA.
+     * 
+     * @param statement The statement to run the PRAGMA with.
+     * @param pragma    The name of the PRAGMA.
+     * @return The value of the PRAGMA.
+     * @throws SQLException if the PRAGMA cannot be read
+     */
+    private static String pragma(Statement statement, String pragma) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("PRAGMA " + pragma)) {
+            return rs.getString(1);
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that every
+     * profile can be found by its name.
+     * 
+     * @param profile The profile to look up.
+     */
+    @ParameterizedTest
+    @EnumSource(PersistenceProfile.class)
+    public void forNameFindsProfile(PersistenceProfile profile) {
+        assertEquals(profile, PersistenceProfile.forName(profile.toString()));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that an
+     * unknown name is rejected.
+     */
+    @Test
+    public void forNameUnknownThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> PersistenceProfile.forName("fastest"));
+        assertThrows(IllegalArgumentException.class, () -> FileSystem.setProfile(null));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * balanced profile's settings are applied to a writing connection.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void applyBalancedProfile() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            PersistenceProfile.BALANCED.apply(connection, true);
+            assertEquals("wal", pragma(statement, "journal_mode"));
+            assertEquals("1", pragma(statement, "synchronous"));
+            assertEquals("-16384", pragma(statement, "cache_size"));
+            assertEquals("2", pragma(statement, "temp_store"));
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * reading connection does not change the journal mode stored in the file.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void applyForReadingKeepsJournalMode() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            PersistenceProfile.BULK_LOAD.apply(connection, false);
+            assertEquals("delete", pragma(statement, "journal_mode"));
+            assertEquals("0", pragma(statement, "synchronous"));
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * address book can be saved and read back under every profile.
+     * 
+     * @param profile The profile to save and read with.
+     */
+    @ParameterizedTest
+    @EnumSource(PersistenceProfile.class)
+    public void saveAndReadWithProfile(PersistenceProfile profile) {
+        FileSystem.setProfile(profile);
+        AddressBook addressBook = new AddressBook();
+        addressBook.add(new Person("John", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+
+        AddressBook read = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(read, file));
+        assertEquals("Doe, John", read.get(0).toString());
+    }
+}
\ No newline at end of file
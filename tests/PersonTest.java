@@ -398,6 +398,42 @@ public class PersonTest {
         assertTrue(test_Person.containsString("0123456789"));
     }
 
+    /**
+     * Functional Test. This test case tests that fields packed as bytes and
+     * numbers read back as they were given, including leading zeros, Latin-1
+     * letters, and names and fields that cannot be packed.
+     */
+    @Test
+    public void packedFieldsReadBack() {
+        String[][] cases = { { "Ren\u00e9e", "M\u00fcller", "1 Main St", "Naples", "fl", "01234", "0000000007" },
+                { "\u674e\u96f7", "\u738b\u82b3", "1 Main St", "Naples", "FL", "34102", "2395550000" },
+                { "John", "Doe", "", "Naples", "FL", "1", null }, { null, null, null, null, null, null, null } };
+        for (int i = 0; i < cases.length; i++) {
+            String[] f = cases[i];
+            Person person = i < 2 ? new Person(f[0], f[1], f[2], f[3], f[4], f[5], f[6])
+                    : Person.trusted(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+            assertEquals(f[0], person.getFirstName());
+            assertEquals(f[1], person.getLastName());
+            assertEquals(f[2], person.getAddress());
+            assertEquals(f[3], person.getCity());
+            assertEquals(f[4], person.getState());
+            assertEquals(f[5], person.getZip());
+            assertEquals(f[6], person.getPhone());
+            assertEquals(f[1], person.getField(0));
+            assertEquals(f[0], person.getField(1));
+            assertEquals(f[1] + ", " + f[0], person.toString());
+        }
+        Person packed = new Person("Ren\u00e9e", "Doe", "1 Main St", "Naples", "FL", "01234", "0000000007");
+        assertTrue(packed.containsString("REN\u00e9E"));
+        assertTrue(packed.containsString("1 main"));
+        assertTrue(packed.containsString("0123"));
+        assertTrue(packed.containsString("00007"));
+        assertFalse(packed.containsString("12345"));
+        assertThrows(IllegalArgumentException.class, () -> packed.getField(7));
+        assertThrows(IllegalArgumentException.class,
+                () -> Person.trusted(null, null, null, null, null, null, null).getField(-1));
+    }
+
     /**
      * Functional Testing. This test cases tests the getField method to ensure the
      * correct data is returned.
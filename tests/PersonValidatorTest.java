@@ -0,0 +1,235 @@
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PersonValidatorTest.java This is the test class for checking the fields of a
+ * person with the table driven validator.
+ */
+public class PersonValidatorTest {
+
+    // Characters random fields are made of, including ones near the edges of each rule
+    private static final String ALPHABET = "aAzZiI09 5|\t\n\u000B\f\r-_.@\u00f6\u00df\ufb02\u0130\u0131\u0307";
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that random fields are accepted and rejected exactly as the regular
+     * expressions the person constructor used before accepted and rejected them.
+     */
+    @Test
+    public void sameResultsAsRegex() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            String value = randomField(random);
+            assertEquals(Pattern.matches("\\S{2,}", value), PersonValidator.isName(value), value);
+            assertEquals(Pattern.matches("^[a-zA-Z0-9 ]{2,50}", value), PersonValidator.isAddress(value), value);
+            assertEquals(Pattern.matches("\\d{5}", value), PersonValidator.isDigits(value, 5), value);
+            assertEquals(Pattern.matches("\\d{10}", value), PersonValidator.isDigits(value, 10), value);
+            assertEquals(isStateByRegex(value), PersonValidator.isStateAbbreviation(value), value);
+        }
+
+        // Names are counted in code points, and states upper cased in the default locale
+        assertFalse(PersonValidator.isName("\ud83d\ude00"));
+        assertTrue(PersonValidator.isName("\ud83d\ude00a"));
+        assertTrue(PersonValidator.isName("\ud83d\ud83d"));
+        assertTrue(PersonValidator.isStateAbbreviation("\ufb02"));
+        assertTrue(PersonValidator.isStateAbbreviation("fl"));
+        assertFalse(PersonValidator.isStateAbbreviation("F|"));
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that states are upper cased as the default locale would, so a lower case i
+     * is not a capital I in Turkish.
+     */
+    @Test
+    public void statesFollowDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        try {
+            assertTrue(PersonValidator.isStateAbbreviation("in"));
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertFalse(PersonValidator.isStateAbbreviation("in"));
+            assertTrue(PersonValidator.isStateAbbreviation("IN"));
+            assertTrue(PersonValidator.isStateAbbreviation("ny"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that the
+     * first invalid field is reported, and that missing fields throw as before.
+     */
+    @Test
+    public void firstInvalidFieldReported() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new Person("John", "Doe", "1 Main St", "Naples", "XX", "1", "1"));
+        assertEquals("State Must be 2 Letter Code.", exception.getMessage());
+        exception = assertThrows(IllegalArgumentException.class,
+                () -> new Person("John", "D", "1 Main St", "Naples", "XX", "1", "1"));
+        assertEquals("Last Name requires at least 2 characters.", exception.getMessage());
+        exception = assertThrows(IllegalArgumentException.class,
+                () -> new Person("John", "Doe", "1 Main St", "Naples", "FL", "34102", "239555"));
+        assertEquals("Phone Number Must be 10 numbers", exception.getMessage());
+        assertThrows(NullPointerException.class, () -> new Person("John", "Doe", "1 Main St", "Naples", null, "1", "1"));
+        assertThrows(NullPointerException.class,
+                () -> new Person("John", "Doe", "1 Main St", "Naples", "FL", "34102", null));
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that checking many persons at once reports every invalid person, with the
+     * reason the person constructor would have rejected it.
+     */
+    @Test
+    public void verifyReportsEveryInvalidPerson() {
+        Random random = new Random(7);
+        String[] valid = { "John", "Doe", "1 Main St", "Naples", "FL", "34102", "2395550000" };
+        List<Person> persons = new ArrayList<>();
+        List<String> reasons = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            String[] fields = valid.clone();
+            fields[random.nextInt(fields.length)] = randomField(random);
+            persons.add(Person.trusted(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6]));
+            try {
+                new Person(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6]);
+                reasons.add(null);
+            } catch (IllegalArgumentException exception) {
+                reasons.add(exception.getMessage());
+            }
+        }
+        persons.add(Person.trusted("John", "Doe", "1 Main St", "Naples", null, "34102", null));
+        reasons.add("State Must be 2 Letter Code.");
+
+        SortedMap<Integer, String> invalid = PersonValidator.verify(persons);
+        for (int i = 0; i < persons.size(); i++) {
+            assertEquals(reasons.get(i), invalid.get(i), String.valueOf(i));
+        }
+        assertTrue(invalid.size() > 1000);
+        assertTrue(PersonValidator.verify(new ArrayList<>()).isEmpty());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * typical valid persons are accepted by the validator as they were by the
+     * regular expressions the person constructor used before.
+     */
+    @Test
+    public void validPersonsAccepted() {
+        for (int i = 0; i < 1000; i++) {
+            String[] p = { "John" + i, "Doe", i + " Main Street", "Naples", i % 2 == 0 ? "FL" : "ny",
+                    String.format("%05d", i), String.format("%010d", i) };
+            assertTrue(validateByRegex(p[0], p[1], p[2], p[3], p[4], p[5], p[6]));
+            assertDoesNotThrow(() -> PersonValidator.validate(p[0], p[1], p[2], p[3], p[4], p[5], p[6]));
+        }
+    }
+
+    /**
+     * Performance Testing. This benchmark compares checking valid persons with the
+     * validator against the regular expressions the person constructor compiled
+     * for every check before, and prints the times. It asserts nothing, as timings
+     * vary from machine to machine, and is only run by the benchmark task.
+     */
+    @Test
+    @Tag("benchmark")
+    public void fasterThanRegex() {
+        String[][] persons = new String[1000][];
+        for (int i = 0; i < persons.length; i++) {
+            persons[i] = new String[] { "John" + i, "Doe", i + " Main Street", "Naples", i % 2 == 0 ? "FL" : "ny",
+                    String.format("%05d", i), String.format("%010d", i) };
+        }
+
+        // Best of several rounds, after warming both up
+        long regex = Long.MAX_VALUE;
+        long table = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (String[] p : persons) {
+                validateByRegex(p[0], p[1], p[2], p[3], p[4], p[5], p[6]);
+            }
+            regex = Math.min(regex, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int repeat = 0; repeat < 10; repeat++) {
+                for (String[] p : persons) {
+                    PersonValidator.validate(p[0], p[1], p[2], p[3], p[4], p[5], p[6]);
+                }
+            }
+            table = Math.min(table, (System.nanoTime() - start) / 10);
+        }
+        System.out.printf("Validating 1000 persons: regex %.2f ms, table %.2f ms (%.0fx)%n", regex / 1e6,
+                table / 1e6, (double) regex / Math.max(table, 1));
+    }
+
+    /**
+     * A helper function to make a random field of up to 12 characters.
+     * 
+     * @param random The source of randomness.
+     * @return The field.
+     */
+    private static String randomField(Random random) {
+        char[] chars = new char[random.nextInt(13)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = random.nextInt(8) == 0 ? (char) ('0' + random.nextInt(10))
+                    : random.nextInt(4) == 0 ? (char) ('A' + random.nextInt(26))
+                            : ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * A helper function checking a state code as the person constructor did
+     * before.
+     * 
+     * @param state The state to check.
+     * @return True if the state is a valid state code, false otherwise.
+     */
+    private static boolean isStateByRegex(String state) {
+        if (state.contains("|")) {
+            return false;
+        }
+        state = state.toUpperCase();
+        return state.length() == 2 && ("|AL|AK|AS|AZ|AR|CA|CO|CT|DE|DC|FM|FL|GA|GU|HI|ID|IL|IN|IA|KS|KY|LA|ME|MH|MD|MA|"
+                + "MI|MN|MS|MO|MT|NE|NV|NH|NJ|NM|NY|NC|ND|MP|OH|OK|OR|PW|PA|PR|RI|SC|SD|TN|TX|UT|VT|VI|VA|WA|WV|WI|WY|")
+                .indexOf(state) >= 0;
+    }
+
+    /**
+     * A helper function checking the fields of a person as the person constructor
+     * did before, compiling each regular expression as it is used.
+     * 
+     * @param firstName The person's first name
+     * @param lastName  The person's last name
+     * @param address   The person's address
+     * @param city      The person's home city
+     * @param state     The person's home state
+     * @param zip       The person's zip
+     * @param phone     The person's phone number
+     * @return True if every field is valid, false otherwise.
+     */
+    private static boolean validateByRegex(String firstName, String lastName, String address, String city,
+            String state, String zip, String phone) {
+        return Pattern.compile("\\S{2,}").matcher(firstName).matches()
+                && Pattern.compile("\\S{2,}").matcher(lastName).matches() && isStateByRegex(state)
+                && Pattern.compile("^[a-zA-Z0-9 ]{2,50}").matcher(address).matches()
+                && Pattern.compile("^[a-zA-Z0-9 ]{2,50}").matcher(city).matches()
+                && Pattern.compile("\\d{5}").matcher(zip).matches()
+                && Pattern.compile("\\d{10}").matcher(phone).matches();
+    }
+}
@@ -0,0 +1,167 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+import org.assertj.swing.core.BasicRobot;
+import org.assertj.swing.core.Robot;
+import org.assertj.swing.edt.FailOnThreadViolationRepaintManager;
+import org.assertj.swing.edt.GuiActionRunner;
+import org.assertj.swing.finder.WindowFinder;
+import org.assertj.swing.fixture.DialogFixture;
+import org.assertj.swing.security.NoExitSecurityManagerInstaller;
+import org.assertj.swing.timing.Condition;
+import org.assertj.swing.timing.Pause;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ProgressDialogTest.java This test class tests ProgressDialog Class This class
+ * uses AssertJ to run automated testing.
+ */
+class ProgressDialogTest {
+
+    private static Robot robot = null;
+    private static ProgressDialog progressDialog = null;
+
+    /**
+     * This method is the absolute first to run.
+     */
+    @BeforeAll
+    public static void init() {
+        // Prevent program exiting
+        NoExitSecurityManagerInstaller.installNoExitSecurityManager();
+
+        // Required for full AssertJ User Interface Testing
+        FailOnThreadViolationRepaintManager.install();
+    }
+
+    /**
+     * This method runs after init() and before each test method.
+     */
+    @BeforeEach
+    void setUp() {
+        robot = BasicRobot.robotWithCurrentAwtHierarchy();
+        progressDialog = GuiActionRunner.execute(() -> new ProgressDialog(new JFrame(), "Open", "Opening..."));
+    }
+
+    /**
+     * This test is run after each test
+     */
+    @AfterEach
+    void tearDown() {
+        robot.cleanUp();
+    }
+
+    /**
+     * This test case is run after all tests are done
+     */
+    @AfterAll
+    public static void clean() {
+        // Re-enable program to close after testing completes
+        NoExitSecurityManagerInstaller.installNoExitSecurityManager().uninstall();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // UNIT TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. Test that running a task off the
+     * Event Dispatch Thread returns its result.
+     */
+    @Test
+    void runReturnsTaskResult() {
+        AtomicBoolean onEventDispatchThread = new AtomicBoolean(true);
+        String result = GuiActionRunner.execute(() -> progressDialog.run(listener -> {
+            onEventDispatchThread.set(SwingUtilities.isEventDispatchThread());
+            listener.progress(1, 2);
+            return "done";
+        }));
+
+        // Check the task ran in the background and its result was returned
+        assertEquals("done", result);
+        assertFalse(onEventDispatchThread.get());
+    }
+
+    /**
+     * Functional Testing and Negative Testing. Test that an exception thrown by a
+     * task is thrown by run.
+     */
+    @Test
+    void runThrowsTaskException() {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        GuiActionRunner.execute(() -> {
+            try {
+                progressDialog.run(listener -> {
+                    throw new SQLException("An error occurred during save");
+                });
+            } catch (Exception exception) {
+                failure.set(exception);
+            }
+        });
+
+        // Check the task's own exception was thrown
+        assertTrue(failure.get() instanceof SQLException);
+    }
+
+    /**
+     * Functional Testing and User Interface Testing. Test that clicking cancel
+     * interrupts the task and makes run throw a cancellation exception once the
+     * task has stopped.
+     * 
+     * @throws InterruptedException if the test is interrupted while waiting
+     */
+    @Test
+    void cancelInterruptsTask() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        // Start a task that only stops when interrupted
+        SwingUtilities.invokeLater(() -> {
+            try {
+                progressDialog.run(listener -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException exception) {
+                        interrupted.set(true);
+                    }
+                    return null;
+                });
+            } catch (Exception exception) {
+                failure.set(exception);
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // Click 'Cancel' on the dialog
+        DialogFixture dialog = WindowFinder.findDialog("progress").using(robot);
+        dialog.button("cancel").click();
+
+        // Wait for run to return
+        Pause.pause(new Condition("task to be cancelled") {
+            @Override
+            public boolean test() {
+                return failure.get() != null;
+            }
+        }, 10000);
+
+        // Check the task was interrupted before run returned
+        assertTrue(failure.get() instanceof CancellationException);
+        assertTrue(interrupted.get());
+    }
+}
\ No newline at end of file
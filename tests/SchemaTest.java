@@ -0,0 +1,194 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * SchemaTest.java This is the test class for the versioned layout of address
+ * book files and its migrations.
+ */
+public class SchemaTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static File file = null; // A java file for testing
+
+    /**
+     * This method runs before each test, to create a file in the layout used
+     * before versions were recorded, with a gap in its rowids.
+     * 
+     * @throws IOException  if file cannot be read or written
+     * @throws SQLException if the file cannot be created
+     */
+    @BeforeEach
+    public void init() throws IOException, SQLException {
+        folder.create();
+        file = folder.newFile("MyTestFile");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute(
+                    "CREATE TABLE persons (firstName TEXT, lastName TEXT, address TEXT, city TEXT, state TEXT, zip TEXT, phone TEXT)");
+            statement.execute(
+                    "INSERT INTO persons VALUES ('John', 'Doe', '1234 SomeStreet', 'SomeCity', 'FL', '12345', '1234567890')");
+            statement.execute(
+                    "INSERT INTO persons VALUES ('Bob', 'Doe', '1234 SomeStreet', 'SomeCity', 'FL', '12345', '1234567890')");
+            statement.execute(
+                    "INSERT INTO persons VALUES ('Jane', 'Doe', '1234 SomeStreet', 'SomeCity', 'FL', '12345', '1234567890')");
+            statement.execute("DELETE FROM persons WHERE firstName = 'Bob'");
+        }
+    }
+
+    /**
+     * A helper function to count the indexes on the persons table.
+     * 
+     * @param statement The statement to count with.
+     * @return The number of indexes created by the program.
+     * @throws SQLException if the file cannot be read
+     */
+    private static int countIndexes(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND tbl_name = 'persons' AND name LIKE 'persons_%'")) {
+            return rs.getInt(1);
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * old file is migrated to the current layout, keeping its rowids as ids and
+     * indexing its rows for search.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void migrateOldFile() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            assertEquals(0, Schema.version(connection));
+            Schema.migrate(connection);
+            assertEquals(Schema.VERSION, Schema.version(connection));
+            assertEquals(3, countIndexes(statement));
+
+            // Check the full-text index was built from the existing rows
+            try (ResultSet rs = statement
+                    .executeQuery("SELECT rowid FROM persons_fts WHERE persons_fts MATCH 'jan*'")) {
+                assertTrue(rs.next());
+                assertEquals(3, rs.getLong(1));
+                assertFalse(rs.next());
+            }
+
+            // Check the rows kept their rowids as ids
+            try (ResultSet rs = statement.executeQuery("SELECT id, firstName FROM persons ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getLong("id"));
+                assertTrue(rs.next());
+                assertEquals(3, rs.getLong("id"));
+                assertEquals("Jane", rs.getString("firstName"));
+            }
+        }
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * opening an old file leaves it as it is, that saving changes back to it
+     * migrates it, and that saved files use the current layout.
+     * 
+     * @throws SQLException if the file cannot be opened
+     */
+    @Test
+    public void readAndSaveUseCurrentLayout() throws SQLException {
+        AddressBook addressBook = new AddressBook();
+        assertDoesNotThrow(() -> FileSystem.readFile(addressBook, file));
+        assertEquals(2, addressBook.getRowCount());
+        assertEquals(3, addressBook.getId(1));
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            assertEquals(0, Schema.version(connection));
+        }
+
+        // A read-only old file opens without being migrated
+        assertTrue(file.setReadOnly());
+        AddressBook readOnly = new AddressBook();
+        assertDoesNotThrow(() -> new ParallelLoader().load(readOnly, file, ProgressListener.NONE));
+        assertEquals(2, readOnly.getRowCount());
+        assertTrue(file.setWritable(true));
+
+        // Without an index yet, an opened old file is searched in memory
+        AddressBookController controller = new AddressBookController(new AddressBook());
+        assertDoesNotThrow(() -> controller.open(file));
+        assertArrayEquals(new int[] { 1 }, assertDoesNotThrow(() -> controller.search("jane")));
+        assertDoesNotThrow(() -> controller.close());
+
+        // Saving changes back migrates the file, keeping the ids read
+        addressBook.remove(0);
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, file));
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT id, firstName FROM persons")) {
+            assertEquals(Schema.VERSION, Schema.version(connection));
+            assertTrue(rs.next());
+            assertEquals(3, rs.getLong("id"));
+            assertEquals("Jane", rs.getString("firstName"));
+            assertFalse(rs.next());
+        }
+
+        // Save to a new file and check its layout
+        File newFile = new File(folder.getRoot(), "MyNewFile");
+        assertDoesNotThrow(() -> FileSystem.saveFile(addressBook, newFile));
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + newFile.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            assertEquals(Schema.VERSION, Schema.version(connection));
+            assertEquals(3, countIndexes(statement));
+        }
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that a
+     * file written in a newer layout is not opened.
+     * 
+     * @throws SQLException if the file cannot be edited
+     */
+    @Test
+    public void newerVersionThrowsException() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE schema_version (version INTEGER NOT NULL)");
+            statement.execute("INSERT INTO schema_version VALUES (" + (Schema.VERSION + 1) + ")");
+        }
+        assertThrows(SQLException.class, () -> FileSystem.readFile(new AddressBook(), file));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * file without a persons table is left as it is.
+     * 
+     * @throws SQLException if the file cannot be edited
+     */
+    @Test
+    public void migrateWithoutPersonsDoesNothing() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE persons");
+            Schema.migrate(connection);
+            assertEquals(0, Schema.version(connection));
+        }
+    }
+}
\ No newline at end of file
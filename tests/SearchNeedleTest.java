@@ -0,0 +1,232 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SearchNeedleTest.java This is the test class for searching strings for text
+ * prepared once per search.
+ */
+public class SearchNeedleTest {
+
+    // Characters random strings are made of, including ones whose case folds unusually
+    private static final String ALPHABET = "aAbBkKsSiI \u00f6\u00d6\u00df\u0130\u0131\u017f\u212a\u01c5\u01c4\u01c6"
+            + "\ud801\udc00\ud801\udc28\ud83d\ude00";
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that random text is found in random strings exactly where a case insensitive
+     * regular expression finds it, with and without Unicode case.
+     */
+    @Test
+    public void sameResultsAsRegex() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            String text = randomString(random, 4);
+            String haystack = randomString(random, 16);
+            boolean unicodeCase = random.nextBoolean();
+            int flags = unicodeCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : Pattern.CASE_INSENSITIVE;
+            boolean expected = Pattern.compile(Pattern.quote(text), flags).matcher(haystack).find();
+            assertEquals(expected, new SearchNeedle(text, unicodeCase).in(haystack),
+                    text + " in " + haystack + (unicodeCase ? " (Unicode)" : ""));
+        }
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that empty text is in every string, that nothing is in a missing string,
+     * and that only ASCII letters ignore case unless Unicode case is asked for.
+     */
+    @Test
+    public void edgeCases() {
+        assertTrue(new SearchNeedle("", false).in(""));
+        assertFalse(new SearchNeedle("", false).in(null));
+        assertFalse(new SearchNeedle("a", true).in(null));
+        assertTrue(new SearchNeedle("FORT myers", false).in("123 Fort Myers"));
+        assertFalse(new SearchNeedle("Fort Myers ", false).in("123 Fort Myers"));
+        assertFalse(new SearchNeedle("\u00f6", false).in("\u00d6"));
+        assertTrue(new SearchNeedle("\u00f6", true).in("\u00d6"));
+        assertTrue(new SearchNeedle("\ud801\udc00", true).in("x\ud801\udc28"));
+        assertFalse(new SearchNeedle("\ud801\udc00", false).in("x\ud801\udc28"));
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that text is found in Latin-1 bytes and in the digits of numbers exactly
+     * where it is found in the same fields as strings.
+     */
+    @Test
+    public void packedSameAsStrings() {
+        Random random = new Random(11);
+        String latin1 = "aAzZ 09\u00b5\u00c0\u00e0\u00df\u00ff\u00d7";
+        for (int i = 0; i < 100000; i++) {
+            boolean unicodeCase = random.nextBoolean();
+            char[] field = new char[random.nextInt(12)];
+            for (int c = 0; c < field.length; c++) {
+                field[c] = latin1.charAt(random.nextInt(latin1.length()));
+            }
+            String text = new String(field, 0, random.nextInt(field.length + 1));
+            if (random.nextBoolean()) {
+                text = text.toUpperCase();
+            }
+            byte[] bytes = ("xy" + new String(field) + "z").getBytes(StandardCharsets.ISO_8859_1);
+            SearchNeedle needle = new SearchNeedle(text, unicodeCase);
+            assertEquals(needle.in(new String(field)), needle.in(bytes, 2, bytes.length - 1),
+                    text + " in " + new String(field));
+
+            long number = random.nextInt(100000);
+            String digits = String.format("%05d", number);
+            int from = random.nextInt(5);
+            String part = digits.substring(from, from + 1 + random.nextInt(5 - from));
+            needle = new SearchNeedle(random.nextInt(10) == 0 ? part + "a" : part, unicodeCase);
+            assertEquals(needle.in(digits), needle.inDigits(number, 5), part + " in " + digits);
+        }
+        assertTrue(new SearchNeedle("", false).inDigits(0, 5));
+        assertTrue(new SearchNeedle("0000000001", false).inDigits(1, 10));
+        assertFalse(new SearchNeedle("\ud801\udc00", true).in(new byte[] { 'a' }, 0, 1));
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that a prepared needle finds the same persons as compiling a regular
+     * expression for every person did before.
+     */
+    @Test
+    public void personsSameAsRegex() {
+        SearchNeedle needle = new SearchNeedle("99 main", false);
+        int found = 0;
+        for (int i = 0; i < 10000; i++) {
+            Person person = new Person("John" + i, "Doe", i + " Main Street", "Naples", "FL", String.format("%05d", i),
+                    String.format("%010d", i));
+            assertEquals(containsByRegex(person, "99 main"), person.containsString(needle), person.getAddress());
+            if (person.containsString(needle)) {
+                found++;
+            }
+        }
+        assertEquals(100, found);
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * searching persons allocates nothing once the text is prepared. The bound is
+     * far below one small object per person, so it does not depend on timing.
+     */
+    @Test
+    public void searchWithoutAllocating() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        Person[] persons = persons(100000);
+        SearchNeedle needle = new SearchNeedle("99 main", false);
+
+        // Fewest bytes of several rounds, after warming up
+        long allocated = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < 5; round++) {
+            found = 0;
+            long bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (Person person : persons) {
+                if (person.containsString(needle)) {
+                    found++;
+                }
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes);
+        }
+        assertEquals(1000, found);
+        assertTrue(allocated < 64 * 1024, "Searching allocated " + allocated + " bytes");
+    }
+
+    /**
+     * Performance Testing. This benchmark compares searching persons with a
+     * prepared needle against compiling a regular expression for every person as
+     * before, and prints the times. It asserts nothing, as timings vary from
+     * machine to machine, and is only run by the benchmark task.
+     */
+    @Test
+    @Tag("benchmark")
+    public void fasterThanRegex() {
+        Person[] persons = persons(100000);
+
+        // Best of several rounds, after warming both up
+        long regex = Long.MAX_VALUE;
+        long needle = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (Person person : persons) {
+                containsByRegex(person, "99 main");
+            }
+            regex = Math.min(regex, System.nanoTime() - start);
+
+            SearchNeedle text = new SearchNeedle("99 main", false);
+            start = System.nanoTime();
+            for (Person person : persons) {
+                person.containsString(text);
+            }
+            needle = Math.min(needle, System.nanoTime() - start);
+        }
+        System.out.printf("Searching 100000 persons: regex %.2f ms, needle %.2f ms (%.0fx)%n", regex / 1e6,
+                needle / 1e6, (double) regex / Math.max(needle, 1));
+    }
+
+    /**
+     * A helper function to make persons with numbered names, addresses, zips and
+     * phone numbers.
+     * 
+     * @param count The number of persons.
+     * @return The persons.
+     */
+    private static Person[] persons(int count) {
+        Person[] persons = new Person[count];
+        for (int i = 0; i < count; i++) {
+            persons[i] = new Person("John" + i, "Doe", i + " Main Street", "Naples", "FL", String.format("%05d", i),
+                    String.format("%010d", i));
+        }
+        return persons;
+    }
+
+    /**
+     * A helper function to make a random string of characters from the alphabet,
+     * which may split surrogate pairs.
+     * 
+     * @param random    The source of randomness.
+     * @param maxLength The longest string to make.
+     * @return The string.
+     */
+    private static String randomString(Random random, int maxLength) {
+        char[] chars = new char[random.nextInt(maxLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * A helper function finding text in the fields of a person as the person did
+     * before, compiling a regular expression for every person.
+     * 
+     * @param person The person to search.
+     * @param text   The text to find.
+     * @return True if the text is in the person, false otherwise.
+     */
+    private static boolean containsByRegex(Person person, String text) {
+        Pattern p = Pattern.compile(Pattern.quote(text), Pattern.CASE_INSENSITIVE);
+        for (int field = 0; field < Person.fields.length; field++) {
+            if (p.matcher(person.getField(field)).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
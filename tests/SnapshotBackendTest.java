@@ -0,0 +1,26 @@
+/**
+ * SnapshotBackendTest.java This is the test class for storing address books with the
+ * binary snapshot backend.
+ */
+public class SnapshotBackendTest extends StorageBackendConformanceTest {
+
+    /**
+     * Creates the backend to test.
+     * 
+     * @return A new backend.
+     */
+    @Override
+    protected StorageBackend createBackend() {
+        return new SnapshotBackend();
+    }
+
+    /**
+     * Gets the name of a file the backend writes.
+     * 
+     * @return The file name.
+     */
+    @Override
+    protected String fileName() {
+        return "MyTestFile.snap";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * SnapshotFileTest.java This is the test class for the memory mapped snapshot
+ * format of address books.
+ */
+public class SnapshotFileTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static AddressBook addressBook = null; // An generic address book
+    private static File file = null; // A snapshot file for testing
+
+    /**
+     * This method runs before each test, creating an address book of 2500 persons
+     * whose phone numbers are their row numbers.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        folder.create();
+        file = new File(folder.getRoot(), "book" + SnapshotFile.EXTENSION);
+
+        addressBook = new AddressBook();
+        for (int i = 0; i < 2500; i++) {
+            addressBook.add(new Person("J\u00f6hn", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345",
+                    String.format("%010d", i)));
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * written snapshot is read back with the same rows and ids.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void writeThenOpen() throws IOException {
+        long[] progress = new long[2];
+        SnapshotFile.write(addressBook, file, (done, total) -> {
+            progress[0] = done;
+            progress[1] = total;
+        });
+        assertEquals(2500, progress[0]);
+        assertEquals(2500, progress[1]);
+        assertTrue(SnapshotFile.isSnapshot(file));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        SnapshotFile snapshot = SnapshotFile.open(file);
+        assertEquals(2500, snapshot.getRowCount());
+        assertEquals("J\u00f6hn", snapshot.get(0).getFirstName());
+        assertEquals("0000001234", snapshot.get(1234).getPhone());
+        assertEquals(1234, snapshot.indexOf(addressBook.getId(1234)));
+        assertEquals(-1, snapshot.indexOf(99999));
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(2500));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * address book opened from a snapshot can be edited and saved to a database
+     * file, keeping rows matched to their ids.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void openSnapshotThenEdit() throws Exception {
+        SnapshotFile.write(addressBook, file, ProgressListener.NONE);
+        AddressBook opened = new AddressBook();
+        AddressBookController controller = new AddressBookController(opened);
+        controller.open(file);
+        assertEquals(2500, opened.getRowCount());
+
+        // Rows keep their own ids as earlier ones are removed
+        controller.remove(0);
+        controller.remove(0);
+        assertEquals("0000000002", opened.get(0).getPhone());
+        assertEquals("0000002499", opened.getValueAt(2497, 6));
+        controller.add(new Person("Jane", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        assertTrue(opened.getId(2498) > opened.getId(2497));
+
+        // Saving to a database file writes every row
+        File database = folder.newFile("MyTestFile");
+        controller.save(database);
+        AddressBook read = new AddressBook();
+        FileSystem.readFile(read, database);
+        assertEquals(2499, read.getRowCount());
+        assertEquals("0000000002", read.get(0).getPhone());
+        assertEquals("Doe, Jane", read.get(2498).toString());
+        controller.close();
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that files
+     * that are not complete snapshots are not opened.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void invalidSnapshotThrowsException() throws IOException {
+        assertThrows(FileNotFoundException.class, () -> SnapshotFile.open(file));
+
+        File blank = folder.newFile("blank");
+        assertFalse(SnapshotFile.isSnapshot(blank));
+        assertThrows(IOException.class, () -> SnapshotFile.open(blank));
+
+        // Cut the end off a snapshot
+        SnapshotFile.write(addressBook, file, ProgressListener.NONE);
+        try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+            truncated.setLength(truncated.length() - 1);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.open(file));
+
+        // Swap the ids of the first two rows, which bisection could not find
+        SnapshotFile.write(addressBook, file, ProgressListener.NONE);
+        try (RandomAccessFile swapped = new RandomAccessFile(file, "rw")) {
+            swapped.seek(16);
+            long first = swapped.readLong();
+            long second = swapped.readLong();
+            swapped.seek(16);
+            swapped.writeLong(second);
+            swapped.writeLong(first);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.open(file));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * saving over an open snapshot first moves it out of the mapped file, so the
+     * file can be replaced on every platform, and the open book still shows its
+     * rows.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void saveOverOpenSnapshot() throws Exception {
+        SnapshotFile.write(addressBook, file, ProgressListener.NONE);
+        SnapshotFile snapshot = SnapshotFile.open(file);
+        AddressBook opened = new AddressBook();
+        opened.replaceAll(snapshot);
+        assertTrue(snapshot.isMapped());
+
+        opened.remove(0);
+        SnapshotFile.write(opened, file, ProgressListener.NONE);
+        assertFalse(snapshot.isMapped());
+        assertEquals("0000002499", snapshot.get(2499).getPhone());
+        assertEquals("0000000001", opened.get(0).getPhone());
+        assertEquals(2499, SnapshotFile.open(file).getRowCount());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * empty address book is written and read as an empty snapshot.
+     */
+    @Test
+    public void emptySnapshot() {
+        assertDoesNotThrow(() -> SnapshotFile.write(new AddressBook(), file, ProgressListener.NONE));
+        AddressBook opened = new AddressBook();
+        assertDoesNotThrow(() -> opened.replaceAll(SnapshotFile.open(file)));
+        assertEquals(0, opened.getRowCount());
+    }
+
+    /**
+     * Functional Testing and Positive/Negative Testing. This test case will test
+     * that a snapshot holding persons with invalid or null fields reopens, and
+     * that checking it reports those rows by id.
+     * 
+     * @throws IOException if file cannot be read or written
+     */
+    @Test
+    public void invalidPersonsReopen() throws IOException {
+        addressBook.add(Person.trusted("J", "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "0123456789"));
+        addressBook.add(Person.trusted("John", "Doe", null, "SomeCity", null, null, null));
+        SnapshotFile.write(addressBook, file, ProgressListener.NONE);
+
+        SnapshotFile snapshot = SnapshotFile.open(file);
+        assertEquals("J", snapshot.get(2500).getFirstName());
+        assertEquals(null, snapshot.get(2501).getState());
+        assertEquals(null, snapshot.get(2501).getPhone());
+        AddressBook opened = new AddressBook();
+        opened.replaceAll(snapshot);
+        assertEquals("SomeCity", opened.get(2501).getCity());
+
+        Map<Long, String> invalid = assertDoesNotThrow(() -> FileSystem.verifyFile(file));
+        assertEquals(2, invalid.size());
+        assertEquals("First Name requires at least 2 characters.", invalid.get(addressBook.getId(2500)));
+        assertEquals("State Must be 2 Letter Code.", invalid.get(addressBook.getId(2501)));
+    }
+}
@@ -0,0 +1,157 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * SqliteBackendTest.java This is the test class for storing address books with the
+ * SQLite database backend.
+ */
+public class SqliteBackendTest extends StorageBackendConformanceTest {
+
+    /**
+     * Creates the backend to test.
+     * 
+     * @return A new backend.
+     */
+    @Override
+    protected StorageBackend createBackend() {
+        return new SqliteBackend();
+    }
+
+    /**
+     * Gets the name of a file the backend writes.
+     * 
+     * @return The file name.
+     */
+    @Override
+    protected String fileName() {
+        return "MyTestFile";
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * file can be read and searched while another file is being saved, without
+     * waiting for the save or closing the session it is writing through.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void saveWhileOtherFileRead() throws Exception {
+        SqliteBackend backend = new SqliteBackend();
+        File saving = new File(folder.getRoot(), "SavingFile");
+        File other = new File(folder.getRoot(), "OtherFile");
+        saving.delete();
+        other.delete();
+        AddressBook small = new AddressBook();
+        small.add(new Person("Rick", "Roe", "1 Main St", "Naples", "FL", "34102", "2395550000"));
+        backend.write(small, other, ProgressListener.NONE);
+
+        AddressBook large = new AddressBook();
+        for (int i = 0; i < 1000; i++) {
+            large.add(new Person("Bob" + i, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", "1234567890"));
+        }
+
+        // Hold the save part way through its transaction while the other file is used
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch used = new CountDownLatch(1);
+        AtomicBoolean released = new AtomicBoolean();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                backend.write(large, saving, (done, total) -> {
+                    if (total > 0 && writing.getCount() > 0) {
+                        writing.countDown();
+                        try {
+                            released.set(used.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException exception) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            } catch (Exception exception) {
+                failure.set(exception);
+            }
+        });
+        thread.start();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        AddressBook read = new AddressBook();
+        backend.read(read, other, ProgressListener.NONE);
+        assertArrayEquals(new long[] { 1 }, backend.search(other, new String[] { "rick" }));
+        used.countDown();
+        thread.join();
+        assertTrue(released.get());
+        assertNull(failure.get());
+        assertEquals(1, read.getRowCount());
+
+        backend.read(read, saving, ProgressListener.NONE);
+        assertEquals(1000, read.getRowCount());
+        assertEquals("Doe, Bob999", read.get(999).toString());
+        backend.close();
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that
+     * reading a file does not switch it to the journal mode of the persistence
+     * profile, and that the first save does.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void readKeepsJournalMode() throws Exception {
+        File file = new File(folder.getRoot(), "ReadFile");
+        file.delete();
+        AddressBook addressBook = new AddressBook();
+        addressBook.add(new Person("Rick", "Roe", "1 Main St", "Naples", "FL", "34102", "2395550000"));
+        FileSystem.saveFile(addressBook, file);
+
+        SqliteBackend backend = new SqliteBackend();
+        FileSystem.setProfile(PersistenceProfile.BALANCED);
+        try {
+            AddressBook read = new AddressBook();
+            backend.read(read, file, ProgressListener.NONE);
+            assertEquals(1, read.getRowCount());
+            assertEquals("delete", journalMode(file));
+            assertFalse(new File(file.getPath() + "-wal").exists());
+
+            read.add(new Person("Ann", "Roe", "1 Main St", "Naples", "FL", "34102", "2395550001"));
+            backend.write(read, file, ProgressListener.NONE);
+            assertEquals("wal", journalMode(file));
+        } finally {
+            backend.close();
+            FileSystem.setProfile(PersistenceProfile.DURABLE);
+        }
+    }
+
+    /**
+     * A helper function to read the journal mode stored in a file.
+     * 
+     * @param file The file to read.
+     * @return The journal mode.
+     * @throws Exception if the file cannot be read
+     */
+    private static String journalMode(File file) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("PRAGMA journal_mode")) {
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * StorageBackendConformanceTest.java This is the test suite every storage
+ * backend must pass. Each backend has a test class extending it.
+ */
+public abstract class StorageBackendConformanceTest {
+
+    // Temporary Folder provides a mock fileDirectory that deletes when program ends
+    @Rule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private StorageBackend backend = null; // The backend tested
+    private File file = null; // The file written and read
+    private AddressBook addressBook = null; // An generic address book
+
+    /**
+     * Creates the backend to test.
+     * 
+     * @return A new backend.
+     */
+    protected abstract StorageBackend createBackend();
+
+    /**
+     * Gets the name of a file the backend writes.
+     * 
+     * @return The file name.
+     */
+    protected abstract String fileName();
+
+    /**
+     * This method runs before each test, making an address book of two persons with
+     * a gap in their ids.
+     * 
+     * @throws IOException if the folder cannot be created
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        folder.create();
+        backend = createBackend();
+        file = new File(folder.getRoot(), fileName());
+        file.delete();
+
+        addressBook = new AddressBook();
+        addressBook.add(person("John", "1234567890"));
+        addressBook.add(person("Jane", "0123456789"));
+        addressBook.add(person("Al\u00f6ys", "1112223333"));
+        addressBook.remove(1);
+    }
+
+    /**
+     * This method runs after each test, closing the backend.
+     * 
+     * @throws Exception if the backend cannot be closed
+     */
+    @AfterEach
+    public void close() throws Exception {
+        backend.close();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that an
+     * address book written and read back has the same rows and ids, and is
+     * replaced with a single table update.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void roundTripKeepsRowsAndIds() throws Exception {
+        backend.write(addressBook, file, ProgressListener.NONE);
+
+        AddressBook read = new AddressBook();
+        read.add(person("Bob", "2395551234"));
+        List<Integer> events = new ArrayList<>();
+        read.addTableModelListener(e -> events.add(e.getType()));
+        backend.read(read, file, ProgressListener.NONE);
+        assertEquals(1, events.size());
+        assertSameRows(addressBook, read);
+
+        // Written again after an edit
+        addressBook.set(0, person("Johnny", "1234567890"));
+        backend.write(addressBook, file, ProgressListener.NONE);
+        backend.read(read, file, ProgressListener.NONE);
+        assertSameRows(addressBook, read);
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * backend claims the files it writes, and recognises them once written.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void filesAreRecognised() throws Exception {
+        assertTrue(backend.canWrite(file));
+        assertSame(backend, StorageBackend.forWriting(Arrays.asList(backend), file));
+        backend.write(new AddressBook(), file, ProgressListener.NONE);
+        assertTrue(backend.canRead(file));
+        assertSame(backend, StorageBackend.forReading(Arrays.asList(backend), file));
+
+        AddressBook read = new AddressBook();
+        backend.read(read, file, ProgressListener.NONE);
+        assertEquals(0, read.getRowCount());
+        assertNotNull(backend.getCapabilities());
+        assertFalse(backend.getName().isEmpty());
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that the
+     * backend does what its capabilities say.
+     * 
+     * @throws Exception if file cannot be read or written
+     */
+    @Test
+    public void capabilitiesAreKept() throws Exception {
+        backend.write(addressBook, file, ProgressListener.NONE);
+        AddressBook read = new AddressBook();
+        backend.read(read, file, ProgressListener.NONE);
+
+        boolean incremental = backend.getCapabilities().contains(StorageBackend.Capability.INCREMENTAL);
+        assertEquals(incremental, read.isSyncedWith(file));
+        long[] found = backend.search(file, new String[] { "johnny" });
+        if (backend.getCapabilities().contains(StorageBackend.Capability.INDEXED)) {
+            assertArrayEquals(new long[0], found);
+            assertArrayEquals(new long[] { addressBook.getId(0) }, backend.search(file, new String[] { "john" }));
+        } else {
+            assertEquals(null, found);
+        }
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that a
+     * failed read leaves the address book untouched.
+     */
+    @Test
+    public void failedReadLeavesBook() {
+        File missing = new File(new File(folder.getRoot(), "missing"), fileName());
+        assertThrows(IOException.class, () -> backend.read(addressBook, missing, ProgressListener.NONE));
+        assertEquals(2, addressBook.getRowCount());
+        assertEquals("Doe, John", addressBook.get(0).toString());
+    }
+
+    /**
+     * Performance Testing. This test case will test that a large address book is
+     * written and read back in good time, reporting progress to its end.
+     */
+    @Test
+    public void largeBookInGoodTime() {
+        AddressBook large = new AddressBook();
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            persons.add(person("Bob" + i, String.format("%010d", i)));
+        }
+        large.addAll(persons);
+
+        assertTimeout(Duration.ofSeconds(20), () -> {
+            AtomicLong written = new AtomicLong();
+            backend.write(large, file, (done, total) -> written.set(done));
+            assertEquals(50000, written.get());
+
+            AddressBook read = new AddressBook();
+            AtomicLong progress = new AtomicLong();
+            backend.read(read, file, (done, total) -> progress.set(done));
+            assertEquals(50000, progress.get());
+            assertEquals(50000, read.getRowCount());
+            assertEquals("Bob49999", read.get(49999).getFirstName());
+        });
+    }
+
+    /**
+     * A helper function to make a person with the given first name and phone.
+     * 
+     * @param firstName The first name of the person.
+     * @param phone     The phone number of the person.
+     * @return The person.
+     */
+    private static Person person(String firstName, String phone) {
+        return new Person(firstName, "Doe", "1234 NON EXIST ROAD", "SomeCity", "FL", "12345", phone);
+    }
+
+    /**
+     * A helper function to check two address books hold the same persons with the
+     * same ids.
+     * 
+     * @param expected The address book expected.
+     * @param actual   The address book to check.
+     */
+    private static void assertSameRows(AddressBook expected, AddressBook actual) {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        for (int row = 0; row < expected.getRowCount(); row++) {
+            assertEquals(expected.getId(row), actual.getId(row));
+            for (int field = 0; field < Person.fields.length; field++) {
+                assertEquals(expected.get(row).getField(field), actual.get(row).getField(field));
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * StringPoolTest.java This is the test class for sharing the repeated field
+ * values of an address book.
+ */
+public class StringPoolTest {
+
+    ///////////////////////////////////////////////////////////////////////////
+    // TESTS //
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that equal
+     * values are shared, and that hits and misses are counted.
+     */
+    @Test
+    public void equalValuesShared() {
+        StringPool pool = new StringPool();
+        String naples = new String("Naples");
+        assertSame(naples, pool.intern(naples));
+        assertSame(naples, pool.intern(new String("Naples")));
+        assertSame(naples, pool.intern(new String("Naples")));
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+        assertEquals(2, pool.hits());
+        assertEquals(1, pool.misses());
+        assertEquals(2.0 / 3, pool.hitRate(), 1e-9);
+        assertTrue(pool.toString().startsWith("1 strings, 66"));
+    }
+
+    /**
+     * Functional Testing and Positive Testing. This test case will test that a
+     * full pool stops taking new values, and that clearing it releases them.
+     */
+    @Test
+    public void fullPoolStopsGrowing() {
+        StringPool pool = new StringPool(2);
+        pool.intern("FL");
+        pool.intern("NY");
+        String texas = new String("TX");
+        assertSame(texas, pool.intern(texas));
+        assertNotSame(texas, pool.intern(new String("TX")));
+        assertEquals(2, pool.size());
+
+        pool.clear();
+        assertEquals(0, pool.size());
+        assertEquals(0, pool.hitRate());
+        assertSame(texas, pool.intern(texas));
+        assertSame(texas, pool.intern(new String("TX")));
+    }
+
+    /**
+     * Functional Testing and Negative Testing. This test case will test that an
+     * invalid capacity throws an exception.
+     */
+    @Test
+    public void invalidCapacityThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new StringPool(0));
+    }
+}